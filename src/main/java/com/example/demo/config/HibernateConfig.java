@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import com.example.demo.monitoring.JdbcTimingListener;
+import com.example.demo.monitoring.RequestStats;
+import com.example.demo.monitoring.RequestStatsIntegrator;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class HibernateConfig {
+
+    // Hibernate takes a single inspector: count the statement for the request, then let SqlCapture see it
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer() {
+        SqlCapture capture = new SqlCapture();
+        StatementInspector inspector = sql -> capture.inspect(RequestStats.statement(sql));
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    // Per-request entity/collection loads, flushes and JDBC time (see RequestStats)
+    @Bean
+    public HibernatePropertiesCustomizer requestStatsCustomizer() {
+        return properties -> {
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> List.of(new RequestStatsIntegrator()));
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingListener.class.getName());
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.config;
+
+import com.example.demo.services.AccessTokenService;
+import com.example.demo.services.RequestThrottle;
+import com.example.demo.services.RequestThrottle.EndpointClass;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies RequestThrottle to every request: 429 when the client's bucket for the
+ * endpoint class is empty, 503 when the server sheds that class. Runs after token
+ * authentication, so signed-in users are limited per user and everyone else per IP.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RequestThrottle throttle;
+
+    public RateLimitFilter(RequestThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator/")
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        EndpointClass endpointClass = classify(request.getMethod(), path);
+
+        switch (throttle.admit(endpointClass, client(request))) {
+            case RATE_LIMITED -> reject(response, 429, "Too many requests, please slow down");
+            case SHED -> reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy, please retry shortly");
+            case ALLOW -> {
+                long start = System.nanoTime();
+                boolean async = false;
+                try {
+                    chain.doFilter(request, response);
+                    async = request.isAsyncStarted();
+                } finally {
+                    if (async) {
+                        // Streaming responses keep running after doFilter returns; count them until they complete
+                        request.getAsyncContext().addListener(new FinishedListener(endpointClass, start));
+                    } else {
+                        throttle.finished(endpointClass, start);
+                    }
+                }
+            }
+        }
+    }
+
+    private final class FinishedListener implements AsyncListener {
+
+        private final EndpointClass endpointClass;
+        private final long start;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        FinishedListener(EndpointClass endpointClass, long start) {
+            this.endpointClass = endpointClass;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            finish();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            finish();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register for the next async cycle, as the servlet spec requires
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void finish() {
+            if (done.compareAndSet(false, true)) {
+                throttle.finished(endpointClass, start);
+            }
+        }
+    }
+
+    static EndpointClass classify(String method, String path) {
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+
+        if (path.startsWith("/auth/") || path.equals("/users/login") || path.equals("/users/register")
+                || path.startsWith("/users/password-reset")) {
+            return EndpointClass.AUTH;
+        }
+        if (path.startsWith("/admin/") || path.contains("/reports/") || path.endsWith("/stream")
+                || path.startsWith("/products/export") || path.startsWith("/products/import")
+                || path.equals("/products/bulk") || path.equals("/orders/dateRange") || path.equals("/orders/filter")
+                || path.equals("/carts/abandoned") || path.equals("/reviews/top-rated")) {
+            return EndpointClass.REPORT;
+        }
+        if (path.startsWith("/orders/cart/") || (!read && (path.startsWith("/carts") || path.startsWith("/cartItems")))) {
+            return EndpointClass.CHECKOUT;
+        }
+        if (path.equals("/products/search") || path.startsWith("/products/price-range") || path.equals("/categories/search")) {
+            return EndpointClass.SEARCH;
+        }
+        if (read && (path.startsWith("/products") || path.startsWith("/categories") || path.startsWith("/uploads/")
+                || path.startsWith("/reviews"))) {
+            return EndpointClass.CATALOG;
+        }
+        return read ? EndpointClass.DEFAULT : EndpointClass.WRITE;
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AccessTokenService.Claims claims) {
+            return "user:" + claims.id();
+        }
+        // The client's address behind trusted proxies (server.forward-headers-strategy), never a raw header
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
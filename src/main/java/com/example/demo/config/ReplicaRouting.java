@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread replica routing state. A thread pinned to the primary never reads from
+ * the replica; request threads are pinned for a short window after the client's own
+ * writes (carried between requests in a cookie), so they read what they just wrote.
+ */
+public final class ReplicaRouting {
+
+    public static final String STICKY_COOKIE = "primary-until";
+
+    private static final String WRITTEN_ATTRIBUTE = ReplicaRouting.class.getName() + ".written";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    public static boolean isPinned() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    /**
+     * Runs the action with every transaction it starts reading from the primary
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PINNED.get();
+        PINNED.set(true);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void runOnPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static void pin() {
+        PINNED.set(true);
+    }
+
+    static void clear() {
+        PINNED.remove();
+    }
+
+    /**
+     * Called after a read-write transaction commits. On a request thread, pins the rest
+     * of the request and tells the client to stay on the primary for the sticky window.
+     */
+    static void recordWrite(Duration stickyWindow) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return;
+        }
+        pin();
+        HttpServletResponse response = servletAttributes.getResponse();
+        if (response == null || response.isCommitted()
+                || attributes.getAttribute(WRITTEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return;
+        }
+        attributes.setAttribute(WRITTEN_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+
+        long until = System.currentTimeMillis() + stickyWindow.toMillis();
+        Cookie cookie = new Cookie(STICKY_COOKIE, Long.toString(until));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, stickyWindow.toSeconds()));
+        response.addCookie(cookie);
+    }
+
+    private static void restore(Boolean previous) {
+        if (previous == null) {
+            PINNED.remove();
+        } else {
+            PINNED.set(previous);
+        }
+    }
+}
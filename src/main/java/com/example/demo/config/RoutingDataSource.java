@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else (read-write
+ * transactions, non-transactional access, pinned threads) to the primary. Must sit
+ * behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is only
+ * known once the transaction has started, after the connection is normally fetched.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final Duration stickyWindow;
+
+    public RoutingDataSource(DataSource primary, DataSource replica, Duration stickyWindow) {
+        this.stickyWindow = stickyWindow;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return route();
+    }
+
+    Route route() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return Route.PRIMARY;
+        }
+        return ReplicaRouting.isPinned() ? Route.PRIMARY : Route.REPLICA;
+    }
+
+    // Read-write transactions that commit make the caller sticky to the primary
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteTracker) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WriteTracker());
+    }
+
+    private final class WriteTracker implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            ReplicaRouting.recordWrite(stickyWindow);
+        }
+    }
+}
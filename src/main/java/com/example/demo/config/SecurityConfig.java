@@ -1,29 +1,81 @@
 package com.example.demo.config;
 
+import com.example.demo.entities.UserRole;
+import com.example.demo.services.AccessTokenService;
+import com.example.demo.services.RequestThrottle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Arrays;
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private RequestThrottle requestThrottle;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
-                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+                // Stateless: identity comes from the signed access token on each request
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new TokenAuthenticationFilter(accessTokenService), UsernamePasswordAuthenticationFilter.class)
+                // Rate limits and load shedding, keyed by the user the token identified (or the IP)
+                .addFilterAfter(new RateLimitFilter(requestThrottle), TokenAuthenticationFilter.class)
+                // Actuator endpoints other than health expose SQL and per-request internals
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole(UserRole.ADMIN.name())
+                        .anyRequest().permitAll());
 
         return http.build();
     }
 
+    // New passwords are stored as {bcrypt}...; rows saved before hashing have no prefix and
+    // are compared as plain text (in constant time), then re-hashed on the next login
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        DelegatingPasswordEncoder encoder = (DelegatingPasswordEncoder) PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        encoder.setDefaultPasswordEncoderForMatches(new LegacyPlainTextPasswordEncoder());
+        return encoder;
+    }
+
+    private static final class LegacyPlainTextPasswordEncoder implements PasswordEncoder {
+        // Only used for matches(); DelegatingPasswordEncoder encodes with bcrypt
+        @Override
+        public String encode(CharSequence rawPassword) {
+            throw new IllegalStateException("Plain text passwords are no longer stored");
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String storedPassword) {
+            if (rawPassword == null || storedPassword == null) {
+                return false;
+            }
+            return MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
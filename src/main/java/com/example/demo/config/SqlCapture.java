@@ -0,0 +1,48 @@
+package com.example.demo.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector that, only inside {@link #capture}, records the SQL
+ * of the first statement and aborts before it reaches the database. Everywhere
+ * else it passes statements through unchanged.
+ */
+public final class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<String[]> CAPTURED = new ThreadLocal<>();
+
+    /**
+     * SQL the action would have run first, or null if it issued none
+     */
+    public static String capture(Runnable action) {
+        String[] captured = new String[1];
+        CAPTURED.set(captured);
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            // Expected: our own abort, possibly wrapped by Hibernate or Spring
+            if (captured[0] == null) {
+                throw e;
+            }
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String[] captured = CAPTURED.get();
+        if (captured != null) {
+            captured[0] = sql;
+            throw new Captured();
+        }
+        return sql;
+    }
+
+    private static final class Captured extends RuntimeException {
+        Captured() {
+            super("SQL captured, statement not executed", null, false, false);
+        }
+    }
+}
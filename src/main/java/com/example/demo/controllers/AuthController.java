@@ -2,10 +2,14 @@ package com.example.demo.controllers;
 
 import com.example.demo.entities.User;
 import com.example.demo.entities.UserRole;
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.services.AccessTokenService;
+import com.example.demo.services.UserPrincipalCache;
 import com.example.demo.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -25,6 +29,9 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AccessTokenService accessTokenService;
+
     /**
      * User login endpoint
      * @param loginData Map containing email and password for authentication
@@ -39,31 +46,24 @@ public class AuthController {
             return ResponseEntity.badRequest().body("Email and password are required");
         }
 
-        boolean isAuthenticated = userService.authenticate(email, password);
-
-        if (isAuthenticated) {
-            Optional<User> userOpt = userService.getByEmail(email);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-
-                if (!user.isActive()) {
-                    return ResponseEntity.status(401).body("Account is deactivated. Please contact support.");
-                }
-
-                Map<String, Object> response = new HashMap<>();
-                response.put("id", user.getId());
-                response.put("name", user.getUsername());
-                response.put("email", user.getEmail());
-                response.put("role", user.getRole());
-                response.put("active", user.isActive());
-
-                return ResponseEntity.ok(response);
-            } else {
-                return ResponseEntity.status(404).body("User not found");
-            }
-        } else {
+        // Credentials are checked against the cached principal; no further user lookups
+        Optional<UserPrincipalCache.Principal> principal = userService.verifyCredentials(email, password);
+        if (principal.isEmpty()) {
             return ResponseEntity.status(401).body("Invalid email or password");
         }
+
+        UserPrincipalCache.Principal user = principal.get();
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", user.id());
+        response.put("name", user.username());
+        response.put("email", user.email());
+        response.put("role", user.role());
+        response.put("active", user.active());
+        response.put("token", userService.issueAccessToken(user));
+        response.put("tokenType", "Bearer");
+        response.put("expiresIn", accessTokenService.ttl().toSeconds());
+
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -125,6 +125,8 @@ public class AuthController {
             }
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred during registration");
         }
@@ -142,6 +144,8 @@ public class AuthController {
             // In a real app, you would send an email with the reset token/link
             // For security, we always return success even if email doesn't exist
             return ResponseEntity.ok("If your email exists in our system, you will receive reset instructions");
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("An error occurred processing your request");
@@ -162,18 +166,37 @@ public class AuthController {
             return ResponseEntity.badRequest().body("Token and password are required");
         }
 
-        // This would validate the token and update the password
-        // Not implemented in the current UserService
-        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
-                .body("Password reset functionality not implemented");
+        try {
+            if (!userService.resetPassword(token, newPassword)) {
+                return ResponseEntity.badRequest().body("Invalid or expired reset token");
+            }
+            return ResponseEntity.ok("Password has been reset");
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        }
     }
 
     /**
      * Check if user is authenticated (for frontend session validation)
+     * @param claims Verified access token, answered from the token alone
+     * @param userId Legacy clients without a token identify themselves by id
      * @return User data if authenticated or error
      */
     @GetMapping("/check")
-    public ResponseEntity<?> checkAuthStatus(@RequestParam Long userId) {
+    public ResponseEntity<?> checkAuthStatus(@AuthenticationPrincipal AccessTokenService.Claims claims,
+                                             @RequestParam(required = false) Long userId) {
+        if (claims != null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", claims.id());
+            response.put("name", claims.username());
+            response.put("email", claims.email());
+            response.put("role", claims.role());
+            return ResponseEntity.ok(response);
+        }
+        if (userId == null) {
+            return ResponseEntity.status(401).body("Not authenticated");
+        }
+
         try {
             Optional<User> userOpt = userService.getById(userId);
 
@@ -1,12 +1,16 @@
 package com.example.demo.controllers;
 
+import com.example.demo.dto.CartDto;
 import com.example.demo.entities.Cart;
 import com.example.demo.entities.CartItem;
+import com.example.demo.services.AccessTokenService;
 import com.example.demo.services.CartService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -21,61 +25,85 @@ public class CartController {
     private CartService cartService;
 
     @GetMapping
-    public ResponseEntity<List<Cart>> getAll() {
-        return ResponseEntity.ok(cartService.getAll());
+    public ResponseEntity<List<CartDto>> getAll() {
+        return ResponseEntity.ok(cartService.getAllViews());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Cart> getById(@PathVariable Long id) {
-        return cartService.getById(id)
+    public ResponseEntity<CartDto> getById(@PathVariable Long id) {
+        return cartService.getView(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/user/{email}")
-    public ResponseEntity<List<Cart>> getByUserEmail(@PathVariable String email) {
-        return ResponseEntity.ok(cartService.getByUserEmail(email));
+    public ResponseEntity<List<CartDto>> getByUserEmail(@PathVariable String email) {
+        return ResponseEntity.ok(cartService.getViewsByUserEmail(email));
     }
 
     @GetMapping("/user/{email}/active")
-    public ResponseEntity<Cart> getActiveCartByUserEmail(@PathVariable String email) {
-        return cartService.getActiveCartByUserEmail(email)
+    public ResponseEntity<CartDto> getActiveCartByUserEmail(@PathVariable String email) {
+        return cartService.getActiveCartViewByUserEmail(email)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/user/id/{userId}/active")
-    public ResponseEntity<Cart> getActiveCartByUserId(@PathVariable Long userId) {
-        return cartService.getActiveCartByUserId(userId)
+    public ResponseEntity<CartDto> getActiveCartByUserId(@PathVariable Long userId) {
+        return cartService.getActiveCartViewByUserId(userId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // The current user comes from the access token, so these need no user lookup
+
+    @GetMapping("/me/active")
+    public ResponseEntity<CartDto> getMyActiveCart(@AuthenticationPrincipal AccessTokenService.Claims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return cartService.getActiveCartViewByUserId(claims.id())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/me/get-or-create")
+    public ResponseEntity<CartDto> getOrCreateMyActiveCart(@AuthenticationPrincipal AccessTokenService.Claims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return toView(cartService.getOrCreateActiveCart(claims.id()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/user/{email}/get-or-create")
-    public ResponseEntity<Cart> getOrCreateActiveCart(@PathVariable String email) {
+    public ResponseEntity<CartDto> getOrCreateActiveCart(@PathVariable String email) {
         try {
-            return ResponseEntity.ok(cartService.getOrCreateActiveCart(email));
+            return toView(cartService.getOrCreateActiveCart(email));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/user/{email}")
-    public ResponseEntity<Cart> createCartForUser(@PathVariable String email) {
+    public ResponseEntity<CartDto> createCartForUser(@PathVariable String email) {
         try {
-            return ResponseEntity.ok(cartService.createCartForUser(email));
+            return toView(cartService.createCartForUser(email));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/{cartId}/products/{productId}")
-    public ResponseEntity<Cart> addProductToCart(
+    public ResponseEntity<CartDto> addProductToCart(
             @PathVariable Long cartId,
             @PathVariable Long productId,
             @RequestParam int quantity) {
         try {
-            return ResponseEntity.ok(cartService.addProductToCart(cartId, productId, quantity));
+            return toView(cartService.addProductToCart(cartId, productId, quantity));
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().build();
         } catch (EntityNotFoundException e) {
@@ -86,12 +114,12 @@ public class CartController {
     }
 
     @PutMapping("/{cartId}/products/{productId}")
-    public ResponseEntity<Cart> updateCartItemQuantity(
+    public ResponseEntity<CartDto> updateCartItemQuantity(
             @PathVariable Long cartId,
             @PathVariable Long productId,
             @RequestParam int quantity) {
         try {
-            return ResponseEntity.ok(cartService.updateCartItemQuantity(cartId, productId, quantity));
+            return toView(cartService.updateCartItemQuantity(cartId, productId, quantity));
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().build();
         } catch (EntityNotFoundException e) {
@@ -132,11 +160,11 @@ public class CartController {
     }
 
     @PostMapping("/merge/{anonymousCartId}/user/{userEmail}")
-    public ResponseEntity<Cart> mergeAnonymousCartWithUserCart(
+    public ResponseEntity<CartDto> mergeAnonymousCartWithUserCart(
             @PathVariable Long anonymousCartId,
             @PathVariable String userEmail) {
         try {
-            return ResponseEntity.ok(cartService.mergeAnonymousCartWithUserCart(anonymousCartId, userEmail));
+            return toView(cartService.mergeAnonymousCartWithUserCart(anonymousCartId, userEmail));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -145,9 +173,9 @@ public class CartController {
     }
 
     @GetMapping("/abandoned")
-    public ResponseEntity<List<Cart>> getAbandonedCarts(
+    public ResponseEntity<List<CartDto>> getAbandonedCarts(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cutoffTime) {
-        return ResponseEntity.ok(cartService.getAbandonedCarts(cutoffTime));
+        return ResponseEntity.ok(cartService.getAbandonedCartViews(cutoffTime));
     }
 
     @GetMapping("/count/active")
@@ -156,18 +184,18 @@ public class CartController {
     }
 
     @PostMapping
-    public ResponseEntity<Cart> create(@RequestBody Cart cart) {
+    public ResponseEntity<CartDto> create(@RequestBody Cart cart) {
         try {
-            return ResponseEntity.ok(cartService.add(cart));
+            return toView(cartService.add(cart));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Cart> update(@PathVariable Long id, @RequestBody Cart cart) {
+    public ResponseEntity<CartDto> update(@PathVariable Long id, @RequestBody Cart cart) {
         try {
-            return ResponseEntity.ok(cartService.update(id, cart));
+            return toView(cartService.update(id, cart));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
@@ -182,4 +210,12 @@ public class CartController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // Re-read a cart that was just modified through the projection query,
+    // instead of serializing the entity graph the service returned
+    private ResponseEntity<CartDto> toView(Cart cart) {
+        return cartService.getView(cart.getId())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
\ No newline at end of file
@@ -5,8 +5,10 @@ import com.example.demo.exceptions.InsufficientInventoryException;
 import com.example.demo.services.CartItemService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -23,6 +25,13 @@ public class CartItemController {
         return ResponseEntity.ok(cartItemService.getAll());
     }
 
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cartItemService.streamAll());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CartItem> getById(@PathVariable Long id) {
         return cartItemService.getById(id)
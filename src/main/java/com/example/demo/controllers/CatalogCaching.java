@@ -0,0 +1,50 @@
+package com.example.demo.controllers;
+
+import com.example.demo.services.CatalogVersions;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for catalog reads. The validator check runs before the body is
+ * loaded, so a matching If-None-Match gets a 304 with no query.
+ */
+final class CatalogCaching {
+
+    // Browsers revalidate every time (cheap); shared caches may serve for a minute
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ZERO)
+            .mustRevalidate()
+            .cachePublic()
+            .sMaxAge(Duration.ofSeconds(60));
+
+    private CatalogCaching() {
+    }
+
+    static <T> ResponseEntity<T> conditional(ServletWebRequest request, CatalogVersions.Stamp stamp, Supplier<T> body) {
+        return conditionalResponse(request, stamp, () -> ResponseEntity.ok(body.get()));
+    }
+
+    /**
+     * Same as {@link #conditional}, for handlers that may still answer 404
+     */
+    static <T> ResponseEntity<T> conditionalResponse(ServletWebRequest request, CatalogVersions.Stamp stamp,
+                                                     Supplier<ResponseEntity<T>> response) {
+        HttpServletResponse servletResponse = request.getResponse();
+        if (servletResponse != null) {
+            servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL.getHeaderValue());
+            servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        // Sets the ETag on the response, and the 304 status when it matches
+        String etag = stamp.etag(request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return response.get();
+    }
+}
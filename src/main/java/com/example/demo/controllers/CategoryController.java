@@ -1,11 +1,15 @@
 package com.example.demo.controllers;
 
 import com.example.demo.entities.Category;
+import com.example.demo.services.CatalogVersions;
 import com.example.demo.services.CategoryService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,21 +21,32 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private CatalogVersions catalogVersions;
+
     @GetMapping
-    public ResponseEntity<List<Category>> getAll() {
-        return ResponseEntity.ok(categoryService.getAll());
+    public ResponseEntity<List<Category>> getAll(ServletWebRequest request) {
+        return CatalogCaching.conditional(request, catalogVersions.categories(), categoryService::getAll);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(categoryService.streamAll());
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<Category>> getAllActive() {
-        return ResponseEntity.ok(categoryService.getAllActive());
+    public ResponseEntity<List<Category>> getAllActive(ServletWebRequest request) {
+        return CatalogCaching.conditional(request, catalogVersions.categories(), categoryService::getAllActive);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getById(@PathVariable Long id) {
-        return categoryService.getById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Category> getById(@PathVariable Long id, ServletWebRequest request) {
+        return CatalogCaching.conditionalResponse(request, catalogVersions.categories(),
+                () -> categoryService.getById(id)
+                        .map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build()));
     }
 
     @GetMapping("/name/{name}")
@@ -47,13 +62,14 @@ public class CategoryController {
     }
 
     @GetMapping("/main")
-    public ResponseEntity<List<Category>> getMainCategories() {
-        return ResponseEntity.ok(categoryService.getMainCategories());
+    public ResponseEntity<List<Category>> getMainCategories(ServletWebRequest request) {
+        return CatalogCaching.conditional(request, catalogVersions.categories(), categoryService::getMainCategories);
     }
 
     @GetMapping("/parent/{parentId}")
-    public ResponseEntity<List<Category>> getSubcategories(@PathVariable Long parentId) {
-        return ResponseEntity.ok(categoryService.getSubcategories(parentId));
+    public ResponseEntity<List<Category>> getSubcategories(@PathVariable Long parentId, ServletWebRequest request) {
+        return CatalogCaching.conditional(request, catalogVersions.categories(),
+                () -> categoryService.getSubcategories(parentId));
     }
 
     @GetMapping("/with-products")
@@ -1,11 +1,16 @@
 package com.example.demo.controllers;
 
+import com.example.demo.dto.FieldSet;
 import com.example.demo.dto.OrderDto;
+import com.example.demo.dto.OrderFilter;
+import com.example.demo.dto.OrderSummaryPage;
+import com.example.demo.dto.SparseFields;
 import com.example.demo.entities.Order;
 import com.example.demo.entities.Payment;
 import com.example.demo.entities.PaymentMethod;
 import com.example.demo.exceptions.InvalidOrderStateException;
 import com.example.demo.exceptions.ResourceNotFoundException;
+import com.example.demo.services.AccessTokenService;
 import com.example.demo.services.OrderService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +19,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -32,19 +41,35 @@ public class OrderController {
     // Basic CRUD operations
 
     @GetMapping
-    public ResponseEntity<List<OrderDto>> getAll() {
-        return ResponseEntity.ok(orderService.getAll());
+    public ResponseEntity<MappingJacksonValue> getAll(@RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return ResponseEntity.ok(SparseFields.forOrders(orderService.getAll(fieldSet), fieldSet));
     }
 
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderService.streamAll(FieldSet.parse(fields)));
+    }
+
+    // Keyset pages by id: pass the last id of a page as ?after= for the next one
     @GetMapping("/paginated")
-    public ResponseEntity<List<OrderDto>> getAllPaginated() {
-        return ResponseEntity.ok(orderService.getAllPaginated());
+    public ResponseEntity<MappingJacksonValue> getAllPaginated(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return ResponseEntity.ok(SparseFields.forOrders(orderService.getAllPaginated(fieldSet, after, size), fieldSet));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDto> getById(@PathVariable Long id) {
-        return orderService.getById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<MappingJacksonValue> getById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return orderService.getById(id, fieldSet)
+                .map(order -> ResponseEntity.ok(SparseFields.forOrders(order, fieldSet)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -79,26 +104,95 @@ public class OrderController {
 
     // Specialized endpoints for order management
 
+    // Orders of the user in the access token, without a user lookup
+    @GetMapping("/me")
+    public ResponseEntity<MappingJacksonValue> getMyOrders(
+            @AuthenticationPrincipal AccessTokenService.Claims claims,
+            @RequestParam(required = false) String fields) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return ResponseEntity.ok(SparseFields.forOrders(orderService.getByUserEmail(claims.email(), fieldSet), fieldSet));
+    }
+
+    // Order history of the token's user from the summary read model; open an order with GET /orders/{id}
+    @GetMapping("/me/summaries")
+    public ResponseEntity<OrderSummaryPage> getMyOrderHistory(
+            @AuthenticationPrincipal AccessTokenService.Claims claims,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(orderService.getOrderHistory(claims.id(), after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/user/{email}/summaries")
+    public ResponseEntity<OrderSummaryPage> getOrderHistory(
+            @PathVariable String email,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(orderService.getOrderHistory(email, after, size));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/user/{email}")
-    public ResponseEntity<List<OrderDto>> getByUserEmail(
-            @PathVariable String email ){
-        return ResponseEntity.ok(orderService.getByUserEmail(email));
+    public ResponseEntity<MappingJacksonValue> getByUserEmail(
+            @PathVariable String email,
+            @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return ResponseEntity.ok(SparseFields.forOrders(orderService.getByUserEmail(email, fieldSet), fieldSet));
     }
 
     @GetMapping("/dateRange")
-    public ResponseEntity<List<OrderDto>> getByDateRange(
+    public ResponseEntity<MappingJacksonValue> getByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate){
-        return ResponseEntity.ok(orderService.getByDateRange(startDate, endDate));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return ResponseEntity.ok(SparseFields.forOrders(orderService.getByDateRange(startDate, endDate, fieldSet), fieldSet));
     }
 
+    // Only the filters that are set reach the SQL; sort=id|createdAt|orderDate|totalAmount,
+    // next page with after=<last sort value>&afterId=<last id>
     @GetMapping("/filter")
-    public ResponseEntity<List<OrderDto>> filterOrders(
+    public ResponseEntity<MappingJacksonValue> filterOrders(
             @RequestParam(required = false) Long userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) Double minAmount){
-        return ResponseEntity.ok(orderService.filterOrders(userId, startDate, endDate, minAmount));
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean desc,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields) {
+        OrderFilter filter = new OrderFilter();
+        filter.setUserId(userId);
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        filter.setMinAmount(minAmount);
+        filter.setSort(sort);
+        filter.setDescending(desc);
+        filter.setAfter(after);
+        filter.setAfterId(afterId);
+        filter.setLimit(limit);
+        FieldSet fieldSet = FieldSet.parse(fields);
+        try {
+            return ResponseEntity.ok(SparseFields.forOrders(orderService.filterOrders(filter, fieldSet), fieldSet));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     // Order status management
@@ -130,7 +224,8 @@ public class OrderController {
 
 
     @GetMapping("/recent")
-    public ResponseEntity<List<OrderDto>> getRecentOrders() {
-        return ResponseEntity.ok(orderService.getRecentOrders());
+    public ResponseEntity<MappingJacksonValue> getRecentOrders(@RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return ResponseEntity.ok(SparseFields.forOrders(orderService.getRecentOrders(fieldSet), fieldSet));
     }
 }
\ No newline at end of file
@@ -8,8 +8,10 @@ import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -31,6 +33,13 @@ public class OrderItemController {
         return ResponseEntity.ok(orderItemService.getAll());
     }
 
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderItemService.streamAll());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderItem> getById(@PathVariable Long id) {
         return orderItemService.getById(id)
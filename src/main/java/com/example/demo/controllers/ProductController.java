@@ -1,65 +1,116 @@
 package com.example.demo.controllers;
 
+import com.example.demo.dto.FieldSet;
 import com.example.demo.dto.ProductDto;
+import com.example.demo.dto.SparseFields;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.ProductSpecification;
+import com.example.demo.exceptions.ResourceNotFoundException;
+import com.example.demo.services.CatalogVersions;
+import com.example.demo.services.ImageUploadService;
+import com.example.demo.services.ProductBulkService;
 import com.example.demo.services.ProductService;
+import com.example.demo.services.ProductSnapshot;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/products")
-@CrossOrigin(origins = "http://localhost:5173")
+@CrossOrigin(origins = "http://localhost:5173", exposedHeaders = "X-Total-Count")
 public class ProductController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private ProductService productService;
 
-    // Get all products
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductSnapshot productSnapshot;
+
+    // Get all products (optionally only ?fields=id,name,price,mainImage)
     @GetMapping
-    public ResponseEntity<List<ProductDto>> getAll() {
-        List<ProductDto>products = productService.getAll();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<MappingJacksonValue> getAll(
+            @RequestParam(required = false) String fields,
+            ServletWebRequest request) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return CatalogCaching.conditional(request, catalogVersions.products(),
+                () -> SparseFields.forProducts(productService.getAll(fieldSet), fieldSet));
     }
 
 
     // Get product by ID
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getById(@PathVariable Long id) {
-        return productService.getById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            ServletWebRequest request) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        // Full JSON representation straight from the in-memory snapshot when it has the product
+        if (fieldSet.isAll() && !wantsBinary(request.getHeader(HttpHeaders.ACCEPT))) {
+            byte[] json = productSnapshot.get(id);
+            if (json != null) {
+                return CatalogCaching.conditionalResponse(request, catalogVersions.products(),
+                        () -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json));
+            }
+        }
+        return CatalogCaching.conditionalResponse(request, catalogVersions.products(),
+                () -> productService.getById(id, fieldSet)
+                        .map(product -> ResponseEntity.ok(SparseFields.forProducts(product, fieldSet)))
+                        .orElse(ResponseEntity.notFound().build()));
     }
 
     // Search products with filters
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDto> >search(
+    public ResponseEntity<MappingJacksonValue> search(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) Double minPrice,
-            @RequestParam(required = false) Double maxPrice) {
-
-        return ResponseEntity.ok(productService.searchProducts(name, categoryId, brand, minPrice, maxPrice));
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String fields,
+            ServletWebRequest request) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return CatalogCaching.conditional(request, catalogVersions.products(),
+                () -> SparseFields.forProducts(
+                        productService.searchProducts(name, categoryId, brand, minPrice, maxPrice, fieldSet), fieldSet));
     }
 
     // Get products by category
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<ProductDto>> getByCategory(
-            @PathVariable Long categoryId){
-        return ResponseEntity.ok(productService.getByCategoryId(categoryId));
+    public ResponseEntity<MappingJacksonValue> getByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String fields,
+            ServletWebRequest request) {
+        FieldSet fieldSet = FieldSet.parse(fields);
+        return CatalogCaching.conditional(request, catalogVersions.products(),
+                () -> SparseFields.forProducts(productService.getByCategoryId(categoryId, fieldSet), fieldSet));
     }
 
     // Get products by brand
@@ -70,25 +121,29 @@ public class ProductController {
 
     // Get all available brands
     @GetMapping("/brands")
-    public ResponseEntity<List<String>> getAllBrands() {
-        return ResponseEntity.ok(productService.getAllBrands());
+    public ResponseEntity<List<String>> getAllBrands(ServletWebRequest request) {
+        return CatalogCaching.conditional(request, catalogVersions.products(), productService::getAllBrands);
     }
 
-    // Get products by price range
+    // Get products by price range, cheapest first (paged; total in X-Total-Count)
     @GetMapping("/price-range")
     public ResponseEntity<List<Product>> getByPriceRange(
             @RequestParam double minPrice,
-            @RequestParam double maxPrice) {
-        return ResponseEntity.ok(productService.getProductsByPriceRange(minPrice, maxPrice));
+            @RequestParam double maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return paged(productService.getProductsByPriceRange(minPrice, maxPrice, Math.max(0, page), pageSize(size)));
     }
 
-    // Get products by price range and category
+    // Get products by price range and category, cheapest first (paged; total in X-Total-Count)
     @GetMapping("/price-range-category")
     public ResponseEntity<List<Product>> getByPriceRangeAndCategory(
             @RequestParam double minPrice,
             @RequestParam double maxPrice,
-            @RequestParam Long categoryId) {
-        return ResponseEntity.ok(productService.getProductsByPriceRangeAndCategory(minPrice, maxPrice, categoryId));
+            @RequestParam Long categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return paged(productService.getProductsByPriceRangeAndCategory(minPrice, maxPrice, categoryId, Math.max(0, page), pageSize(size)));
     }
 
     // Get popular products
@@ -143,6 +198,56 @@ public class ProductController {
 
 
 
+    // Upload an image file (multipart "file"); resized variants are generated in the background
+    @PostMapping(value = "/{id}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadImage(
+            @PathVariable Long id,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean main) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(imageUploadService.upload(id, file, main));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to store image: " + e.getMessage()));
+        }
+    }
+
+    // Bulk import from an NDJSON or CSV file (?format=ndjson|csv, otherwise by file extension)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        try {
+            ProductBulkService.Format resolved = ProductBulkService.Format.resolve(format, file.getOriginalFilename());
+            return ResponseEntity.ok(productBulkService.importProducts(file.getInputStream(), resolved));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to read import file: " + e.getMessage()));
+        }
+    }
+
+    // Stream the whole catalog in the import format
+    @GetMapping("/export")
+    public ResponseEntity<?> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        ProductBulkService.Format resolved;
+        try {
+            resolved = ProductBulkService.Format.resolve(format, null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        boolean csv = resolved == ProductBulkService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + (csv ? "csv" : "ndjson") + "\"")
+                .body(productBulkService.export(resolved));
+    }
+
     // Delete specification
     @DeleteMapping("/{productId}/specifications/{specId}")
     public ResponseEntity<Product> deleteSpecification(
@@ -189,6 +294,17 @@ public class ProductController {
         }
     }
 
+    // Bulk price/stock sync: NDJSON body, one {"productId", "price", "quantity", "delta"} per line
+    @PatchMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<?> bulkUpdate(InputStream body) {
+        try {
+            return ResponseEntity.ok(productBulkService.applyStockUpdates(body));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to read update stream: " + e.getMessage()));
+        }
+    }
+
     // Activate product
     @PatchMapping("/{id}/activate")
     public ResponseEntity<Product> activateProduct(@PathVariable Long id) {
@@ -219,4 +335,19 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+
+    // Smile / CBOR clients keep going through the message converters
+    private static boolean wantsBinary(String accept) {
+        return accept != null && (accept.contains("smile") || accept.contains("cbor"));
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static ResponseEntity<List<Product>> paged(Page<Product> page) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(page.getTotalElements()))
+                .body(page.getContent());
+    }
+}
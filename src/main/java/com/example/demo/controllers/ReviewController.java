@@ -1,5 +1,7 @@
 package com.example.demo.controllers;
 
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.SparseFields;
 import com.example.demo.entities.Review;
 import com.example.demo.services.ReviewService;
 import jakarta.persistence.EntityNotFoundException;
@@ -9,8 +11,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -26,73 +31,92 @@ public class ReviewController {
 
     // Get all reviews (admin)
     @GetMapping
-    public ResponseEntity<List<Review>> getAll() {
-        return ResponseEntity.ok(reviewService.getAll());
+    public ResponseEntity<MappingJacksonValue> getAll(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getAll(), FieldSet.parse(fields)));
+    }
+
+    // Stream all reviews (admin, large exports)
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(reviewService.streamAll(FieldSet.parse(fields)));
     }
 
     // Get all reviews with pagination (admin)
     @GetMapping("/paginated")
-    public ResponseEntity<List<Review>> getAllPaginated(
+    public ResponseEntity<MappingJacksonValue> getAllPaginated(
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(required = false) String fields) {
 
         Sort sort = sortDirection.equalsIgnoreCase("ASC") ?
                 Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
 
-        return ResponseEntity.ok(reviewService.getAllPaginated());
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getAllPaginated(), FieldSet.parse(fields)));
     }
 
     // Get review by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Review> getById(@PathVariable Long id) {
+    public ResponseEntity<MappingJacksonValue> getById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields) {
         return reviewService.getById(id)
-                .map(ResponseEntity::ok)
+                .map(review -> ResponseEntity.ok(SparseFields.forReviews(review, FieldSet.parse(fields))))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // Get reviews by product ID
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<Review>> getByProductId(@PathVariable Long productId) {
-        return ResponseEntity.ok(reviewService.getByProductId(productId));
+    public ResponseEntity<MappingJacksonValue> getByProductId(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getByProductId(productId), FieldSet.parse(fields)));
     }
 
     // Get reviews by product ID with pagination
     @GetMapping("/product/{productId}/paginated")
-    public ResponseEntity<List<Review>> getByProductIdPaginated(
+    public ResponseEntity<MappingJacksonValue> getByProductIdPaginated(
             @PathVariable Long productId,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(required = false) String fields) {
 
         Sort sort = sortDirection.equalsIgnoreCase("ASC") ?
                 Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
 
-        return ResponseEntity.ok(reviewService.getByProductId(productId));
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getByProductId(productId), FieldSet.parse(fields)));
     }
 
     // Get approved reviews by product ID
     @GetMapping("/product/{productId}/approved")
-    public ResponseEntity<List<Review>> getApprovedByProductId(@PathVariable Long productId) {
-        return ResponseEntity.ok(reviewService.getApprovedByProductId(productId));
+    public ResponseEntity<MappingJacksonValue> getApprovedByProductId(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getApprovedByProductId(productId), FieldSet.parse(fields)));
     }
 
     // Get reviews by user ID
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Review>> getByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(reviewService.getByUserId(userId));
+    public ResponseEntity<MappingJacksonValue> getByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getByUserId(userId), FieldSet.parse(fields)));
     }
 
     // Get reviews by user ID with pagination
     @GetMapping("/user/{userId}/paginated")
-    public ResponseEntity<List<Review>> getByUserIdPaginated(
-            @PathVariable Long userId) {
+    public ResponseEntity<MappingJacksonValue> getByUserIdPaginated(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String fields) {
 
-        return ResponseEntity.ok(reviewService.getByUserId(userId));
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getByUserId(userId), FieldSet.parse(fields)));
     }
 
     // Get pending reviews (admin)
     @GetMapping("/pending")
-    public ResponseEntity<List<Review>> getPendingReviews() {
-        return ResponseEntity.ok(reviewService.getPendingReviews());
+    public ResponseEntity<MappingJacksonValue> getPendingReviews(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getPendingReviews(), FieldSet.parse(fields)));
     }
 
     // Check if user has reviewed a product
@@ -133,9 +157,10 @@ public class ReviewController {
 
     // Get recent reviews
     @GetMapping("/recent")
-    public ResponseEntity<List<Review>> getRecentReviews(
-            @RequestParam(defaultValue = "5") int limit) {
-        return ResponseEntity.ok(reviewService.getRecentReviews(limit));
+    public ResponseEntity<MappingJacksonValue> getRecentReviews(
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(SparseFields.forReviews(reviewService.getRecentReviews(limit), FieldSet.parse(fields)));
     }
 
     // Add new review
@@ -0,0 +1,25 @@
+package com.example.demo.controllers;
+
+import com.example.demo.services.ImageServingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:5173")
+public class UploadController {
+
+    @Autowired
+    private ImageServingService imageServingService;
+
+    // Serve uploaded product images (replaces the /uploads/** resource handler)
+    @RequestMapping(value = "/uploads/{*path}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(@PathVariable String path,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        imageServingService.serve(path, request, response);
+    }
+}
@@ -6,8 +6,10 @@ import com.example.demo.services.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -27,6 +29,14 @@ public class UserController {
         return ResponseEntity.ok(userService.getAll());
     }
 
+    // Stream all users (admin, large exports)
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(userService.streamAll());
+    }
+
     // Get user by ID
     @GetMapping("/id/{id}")
     public ResponseEntity<User> getById(@PathVariable Long id) {
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+
+public class CartDto {
+    private Long id;
+    private Long userId;
+    private boolean active;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private List<CartItemDto> items = new ArrayList<>();
+    private int totalItems;
+    private double totalPrice;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+@Data
+
+public class CartItemDto {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private String brand;
+    private String mainImageUrl;
+    private int quantity;
+    private double unitPrice;
+    private double totalPrice;
+}
@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One flat row of the cart projection query: cart header columns repeated on
+ * every line, plus the line and the minimal product info needed to render it.
+ * Line columns are null for an empty cart (LEFT JOIN).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class CartLineView {
+    private Long cartId;
+    private Long userId;
+    private Boolean active;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long itemId;
+    private Long productId;
+    private String productName;
+    private String brand;
+    private String mainImageUrl;
+    private Integer quantity;
+    private Double unitPrice;
+}
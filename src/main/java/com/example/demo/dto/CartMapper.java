@@ -0,0 +1,67 @@
+package com.example.demo.dto;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Builds cart read models from the flat rows returned by the cart projection
+ * queries in {@link com.example.demo.repositories.CartRepo}, so no entity graph
+ * is loaded or serialized.
+ */
+@Component
+public class CartMapper {
+
+    public List<CartDto> toDtos(List<CartLineView> lines) {
+        Map<Long, CartDto> carts = new LinkedHashMap<>();
+        Set<Long> seenItems = new HashSet<>();
+
+        for (CartLineView line : lines) {
+            CartDto cart = carts.computeIfAbsent(line.getCartId(), id -> toHeader(line));
+
+            // A product with several "main" images would repeat its line
+            if (line.getItemId() == null || !seenItems.add(line.getItemId())) {
+                continue;
+            }
+
+            CartItemDto item = toDto(line);
+            cart.getItems().add(item);
+            cart.setTotalItems(cart.getTotalItems() + item.getQuantity());
+            cart.setTotalPrice(cart.getTotalPrice() + item.getTotalPrice());
+        }
+        return new ArrayList<>(carts.values());
+    }
+
+    public Optional<CartDto> toDto(List<CartLineView> lines) {
+        return toDtos(lines).stream().findFirst();
+    }
+
+    private CartDto toHeader(CartLineView line) {
+        CartDto dto = new CartDto();
+        dto.setId(line.getCartId());
+        dto.setUserId(line.getUserId());
+        dto.setActive(Boolean.TRUE.equals(line.getActive()));
+        dto.setCreatedAt(line.getCreatedAt());
+        dto.setUpdatedAt(line.getUpdatedAt());
+        return dto;
+    }
+
+    private CartItemDto toDto(CartLineView line) {
+        CartItemDto dto = new CartItemDto();
+        dto.setId(line.getItemId());
+        dto.setProductId(line.getProductId());
+        dto.setProductName(line.getProductName());
+        dto.setBrand(line.getBrand());
+        dto.setMainImageUrl(line.getMainImageUrl());
+        dto.setQuantity(line.getQuantity() != null ? line.getQuantity() : 0);
+        dto.setUnitPrice(line.getUnitPrice() != null ? line.getUnitPrice() : 0.0);
+        dto.setTotalPrice(dto.getUnitPrice() * dto.getQuantity());
+        return dto;
+    }
+}
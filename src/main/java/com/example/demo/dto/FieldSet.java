@@ -0,0 +1,82 @@
+package com.example.demo.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The subset of response fields a client asked for with {@code ?fields=},
+ * e.g. {@code id,name,price,mainImage} or {@code id,totalAmount,orderItems.quantity}.
+ * Dotted paths select fields of nested objects. A missing or blank parameter means all fields.
+ */
+public final class FieldSet {
+
+    public static final FieldSet ALL = new FieldSet(null);
+
+    // null means "every field"
+    private final Set<String> paths;
+
+    private FieldSet(Set<String> paths) {
+        this.paths = paths;
+    }
+
+    public static FieldSet parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> paths = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return paths.isEmpty() ? ALL : new FieldSet(Collections.unmodifiableSet(paths));
+    }
+
+    public boolean isAll() {
+        return paths == null;
+    }
+
+    /**
+     * True if the field itself or any of its nested fields was requested
+     */
+    public boolean includes(String field) {
+        if (isAll() || paths.contains(field)) {
+            return true;
+        }
+        String prefix = field + ".";
+        return paths.stream().anyMatch(path -> path.startsWith(prefix));
+    }
+
+    /**
+     * Fields requested for a nested object; naming the object without sub-fields selects all of them
+     */
+    public FieldSet nested(String field) {
+        if (isAll() || paths.contains(field)) {
+            return ALL;
+        }
+        String prefix = field + ".";
+        Set<String> nested = paths.stream()
+                .filter(path -> path.startsWith(prefix))
+                .map(path -> path.substring(prefix.length()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new FieldSet(Collections.unmodifiableSet(nested));
+    }
+
+    /**
+     * Names of the requested fields at this level (without their nested paths)
+     */
+    public Set<String> topLevel() {
+        if (isAll()) {
+            return Collections.emptySet();
+        }
+        return paths.stream()
+                .map(path -> path.contains(".") ? path.substring(0, path.indexOf('.')) : path)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "*" : paths.stream().sorted().collect(Collectors.joining(","));
+    }
+}
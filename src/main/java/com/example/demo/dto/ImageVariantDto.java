@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+@Data
+
+public class ImageVariantDto {
+    private int width;
+    private String format;
+    private String url;
+}
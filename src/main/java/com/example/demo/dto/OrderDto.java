@@ -1,10 +1,12 @@
 package com.example.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 import java.util.List;
 @Data
+@JsonFilter(SparseFields.ORDER_FILTER)
 
 public class OrderDto {
     private Long id;
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Optional criteria for order searches; null fields are not filtered on.
+ */
+@Data
+
+public class OrderFilter {
+    private Long userId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Double minAmount;
+    // id, createdAt, orderDate or totalAmount; ties are broken by id
+    private String sort;
+    private boolean descending;
+    // Keyset: sort value and id of the last row of the previous page; no sort value if it was null
+    private String after;
+    private Long afterId;
+    private Integer limit;
+}
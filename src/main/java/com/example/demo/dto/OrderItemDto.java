@@ -1,8 +1,10 @@
 package com.example.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
 
 @Data
+@JsonFilter(SparseFields.ORDER_ITEM_FILTER)
 
 public class OrderItemDto {
     private Long id;
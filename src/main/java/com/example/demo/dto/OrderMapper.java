@@ -4,12 +4,20 @@ import com.example.demo.entities.*;
 import lombok.*;
 import org.springframework.stereotype.Component;
 
+import java.util.Comparator;
 import java.util.stream.Collectors;
 
 @Component
 public class OrderMapper {
 
     public OrderDto toDto(Order order) {
+        return toDto(order, FieldSet.ALL);
+    }
+
+    /**
+     * Map an order, touching lazy associations only for requested fields
+     */
+    public OrderDto toDto(Order order, FieldSet fields) {
         OrderDto dto = new OrderDto();
         dto.setId(order.getId());
         dto.setShippingAddress(order.getShippingAddress());
@@ -18,24 +26,53 @@ public class OrderMapper {
         dto.setShippingCountry(order.getShippingCountry());
         dto.setTotalAmount(order.getTotalAmount());
         dto.setCreatedAt(order.getCreatedAt());
-        dto.setUser(toDto(order.getUser()));
-        dto.setOrderItems(order.getOrderItems().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList()));
+        if (fields.includes("user")) {
+            dto.setUser(toDto(order.getUser()));
+        }
+        if (fields.includes("orderItems")) {
+            FieldSet itemFields = fields.nested("orderItems");
+            dto.setOrderItems(order.getOrderItems().stream()
+                    .map(item -> toDto(item, itemFields))
+                    .collect(Collectors.toList()));
+        }
+        return dto;
+    }
+
+    public OrderSummaryDto toDto(OrderSummary summary) {
+        OrderSummaryDto dto = new OrderSummaryDto();
+        dto.setOrderId(summary.getOrderId());
+        dto.setOrderDate(summary.getOrderDate());
+        dto.setCreatedAt(summary.getCreatedAt());
+        dto.setTotalAmount(summary.getTotalAmount());
+        dto.setItemCount(summary.getItemCount());
+        dto.setThumbnail(summary.getThumbnail());
         return dto;
     }
 
     public OrderItemDto toDto(OrderItem item) {
+        return toDto(item, FieldSet.ALL);
+    }
+
+    public OrderItemDto toDto(OrderItem item, FieldSet fields) {
         OrderItemDto dto = new OrderItemDto();
         dto.setId(item.getId());
         dto.setQuantity(item.getQuantity());
         dto.setUnitPrice(item.getUnitPrice());
         dto.setTotalAmount(item.getTotalPrice());
-        dto.setProduct(toDto(item.getProduct()));
+        if (fields.includes("product")) {
+            dto.setProduct(toDto(item.getProduct(), fields.nested("product")));
+        }
         return dto;
     }
 
     public ProductDto toDto(Product product) {
+        return toDto(product, FieldSet.ALL);
+    }
+
+    /**
+     * Map a product; images and specifications are only initialized when requested
+     */
+    public ProductDto toDto(Product product, FieldSet fields) {
         ProductDto dto = new ProductDto();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -44,12 +81,26 @@ public class OrderMapper {
         dto.setPrice(product.getPrice());
         dto.setBrand(product.getBrand());
         dto.setModel(product.getModel());
-        dto.setImages(product.getImages().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList()));
-        dto.setSpecifications(product.getSpecifications().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList()));
+        if (fields.includes("images")) {
+            dto.setImages(product.getImages().stream()
+                    .map(this::toDto)
+                    .collect(Collectors.toList()));
+        }
+        if (fields.includes("mainImage")) {
+            dto.setMainImage(product.getImages().stream()
+                    .filter(ProductImage::isMain)
+                    .map(ProductImage::getImageUrl)
+                    .findFirst()
+                    .orElse(null));
+        }
+        if (fields.includes("thumbnail")) {
+            dto.setThumbnail(thumbnail(product));
+        }
+        if (fields.includes("specifications")) {
+            dto.setSpecifications(product.getSpecifications().stream()
+                    .map(this::toDto)
+                    .collect(Collectors.toList()));
+        }
         dto.setQuantity(product.getQuantity());
         dto.setCategoryId(product.getCategory().getId());
         return dto;
@@ -60,8 +111,39 @@ public class OrderMapper {
         dto.setImageUrl(image.getImageUrl());
         dto.setId(image.getId());
         dto.setMain(image.isMain());
+        dto.setVariants(image.getVariants().stream()
+                .map(this::toDto)
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    public ImageVariantDto toDto(ImageVariant variant) {
+        ImageVariantDto dto = new ImageVariantDto();
+        dto.setWidth(variant.getWidth());
+        dto.setFormat(variant.getFormat());
+        dto.setUrl(variant.getUrl());
         return dto;
     }
+
+    /**
+     * Thumbnail of the product's main image, or null without one
+     */
+    public String thumbnail(Product product) {
+        return product.getImages().stream()
+                .filter(ProductImage::isMain)
+                .findFirst()
+                .map(this::thumbnail)
+                .orElse(null);
+    }
+
+    // Smallest JPEG/PNG copy (decodable everywhere); the original until variants exist
+    private String thumbnail(ProductImage image) {
+        return image.getVariants().stream()
+                .filter(variant -> !ImageVariant.WEBP.equals(variant.getFormat()))
+                .min(Comparator.comparingInt(ImageVariant::getWidth))
+                .map(ImageVariant::getUrl)
+                .orElse(image.getImageUrl());
+    }
     public ProductSpecificationDto toDto(ProductSpecification specification) {
         ProductSpecificationDto dto = new ProductSpecificationDto();
         dto.setSpecName(specification.getSpecName());
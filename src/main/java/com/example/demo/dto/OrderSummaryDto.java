@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+
+public class OrderSummaryDto {
+    private Long orderId;
+    private LocalDate orderDate;
+    private LocalDateTime createdAt;
+    private double totalAmount;
+    private int itemCount;
+    private String thumbnail;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of order history; pass nextCursor back as ?after= for the next one (null on the last page)
+ */
+@Data
+
+public class OrderSummaryPage {
+    private List<OrderSummaryDto> items;
+    private String nextCursor;
+}
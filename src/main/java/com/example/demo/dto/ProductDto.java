@@ -1,11 +1,13 @@
 package com.example.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
 
 @Data
+@JsonFilter(SparseFields.PRODUCT_FILTER)
 
 public class ProductDto {
     private Long id;
@@ -15,6 +17,9 @@ public class ProductDto {
     private String brand;
     private String model;
     private List<ProductImageDto> images;
+    private String mainImage;
+    // Smallest variant of the main image, for list views
+    private String thumbnail;
     private int quantity;
     private boolean active = true;
     private Long categoryId;
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Optional criteria for product projection queries; null fields are not filtered on.
+ */
+@Data
+
+public class ProductFilter {
+    private Long id;
+    // Explicit id set, e.g. from the price index
+    private List<Long> ids;
+    private String name;
+    private Long categoryId;
+    private String brand;
+    private Double minPrice;
+    private Double maxPrice;
+    private boolean activeOnly;
+    // id, name or price; ties are broken by id
+    private String sort;
+    private boolean descending;
+    // Keyset: sort value and id of the last row of the previous page
+    private String after;
+    private Long afterId;
+    private Integer limit;
+}
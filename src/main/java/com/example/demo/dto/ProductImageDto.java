@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 
 public class ProductImageDto {
@@ -13,5 +15,7 @@ public class ProductImageDto {
     private String imageUrl;
     @JsonProperty("isMain")
     private boolean isMain;
+    // Smallest first; empty until the resized copies are generated
+    private List<ImageVariantDto> variants;
 }
 
@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One product line of a bulk import or export (NDJSON object or CSV record).
+ * The category can be given by id or by name; id is written on export and
+ * ignored on import.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+
+public class ProductImportRow {
+    private Long id;
+    private String name;
+    private String description;
+    private Double price;
+    private Integer quantity;
+    private String brand;
+    private String model;
+    private Boolean active;
+    private Long categoryId;
+    private String category;
+    private List<ProductImageDto> images;
+    private List<ProductSpecificationDto> specifications;
+}
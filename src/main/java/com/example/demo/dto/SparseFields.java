@@ -0,0 +1,68 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+/**
+ * Jackson property filters behind {@code ?fields=}. DTOs opt in with {@code @JsonFilter};
+ * without a per-response provider every field is written (see JacksonConfig).
+ */
+public final class SparseFields {
+
+    public static final String PRODUCT_FILTER = "productFields";
+    public static final String ORDER_FILTER = "orderFields";
+    public static final String ORDER_ITEM_FILTER = "orderItemFields";
+    public static final String REVIEW_FILTER = "reviewFields";
+
+    private SparseFields() {
+    }
+
+    public static SimpleFilterProvider defaultProvider() {
+        return new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll())
+                .setFailOnUnknownId(false);
+    }
+
+    public static MappingJacksonValue forProducts(Object body, FieldSet fields) {
+        return wrap(body, productFilters(fields));
+    }
+
+    public static MappingJacksonValue forOrders(Object body, FieldSet fields) {
+        return wrap(body, orderFilters(fields));
+    }
+
+    public static MappingJacksonValue forReviews(Object body, FieldSet fields) {
+        return wrap(body, reviewFilters(fields));
+    }
+
+    public static SimpleFilterProvider productFilters(FieldSet fields) {
+        return defaultProvider()
+                .addFilter(PRODUCT_FILTER, filter(fields));
+    }
+
+    public static SimpleFilterProvider orderFilters(FieldSet fields) {
+        FieldSet items = fields.nested("orderItems");
+        return defaultProvider()
+                .addFilter(ORDER_FILTER, filter(fields))
+                .addFilter(ORDER_ITEM_FILTER, filter(items))
+                .addFilter(PRODUCT_FILTER, filter(items.nested("product")));
+    }
+
+    public static SimpleFilterProvider reviewFilters(FieldSet fields) {
+        return defaultProvider()
+                .addFilter(REVIEW_FILTER, filter(fields));
+    }
+
+    private static SimpleBeanPropertyFilter filter(FieldSet fields) {
+        return fields.isAll()
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(fields.topLevel());
+    }
+
+    private static MappingJacksonValue wrap(Object body, SimpleFilterProvider filters) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(filters);
+        return value;
+    }
+}
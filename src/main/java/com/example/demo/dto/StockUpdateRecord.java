@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * One line of a bulk price/stock sync. Every field but productId is optional:
+ * quantity replaces the stock level, delta is added after it (stock never
+ * goes below zero).
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+
+public class StockUpdateRecord {
+    private Long productId;
+    private Double price;
+    private Integer quantity;
+    private Integer delta;
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+
+public class StockUpdateReport {
+    private long total;
+    private long updated;
+    private long failed;
+    private List<ImportReport.RowError> errors = new ArrayList<>();
+
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < ImportReport.MAX_ERRORS) {
+            errors.add(new ImportReport.RowError(line, message));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.entities;
+
+import com.example.demo.events.CatalogChangedEvent;
+import com.example.demo.events.CatalogChangedEvent.Type;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+
+/**
+ * JPA listener on catalog entities. Hibernate creates it through Spring's bean
+ * container, so the publisher is injected.
+ */
+public class CatalogChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        CatalogChangedEvent event = toEvent(entity, removed);
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private CatalogChangedEvent toEvent(Object entity, boolean removed) {
+        LocalDateTime now = LocalDateTime.now();
+        if (entity instanceof Product product) {
+            return new CatalogChangedEvent(Type.PRODUCT, product.getId(), removed,
+                    product.getUpdatedAt() != null ? product.getUpdatedAt() : now);
+        }
+        if (entity instanceof Category category) {
+            return new CatalogChangedEvent(Type.CATEGORY, category.getId(), removed,
+                    category.getUpdatedAt() != null ? category.getUpdatedAt() : now);
+        }
+        // Children are part of the product's representation; report them as a product change
+        if (entity instanceof ProductImage image) {
+            return new CatalogChangedEvent(Type.PRODUCT, productId(image.getProduct()), false, now);
+        }
+        if (entity instanceof ProductSpecification specification) {
+            return new CatalogChangedEvent(Type.PRODUCT, productId(specification.getProduct()), false, now);
+        }
+        if (entity instanceof Review review) {
+            return new CatalogChangedEvent(Type.PRODUCT, productId(review.getProduct()), false, now);
+        }
+        return null;
+    }
+
+    private Long productId(Product product) {
+        return product != null ? product.getId() : null;
+    }
+}
@@ -15,6 +15,7 @@ import java.util.List;
 @ToString
 
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "categories")
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 
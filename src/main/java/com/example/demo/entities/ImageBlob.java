@@ -0,0 +1,54 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One stored image file, addressed by the SHA-256 of its content. Many
+ * ProductImage rows may point at the same blob; refCount tracks how many.
+ */
+@NoArgsConstructor
+@Data
+@ToString
+
+@Entity
+@Table(name = "image_blobs", indexes = @Index(name = "idx_image_blobs_unreferenced", columnList = "refCount, unreferencedSince"))
+
+public class ImageBlob {
+    private static final Pattern BLOB_URL =
+            Pattern.compile("/uploads/blobs/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})(?:-[a-z0-9]+)?\\.[A-Za-z0-9]+(?:\\?.*)?$");
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Relative to the uploads root, e.g. blobs/ab/cd/<hash>.jpg
+    private String path;
+
+    @Column(length = 10)
+    private String format;
+
+    private long sizeBytes;
+
+    private int refCount;
+
+    private LocalDateTime createdAt;
+
+    // Set when refCount drops to zero; the collector waits out a grace period from here
+    private LocalDateTime unreferencedSince;
+
+    /**
+     * Content hash of a blob-store URL (original or variant), or null for any other URL
+     */
+    public static String hashFromUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = BLOB_URL.matcher(url);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
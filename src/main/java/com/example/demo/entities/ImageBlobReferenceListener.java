@@ -0,0 +1,33 @@
+package com.example.demo.entities;
+
+import com.example.demo.events.ImageReferenceEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Reports ProductImage rows that gain or lose a blob reference; the counts are
+ * applied after commit (see BlobStore).
+ */
+public class ImageBlobReferenceListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void added(ProductImage image) {
+        publish(image, 1);
+    }
+
+    @PostRemove
+    public void removed(ProductImage image) {
+        publish(image, -1);
+    }
+
+    private void publish(ProductImage image, int delta) {
+        if (image.getContentHash() != null) {
+            eventPublisher.publishEvent(new ImageReferenceEvent(image.getContentHash(), delta));
+        }
+    }
+}
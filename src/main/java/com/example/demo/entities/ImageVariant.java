@@ -0,0 +1,35 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A resized copy of a product image (one width, one format)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+@Embeddable
+public class ImageVariant {
+
+    public static final String JPEG = "jpeg";
+    public static final String PNG = "png";
+    public static final String WEBP = "webp";
+
+    private int width;
+
+    private int height;
+
+    // jpeg, png or webp
+    @Column(length = 10)
+    private String format;
+
+    @Column(length = 2000)
+    private String url;
+
+    private long sizeBytes;
+}
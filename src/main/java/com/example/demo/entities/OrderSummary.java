@@ -0,0 +1,40 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized row for order history lists, kept in step with its order by
+ * OrderSummaries. The full order is only loaded when one is opened.
+ */
+@NoArgsConstructor
+@Data
+@ToString
+
+@Entity
+@Table(name = "order_summaries", indexes = {
+        @Index(name = "idx_order_summaries_user_created", columnList = "userId, createdAt DESC, orderId DESC")
+})
+
+public class OrderSummary {
+    @Id
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDate orderDate;
+
+    private double totalAmount;
+
+    private int itemCount;
+
+    @Column(length = 2000)
+    private String thumbnail;
+}
@@ -5,14 +5,18 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @NoArgsConstructor
 @Data
 @ToString
 
 @Entity
+@EntityListeners({CatalogChangeListener.class, ImageBlobReferenceListener.class})
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 
 public class ProductImage {
@@ -31,6 +35,17 @@ public class ProductImage {
 
     private LocalDateTime createdAt;
 
+    // SHA-256 of the uploaded file (ImageBlob id); null for external URLs
+    @Column(length = 64)
+    private String contentHash;
+
+    // Resized copies, filled in by the background variant generator; loaded for up to 100 images per query
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "product_image_variants", joinColumns = @JoinColumn(name = "product_image_id"))
+    @OrderBy("width ASC")
+    private List<ImageVariant> variants = new ArrayList<>();
+
     public ProductImage(Product product, String imageUrl) {
         this.product = product;
         this.imageUrl = imageUrl;
@@ -41,4 +56,12 @@ public class ProductImage {
         this(product, imageUrl);
         this.isMain = isMain;
     }
-}
\ No newline at end of file
+
+    // Images created from a blob URL (e.g. when a product is edited) still count as references
+    @PrePersist
+    protected void onCreate() {
+        if (contentHash == null) {
+            contentHash = ImageBlob.hashFromUrl(imageUrl);
+        }
+    }
+}
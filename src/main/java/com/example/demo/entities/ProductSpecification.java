@@ -10,6 +10,7 @@ import lombok.*;
 @ToString
 
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 
 public class ProductSpecification {
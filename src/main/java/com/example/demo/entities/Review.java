@@ -1,5 +1,7 @@
 package com.example.demo.entities;
 
+import com.example.demo.dto.SparseFields;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
@@ -15,7 +17,9 @@ import java.time.LocalDateTime;
 @ToString
 
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+@JsonFilter(SparseFields.REVIEW_FILTER)
 
 @Table(name = "reviews")
 public class Review {
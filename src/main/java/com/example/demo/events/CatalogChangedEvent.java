@@ -0,0 +1,65 @@
+package com.example.demo.events;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published whenever a product (or something rendered inside it) or a category
+ * is inserted, updated or removed. Listeners that cache catalog data react to it
+ * after the surrounding transaction commits.
+ */
+@Getter
+@ToString
+
+public class CatalogChangedEvent {
+
+    public enum Type {
+        PRODUCT,
+        CATEGORY
+    }
+
+    private final Type type;
+
+    // Product or category id; null when the owner is already detached or for a batch
+    private final Long id;
+
+    // Products saved together by one bulk chunk; null for a single change
+    private final Set<Long> batch;
+
+    private final boolean removed;
+
+    private final LocalDateTime changedAt;
+
+    public CatalogChangedEvent(Type type, Long id, boolean removed, LocalDateTime changedAt) {
+        this(type, id, null, removed, changedAt);
+    }
+
+    private CatalogChangedEvent(Type type, Long id, Set<Long> batch, boolean removed, LocalDateTime changedAt) {
+        this.type = type;
+        this.id = id;
+        this.batch = batch;
+        this.removed = removed;
+        this.changedAt = changedAt;
+    }
+
+    /**
+     * One event for many saved products, so listeners can refresh them in one pass
+     */
+    public static CatalogChangedEvent products(Collection<Long> ids, LocalDateTime changedAt) {
+        return new CatalogChangedEvent(Type.PRODUCT, null, Set.copyOf(ids), false, changedAt);
+    }
+
+    /**
+     * The ids this event covers, or null when it may concern any of them
+     */
+    public Set<Long> ids() {
+        if (batch != null) {
+            return batch;
+        }
+        return id != null ? Set.of(id) : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A ProductImage row referencing a blob was inserted (+1) or deleted (-1)
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+
+public class ImageReferenceEvent {
+
+    private final String hash;
+
+    private final int delta;
+}
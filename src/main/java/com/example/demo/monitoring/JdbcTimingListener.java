@@ -0,0 +1,33 @@
+package com.example.demo.monitoring;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds the time spent executing JDBC statements and batches to RequestStats.
+ * Hibernate creates one per session (hibernate.session.events.auto).
+ */
+public class JdbcTimingListener extends BaseSessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestStats.jdbcTime(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestStats.jdbcTime(System.nanoTime() - batchStart);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.demo.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request database and allocation metrics, tagged like http.server.requests
+ * (method, uri template), plus a log of slow requests with the SQL they issued.
+ * Latency itself comes from Boot's http.server.requests timer.
+ * <p>
+ * Requests that repeat one SELECT at least n-plus-one.threshold times are counted in
+ * app.request.n_plus_one; every Nth request also records call sites and logs them.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsFilter.class);
+
+    private static final int SLOW_REQUESTS_KEPT = 50;
+    private static final int MAX_LOGGED_SQL_LENGTH = 500;
+
+    /**
+     * A request that took longer than the slow-request threshold
+     */
+    public record SlowRequest(LocalDateTime at, String method, String uri, int status, long millis,
+                              int statements, long jdbcMillis, int entitiesLoaded, int collectionsFetched,
+                              List<String> sql) {
+    }
+
+    private final MeterRegistry registry;
+    private final long slowNanos;
+    private final int allocationSampleEvery;
+    private final int nPlusOneThreshold;
+    private final int nPlusOneSampleEvery;
+    private final AtomicLong requestCounter = new AtomicLong();
+    private final ArrayDeque<SlowRequest> slowRequests = new ArrayDeque<>();
+    private final com.sun.management.ThreadMXBean threads;
+
+    public RequestMetricsFilter(MeterRegistry registry,
+                                @Value("${app.monitoring.slow-request-threshold:PT1S}") Duration slowThreshold,
+                                @Value("${app.monitoring.allocation-sample-every:10}") int allocationSampleEvery,
+                                @Value("${app.monitoring.n-plus-one.threshold:5}") int nPlusOneThreshold,
+                                @Value("${app.monitoring.n-plus-one.sample-every:20}") int nPlusOneSampleEvery) {
+        this.registry = registry;
+        this.slowNanos = slowThreshold.toNanos();
+        this.allocationSampleEvery = Math.max(1, allocationSampleEvery);
+        this.nPlusOneThreshold = Math.max(2, nPlusOneThreshold);
+        this.nPlusOneSampleEvery = nPlusOneSampleEvery;
+        this.threads = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long requestNumber = requestCounter.incrementAndGet();
+        boolean sampleAllocation = threads != null && requestNumber % allocationSampleEvery == 0;
+        // 0 turns call-site tracing off; repeats are still counted
+        boolean traceCallSites = nPlusOneSampleEvery > 0 && requestNumber % nPlusOneSampleEvery == 0;
+        long allocatedBefore = sampleAllocation ? threads.getCurrentThreadAllocatedBytes() : 0;
+        long start = System.nanoTime();
+        RequestStats stats = RequestStats.begin(traceCallSites);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestStats.end();
+            long elapsed = System.nanoTime() - start;
+            Tags tags = Tags.of("method", request.getMethod(), "uri", uriTemplate(request));
+
+            summary("app.request.sql.statements", "SQL statements per request", tags).record(stats.statements());
+            summary("app.request.jdbc.time", "Time executing JDBC statements per request, ms", tags)
+                    .record(stats.jdbcNanos() / 1_000_000.0);
+            summary("app.request.entities.loaded", "Entities loaded per request", tags).record(stats.entitiesLoaded());
+            summary("app.request.collections.fetched", "Collections initialized per request", tags)
+                    .record(stats.collectionsFetched());
+            summary("app.request.flushes", "Hibernate flushes per request", tags).record(stats.flushes());
+            if (sampleAllocation) {
+                summary("app.request.allocated.bytes", "Bytes allocated by the request thread (sampled)", tags)
+                        .record(threads.getCurrentThreadAllocatedBytes() - allocatedBefore);
+            }
+            if (elapsed >= slowNanos) {
+                slow(request, response, elapsed, stats);
+            }
+            List<RequestStats.RepeatedSelect> repeated = stats.repeatedSelects(nPlusOneThreshold);
+            if (!repeated.isEmpty()) {
+                Counter.builder("app.request.n_plus_one")
+                        .description("Requests that repeated a SELECT at least the N+1 threshold")
+                        .tags(tags)
+                        .register(registry)
+                        .increment();
+                if (traceCallSites) {
+                    nPlusOne(request, repeated);
+                }
+            }
+        }
+    }
+
+    public List<SlowRequest> slowRequests() {
+        synchronized (slowRequests) {
+            return new ArrayList<>(slowRequests);
+        }
+    }
+
+    private void slow(HttpServletRequest request, HttpServletResponse response, long elapsed, RequestStats stats) {
+        List<String> sql = stats.sql().stream()
+                .map(RequestMetricsFilter::truncate)
+                .toList();
+        SlowRequest slow = new SlowRequest(LocalDateTime.now(), request.getMethod(), request.getRequestURI(),
+                response.getStatus(), elapsed / 1_000_000, stats.statements(), stats.jdbcNanos() / 1_000_000,
+                stats.entitiesLoaded(), stats.collectionsFetched(), sql);
+        synchronized (slowRequests) {
+            if (slowRequests.size() == SLOW_REQUESTS_KEPT) {
+                slowRequests.removeFirst();
+            }
+            slowRequests.addLast(slow);
+        }
+        log.warn("Slow request {} {} -> {} in {} ms: {} statements ({} ms JDBC), {} entities, {} collections{}",
+                slow.method(), slow.uri(), slow.status(), slow.millis(), slow.statements(), slow.jdbcMillis(),
+                slow.entitiesLoaded(), slow.collectionsFetched(),
+                sql.isEmpty() ? "" : "\n  " + String.join("\n  ", sql));
+    }
+
+    private void nPlusOne(HttpServletRequest request, List<RequestStats.RepeatedSelect> repeated) {
+        StringBuilder details = new StringBuilder();
+        for (RequestStats.RepeatedSelect select : repeated) {
+            details.append("\n  ").append(select.count()).append("x at ").append(select.callSite())
+                    .append(": ").append(truncate(select.sql()));
+        }
+        log.warn("Possible N+1 in {} {}: {} repeated statement(s){}",
+                request.getMethod(), request.getRequestURI(), repeated.size(), details);
+    }
+
+    private static String truncate(String text) {
+        return text.length() > MAX_LOGGED_SQL_LENGTH ? text.substring(0, MAX_LOGGED_SQL_LENGTH) + "..." : text;
+    }
+
+    private DistributionSummary summary(String name, String description, Tags tags) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    // Same bounded tag values as http.server.requests: the matched pattern, never the raw path
+    private static String uriTemplate(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Database work done by the current request thread: statements, JDBC time and
+ * Hibernate entity/collection loads and flushes. Filled in by the Hibernate hooks
+ * registered in HibernateConfig while a request is being measured, ignored otherwise.
+ * Work done on other threads (async streaming, executors) is not attributed.
+ * <p>
+ * Identical SELECT text run again in the same request is counted per statement; the
+ * inspector sees SQL with ? placeholders, so a lazy association loaded in a loop shows
+ * up as one statement with a high count (N+1).
+ */
+public final class RequestStats {
+
+    // Statements kept for the slow-request log; the count keeps going past this
+    static final int MAX_RECORDED_STATEMENTS = 100;
+    // Distinct SELECTs counted for repeat detection; bulk jobs should not grow this without bound
+    static final int MAX_TRACKED_SELECTS = 200;
+    private static final int CALL_SITE_FRAMES = 3;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    /**
+     * A SELECT issued count times in one request, with where it was first repeated
+     * (only when call sites are traced)
+     */
+    public record RepeatedSelect(String sql, int count, String callSite) {
+    }
+
+    private static final class SelectCount {
+        int count;
+        String callSite;
+    }
+
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long jdbcNanos;
+    private int entitiesLoaded;
+    private int collectionsFetched;
+    private int flushes;
+    private final List<String> sql = new ArrayList<>();
+    private final Map<String, SelectCount> selects = new HashMap<>();
+    private final boolean traceCallSites;
+
+    private RequestStats(boolean traceCallSites) {
+        this.traceCallSites = traceCallSites;
+    }
+
+    /**
+     * Start measuring the current thread; traceCallSites walks the stack on the first
+     * repeat of each SELECT, so it is meant for sampled requests and tests
+     */
+    static RequestStats begin(boolean traceCallSites) {
+        RequestStats stats = new RequestStats(traceCallSites);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Statement inspector hook; returns the SQL unchanged
+     */
+    public static String statement(String text) {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            if (stats.sql.size() < MAX_RECORDED_STATEMENTS) {
+                stats.sql.add(text);
+            }
+            if (isSelect(text)) {
+                stats.countSelect(text);
+            }
+        }
+        return text;
+    }
+
+    private static boolean isSelect(String text) {
+        return text.regionMatches(true, 0, "select", 0, 6) || text.regionMatches(true, 0, "with", 0, 4);
+    }
+
+    private void countSelect(String text) {
+        SelectCount count = selects.get(text);
+        if (count == null) {
+            if (selects.size() >= MAX_TRACKED_SELECTS) {
+                return;
+            }
+            count = new SelectCount();
+            selects.put(text, count);
+        }
+        count.count++;
+        if (count.count == 2 && traceCallSites) {
+            count.callSite = callSite();
+        }
+    }
+
+    // Innermost application frames outside the Hibernate hooks, e.g. "OrderMapper.toDto:74 <- OrderService.getAll:51"
+    private static String callSite() {
+        String site = STACK_WALKER.walk(frames -> frames
+                .filter(frame -> {
+                    String name = frame.getClassName();
+                    return name.startsWith("com.example.demo.")
+                            && !name.equals(RequestStats.class.getName())
+                            && !name.startsWith(RequestStats.class.getName() + "$")
+                            && !name.startsWith("com.example.demo.config.")
+                            && !name.contains("$$");
+                })
+                .limit(CALL_SITE_FRAMES)
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- ")));
+        return site.isEmpty() ? "unknown" : site;
+    }
+
+    static void jdbcTime(long nanos) {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.jdbcNanos += nanos;
+        }
+    }
+
+    static void entityLoaded() {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.entitiesLoaded++;
+        }
+    }
+
+    static void collectionFetched() {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.collectionsFetched++;
+        }
+    }
+
+    static void flushed() {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.flushes++;
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int entitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public int collectionsFetched() {
+        return collectionsFetched;
+    }
+
+    public int flushes() {
+        return flushes;
+    }
+
+    public List<String> sql() {
+        return Collections.unmodifiableList(sql);
+    }
+
+    /**
+     * SELECTs run at least threshold times so far, most repeated first
+     */
+    public List<RepeatedSelect> repeatedSelects(int threshold) {
+        return selects.entrySet().stream()
+                .filter(entry -> entry.getValue().count >= threshold)
+                .map(entry -> new RepeatedSelect(entry.getKey(), entry.getValue().count, entry.getValue().callSite))
+                .sorted(Comparator.comparingInt(RepeatedSelect::count).reversed())
+                .toList();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/requeststats: one view of endpoint latency percentiles with their
+ * per-request database work, repository method timings and the recent slow requests.
+ * Everything here is also available as individual meters under /actuator/metrics.
+ */
+@Component
+@Endpoint(id = "requeststats")
+public class RequestStatsEndpoint {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private RequestMetricsFilter requestMetricsFilter;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoints", endpoints());
+        result.put("repositories", repositories());
+        result.put("slowRequests", requestMetricsFilter.slowRequests());
+        return result;
+    }
+
+    private List<Map<String, Object>> endpoints() {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (Timer timer : registry.find("http.server.requests").timers()) {
+            String method = timer.getId().getTag("method");
+            String uri = timer.getId().getTag("uri");
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("method", method);
+            row.put("uri", uri);
+            row.put("status", timer.getId().getTag("status"));
+            row.putAll(timing(timer));
+            row.put("sqlStatementsMean", mean("app.request.sql.statements", method, uri));
+            row.put("jdbcMillisMean", mean("app.request.jdbc.time", method, uri));
+            row.put("entitiesLoadedMean", mean("app.request.entities.loaded", method, uri));
+            row.put("collectionsFetchedMean", mean("app.request.collections.fetched", method, uri));
+            row.put("flushesMean", mean("app.request.flushes", method, uri));
+            row.put("allocatedBytesMean", mean("app.request.allocated.bytes", method, uri));
+            endpoints.add(row);
+        }
+        endpoints.sort(Comparator.comparing((Map<String, Object> row) -> (Double) row.get("totalMillis")).reversed());
+        return endpoints;
+    }
+
+    private List<Map<String, Object>> repositories() {
+        List<Map<String, Object>> repositories = new ArrayList<>();
+        for (Timer timer : registry.find("spring.data.repository.invocations").timers()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("repository", timer.getId().getTag("repository"));
+            row.put("method", timer.getId().getTag("method"));
+            row.put("state", timer.getId().getTag("state"));
+            row.putAll(timing(timer));
+            repositories.add(row);
+        }
+        repositories.sort(Comparator.comparing((Map<String, Object> row) -> (Double) row.get("totalMillis")).reversed());
+        return repositories;
+    }
+
+    private static Map<String, Object> timing(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> timing = new LinkedHashMap<>();
+        timing.put("count", snapshot.count());
+        timing.put("totalMillis", snapshot.total(TimeUnit.MILLISECONDS));
+        timing.put("meanMillis", snapshot.mean(TimeUnit.MILLISECONDS));
+        timing.put("maxMillis", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            timing.put("p" + Math.round(percentile.percentile() * 100) + "Millis", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return timing;
+    }
+
+    private Double mean(String name, String method, String uri) {
+        var summary = registry.find(name).tag("method", method).tag("uri", uri).summary();
+        return summary != null ? summary.mean() : null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dto.CartLineView;
 import com.example.demo.entities.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -12,6 +13,17 @@ import java.util.Optional;
 
 @Repository
 public interface CartRepo extends JpaRepository<Cart, Long> {
+
+    // שאילתת הקרנה אחת לתצוגת עגלה: כותרת, שורות, מוצר בסיסי ותמונה ראשית
+    String CART_VIEW_SELECT = "SELECT new com.example.demo.dto.CartLineView(" +
+            "c.id, u.id, c.active, c.createdAt, c.updatedAt, " +
+            "ci.id, p.id, p.name, p.brand, img.imageUrl, ci.quantity, ci.unitPrice) " +
+            "FROM Cart c " +
+            "LEFT JOIN c.user u " +
+            "LEFT JOIN c.cartItems ci " +
+            "LEFT JOIN ci.product p " +
+            "LEFT JOIN ProductImage img ON img.product = p AND img.isMain = true ";
+
     List<Cart> findByUserEmail(String email);
 
     Optional<Cart> findByUserEmailAndActiveTrue(String email);
@@ -30,4 +42,22 @@ public interface CartRepo extends JpaRepository<Cart, Long> {
 
     // מציאת עגלות שלא עודכנו מזמן אבל עדיין פעילות
     List<Cart> findByActiveTrueAndUpdatedAtBefore(LocalDateTime dateTime);
-}
\ No newline at end of file
+
+    @Query(CART_VIEW_SELECT + "ORDER BY c.id, ci.id")
+    List<CartLineView> findAllCartViews();
+
+    @Query(CART_VIEW_SELECT + "WHERE c.id = :cartId ORDER BY ci.id")
+    List<CartLineView> findCartViewById(@Param("cartId") Long cartId);
+
+    @Query(CART_VIEW_SELECT + "WHERE u.email = :email ORDER BY c.id, ci.id")
+    List<CartLineView> findCartViewsByUserEmail(@Param("email") String email);
+
+    @Query(CART_VIEW_SELECT + "WHERE u.email = :email AND c.active = true ORDER BY c.id, ci.id")
+    List<CartLineView> findActiveCartViewByUserEmail(@Param("email") String email);
+
+    @Query(CART_VIEW_SELECT + "WHERE u.id = :userId AND c.active = true ORDER BY c.id, ci.id")
+    List<CartLineView> findActiveCartViewByUserId(@Param("userId") Long userId);
+
+    @Query(CART_VIEW_SELECT + "WHERE c.active = true AND c.updatedAt < :dateTime ORDER BY c.id, ci.id")
+    List<CartLineView> findAbandonedCartViews(@Param("dateTime") LocalDateTime dateTime);
+}
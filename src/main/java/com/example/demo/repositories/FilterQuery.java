@@ -0,0 +1,160 @@
+package com.example.demo.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JPQL built from only the filters that are present, instead of the
+ * (:x IS NULL OR col = :x) pattern that leaves MySQL one plan for every combination.
+ * <p>
+ * Candidate predicates are offered in a fixed order; the ones with a value form a
+ * bit mask. The mask, sort column, direction and keyset flag identify the query
+ * shape, and each shape's JPQL is built once and cached. The same string for the
+ * same combination means one Hibernate plan-cache entry and one server-side prepared
+ * statement per connection (Connector/J prepStmt cache) per combination.
+ * <p>
+ * Nullable sort columns put NULLs last in either direction, and the keyset
+ * continues through them by id, so paging never skips rows without a value.
+ * <p>
+ * Not thread-safe; build one per call.
+ */
+final class FilterQuery {
+
+    private record Shape(String from, long mask, String sort, boolean nullable, boolean descending,
+                         boolean keyset, boolean afterNull) {
+    }
+
+    private static final Map<Shape, String> JPQL = new ConcurrentHashMap<>();
+
+    private final String from;
+    private final String alias;
+    private final List<String> clauses = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private long mask;
+    private int position;
+    private String sort;
+    private boolean nullable;
+    private boolean descending;
+    private boolean keyset;
+    private boolean afterNull;
+
+    /**
+     * from is the select and root, e.g. "SELECT o FROM Order o", with alias "o"
+     */
+    FilterQuery(String from, String alias) {
+        this.from = from;
+        this.alias = alias;
+    }
+
+    /**
+     * Add clause, binding value to :parameter, only when value is not null
+     */
+    FilterQuery where(String clause, String parameter, Object value) {
+        if (offer(clause, value != null)) {
+            parameters.put(parameter, value);
+        }
+        return this;
+    }
+
+    /**
+     * Add a predicate without parameters only when condition holds
+     */
+    FilterQuery where(String clause, boolean condition) {
+        offer(clause, condition);
+        return this;
+    }
+
+    private boolean offer(String clause, boolean present) {
+        if (position == Long.SIZE) {
+            throw new IllegalStateException("Too many optional predicates");
+        }
+        if (present) {
+            mask |= 1L << position;
+            clauses.add(clause);
+        }
+        position++;
+        return present;
+    }
+
+    /**
+     * Order by path (relative to the alias), ties broken by id. With afterId, only rows
+     * after the keyset (afterValue, afterId) of the previous page's last row are returned;
+     * afterValue is ignored when sorting by id. For a nullable column a null afterValue
+     * means the previous page ended among the NULLs.
+     */
+    FilterQuery orderBy(String path, boolean nullable, boolean descending, Object afterValue, Long afterId) {
+        this.sort = path;
+        this.nullable = nullable && !path.equals("id");
+        this.descending = descending;
+        if (afterId != null) {
+            if (!path.equals("id") && afterValue == null && !this.nullable) {
+                throw new IllegalArgumentException("A keyset on " + path + " needs the last " + path + " value");
+            }
+            keyset = true;
+            afterNull = !path.equals("id") && afterValue == null;
+            parameters.put("afterId", afterId);
+            if (!path.equals("id") && afterValue != null) {
+                parameters.put("afterValue", afterValue);
+            }
+        }
+        return this;
+    }
+
+    <T> TypedQuery<T> create(EntityManager entityManager, Class<T> type, Integer limit) {
+        TypedQuery<T> query = entityManager.createQuery(jpql(), type);
+        parameters.forEach(query::setParameter);
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query;
+    }
+
+    String jpql() {
+        String orderBy = sort != null ? sort : "id";
+        return JPQL.computeIfAbsent(new Shape(from, mask, orderBy, nullable, descending, keyset, afterNull),
+                shape -> build(orderBy));
+    }
+
+    static int cachedShapes() {
+        return JPQL.size();
+    }
+
+    private String build(String orderBy) {
+        List<String> predicates = new ArrayList<>(clauses);
+        String id = alias + ".id";
+        String column = alias + "." + orderBy;
+        String before = descending ? " < " : " > ";
+        if (keyset) {
+            if (orderBy.equals("id")) {
+                predicates.add(id + before + ":afterId");
+            } else if (afterNull) {
+                predicates.add(column + " IS NULL AND " + id + before + ":afterId");
+            } else {
+                // A range on the sort column's index first, then the tie-break on id
+                String bound = descending ? " <= " : " >= ";
+                String range = column + bound + ":afterValue AND (" + column + before + ":afterValue OR "
+                        + id + before + ":afterId)";
+                // The NULLs come after every value
+                predicates.add(nullable ? "(" + range + " OR " + column + " IS NULL)" : range);
+            }
+        }
+
+        StringBuilder jpql = new StringBuilder(from);
+        if (!predicates.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        String direction = descending ? " DESC" : " ASC";
+        jpql.append(" ORDER BY ");
+        if (!orderBy.equals("id")) {
+            jpql.append(column).append(direction).append(nullable ? " NULLS LAST, " : ", ");
+        }
+        jpql.append(id).append(direction);
+        return jpql.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.ImageBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepo extends JpaRepository<ImageBlob, String> {
+
+    // רישום קובץ חדש, או חידוש תקופת החסד לקובץ קיים שאין לו הפניות
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (hash, path, format, size_bytes, ref_count, created_at, unreferenced_since) " +
+            "VALUES (:hash, :path, :format, :sizeBytes, 0, :now, :now) " +
+            "ON DUPLICATE KEY UPDATE unreferenced_since = IF(ref_count = 0, :now, NULL)", nativeQuery = true)
+    int upsert(@Param("hash") String hash, @Param("path") String path, @Param("format") String format,
+               @Param("sizeBytes") long sizeBytes, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.hash = :hash")
+    Optional<ImageBlob> findForUpdate(@Param("hash") String hash);
+
+    // unreferencedSince is assigned first so both expressions see the old refCount
+    @Modifying
+    @Query("UPDATE ImageBlob b SET " +
+            "b.unreferencedSince = CASE WHEN b.refCount + :delta <= 0 THEN :now ELSE NULL END, " +
+            "b.refCount = CASE WHEN b.refCount + :delta < 0 THEN 0 ELSE b.refCount + :delta END " +
+            "WHERE b.hash = :hash")
+    int adjustRefCount(@Param("hash") String hash, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    // מועמדים למחיקה: ללא הפניות מעבר לתקופת החסד
+    @Query("SELECT b.hash FROM ImageBlob b WHERE b.refCount = 0 AND b.unreferencedSince < :cutoff ORDER BY b.hash")
+    List<String> findCollectable(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.hash IN :hashes AND b.refCount = 0 AND b.unreferencedSince < :cutoff")
+    List<ImageBlob> lockCollectable(@Param("hashes") Collection<String> hashes, @Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT b.hash FROM ImageBlob b WHERE b.hash > :after ORDER BY b.hash")
+    List<String> findHashesAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("SELECT b.hash FROM ImageBlob b WHERE b.hash IN :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    // Mark: reference counts recomputed from the ProductImage rows themselves
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.refCount = " +
+            "(SELECT COUNT(i) FROM ProductImage i WHERE i.contentHash = b.hash) " +
+            "WHERE b.hash IN :hashes")
+    int recount(@Param("hashes") Collection<String> hashes);
+
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.unreferencedSince = :now " +
+            "WHERE b.hash IN :hashes AND b.refCount = 0 AND b.unreferencedSince IS NULL")
+    int markUnreferenced(@Param("hashes") Collection<String> hashes, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.unreferencedSince = NULL WHERE b.hash IN :hashes AND b.refCount > 0")
+    int markReferenced(@Param("hashes") Collection<String> hashes);
+}
@@ -14,17 +14,26 @@ public interface OrderItemRepo extends JpaRepository<OrderItem, Long> {
 
     List<OrderItem> findByOrderId(Long orderId);
 
-    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi GROUP BY oi.product.id")
+    // כמות שנמכרה לכל מוצר, כולל הזמנות בארכיון
+    @Query(value = "SELECT product_id, SUM(quantity) FROM (" +
+            "SELECT product_id, quantity FROM order_items " +
+            "UNION ALL " +
+            "SELECT product_id, quantity FROM order_items_archive" +
+            ") oi GROUP BY product_id", nativeQuery = true)
     List<Object[]> calculateTotalSalesByProduct();
 
     List<OrderItem> findByOrderOrderDateBetween(LocalDate startDate, LocalDate endDate);
 
     List<OrderItem> findByProductId(Long productId);
 
-    @Query("SELECT oi.product.id, oi.product.name, SUM(oi.quantity) as totalSold " +
-            "FROM OrderItem oi " +
-            "GROUP BY oi.product.id, oi.product.name " +
-            "ORDER BY totalSold DESC " +
-            "LIMIT :limit")
+    // המוצרים הנמכרים ביותר, כולל הזמנות בארכיון
+    @Query(value = "SELECT p.id, p.name, SUM(oi.quantity) AS total_sold FROM (" +
+            "SELECT product_id, quantity FROM order_items " +
+            "UNION ALL " +
+            "SELECT product_id, quantity FROM order_items_archive" +
+            ") oi JOIN product p ON p.id = oi.product_id " +
+            "GROUP BY p.id, p.name " +
+            "ORDER BY total_sold DESC " +
+            "LIMIT :limit", nativeQuery = true)
     List<Object[]> findTopSellingProducts(@Param("limit") int limit);
 }
\ No newline at end of file
@@ -12,7 +12,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface OrderRepo extends JpaRepository<Order, Long> {
+public interface OrderRepo extends JpaRepository<Order, Long>, OrderRepoCustom {
     // שאילתות בסיסיות
     List<Order> findByUser_Email(String email);
 
@@ -30,26 +30,18 @@ public interface OrderRepo extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o JOIN o.orderItems oi WHERE oi.product.id = :productId")
     List<Order> findByProductId(@Param("productId") Long productId);
 
-    // סיכום הכנסות לפי תאריך
-    @Query("SELECT o.orderDate, SUM(o.totalAmount) FROM Order o " +
-            "WHERE o.orderDate BETWEEN :startDate AND :endDate " +
-            "GROUP BY o.orderDate " +
-            "ORDER BY o.orderDate")
+    // סיכום הכנסות לפי תאריך, כולל הזמנות שהועברו לארכיון
+    @Query(value = "SELECT order_date, SUM(total_amount) FROM (" +
+            "SELECT order_date, total_amount FROM orders WHERE order_date BETWEEN :startDate AND :endDate " +
+            "UNION ALL " +
+            "SELECT order_date, total_amount FROM orders_archive WHERE order_date BETWEEN :startDate AND :endDate" +
+            ") o GROUP BY order_date ORDER BY order_date", nativeQuery = true)
     List<Object[]> sumOrderAmountsByDate(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
+    // עמוד של הזמנות לפי מזהה, אחרי המזהה האחרון של העמוד הקודם
+    @Query("SELECT o FROM Order o WHERE o.id > :afterId ORDER BY o.id")
+    List<Order> findPageAfterId(@Param("afterId") Long afterId, Pageable page);
+
     // הזמנות אחרונות
     List<Order> findTop10ByOrderByCreatedAtDesc();
-
-    // שאילתה מורכבת למציאת הזמנות לפי מספר פרמטרים
-    @Query("SELECT o FROM Order o WHERE " +
-            "(:userId IS NULL OR o.user.id = :userId) AND " +
-            "(:startDate IS NULL OR o.orderDate >= :startDate) AND " +
-            "(:endDate IS NULL OR o.orderDate <= :endDate) AND " +
-            "(:minAmount IS NULL OR o.totalAmount >= :minAmount)")
-    List<Order> findOrdersByFilters(
-            @Param("userId") Long userId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate,
-            @Param("minAmount") Double minAmount
-    );
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.OrderFilter;
+import com.example.demo.entities.Order;
+
+import java.util.List;
+
+public interface OrderRepoCustom {
+
+    /**
+     * Orders matching the filters that are set, sorted and keyset-paged as requested;
+     * throws IllegalArgumentException for an unknown sort or a bad keyset value
+     */
+    List<Order> findByFilter(OrderFilter filter);
+}
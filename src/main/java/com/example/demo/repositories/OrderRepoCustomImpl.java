@@ -0,0 +1,50 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.OrderFilter;
+import com.example.demo.entities.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+
+public class OrderRepoCustomImpl implements OrderRepoCustom {
+
+    // Columns without NOT NULL; FilterQuery sorts their NULLs last and pages through them by id
+    private static final Set<String> NULLABLE_SORTS = Set.of("createdAt", "orderDate");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Order> findByFilter(OrderFilter filter) {
+        String sort = filter.getSort() != null ? filter.getSort() : "id";
+        return new FilterQuery("SELECT o FROM Order o", "o")
+                .where("o.user.id = :userId", "userId", filter.getUserId())
+                .where("o.orderDate >= :startDate", "startDate", filter.getStartDate())
+                .where("o.orderDate <= :endDate", "endDate", filter.getEndDate())
+                .where("o.totalAmount >= :minAmount", "minAmount", filter.getMinAmount())
+                .orderBy(sort, NULLABLE_SORTS.contains(sort), filter.isDescending(),
+                        keysetValue(sort, filter.getAfter()), filter.getAfterId())
+                .create(entityManager, Order.class, filter.getLimit())
+                .getResultList();
+    }
+
+    // Sortable columns and the type of their keyset value; anything else is rejected
+    private static Object keysetValue(String sort, String value) {
+        try {
+            return switch (sort) {
+                case "id" -> null;
+                case "createdAt" -> value != null ? LocalDateTime.parse(value) : null;
+                case "orderDate" -> value != null ? LocalDate.parse(value) : null;
+                case "totalAmount" -> value != null ? Double.valueOf(value) : null;
+                default -> throw new IllegalArgumentException("Cannot sort orders by " + sort);
+            };
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid keyset value for " + sort + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepo extends JpaRepository<OrderSummary, Long> {
+
+    // העמוד הראשון של היסטוריית ההזמנות, מהחדשה לישנה
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId ORDER BY s.createdAt DESC, s.orderId DESC")
+    List<OrderSummary> findFirstPage(@Param("userId") Long userId, Pageable page);
+
+    // העמוד הבא אחרי הסמן (createdAt, orderId), טווח על האינדקס במקום OFFSET
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId AND s.createdAt <= :createdAt " +
+            "AND (s.createdAt < :createdAt OR s.orderId < :orderId) " +
+            "ORDER BY s.createdAt DESC, s.orderId DESC")
+    List<OrderSummary> findPageAfter(@Param("userId") Long userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("orderId") Long orderId,
+                                     Pageable page);
+}
@@ -0,0 +1,33 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.PasswordResetToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface PasswordResetTokenRepo extends JpaRepository<PasswordResetToken, Long> {
+
+    // נעילת הטוקן לפי ה-hash הייחודי, כדי שרק בקשה אחת תוכל להשתמש בו
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM PasswordResetToken t WHERE t.tokenHash = :tokenHash")
+    Optional<PasswordResetToken> lockByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // טוקן חדש מבטל את הקודמים של אותו משתמש
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // מחיקת טוקנים שפג תוקפם במנות, לפי האינדקס על expires_at
+    @Modifying
+    @Query(value = "DELETE FROM password_reset_tokens WHERE expires_at < :now ORDER BY expires_at LIMIT :limit",
+            nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -23,9 +23,12 @@ public interface PaymentRepo extends JpaRepository<Payment, Long> {
     // מציאת תשלומים במצב ממתין לזמן ממושך
     List<Payment> findByPaymentStatusAndCreatedAtBefore(PaymentStatus status, LocalDateTime dateTime);
 
-    // סטטיסטיקות תשלומים לפי שיטת תשלום
-    @Query("SELECT p.paymentMethod, COUNT(p), SUM(p.amount) FROM Payment p " +
-            "WHERE p.paymentStatus = :status GROUP BY p.paymentMethod")
+    // סטטיסטיקות תשלומים לפי שיטת תשלום, כולל תשלומים בארכיון
+    @Query(value = "SELECT payment_method, COUNT(*), SUM(amount) FROM (" +
+            "SELECT payment_method, amount FROM payments WHERE payment_status = :#{#status.name()} " +
+            "UNION ALL " +
+            "SELECT payment_method, amount FROM payments_archive WHERE payment_status = :#{#status.name()}" +
+            ") p GROUP BY payment_method", nativeQuery = true)
     List<Object[]> countAndSumPaymentsByMethod(@Param("status") PaymentStatus status);
 
     // תשלומים לפי תאריכים
@@ -34,9 +37,14 @@ public interface PaymentRepo extends JpaRepository<Payment, Long> {
     // תשלומים שנכשלו
     List<Payment> findByPaymentStatusOrderByUpdatedAtDesc(PaymentStatus status);
 
-    // מציאת סך התשלומים המוצלחים בתקופה מסוימת
-    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.paymentStatus = 'COMPLETED' " +
-            "AND p.paymentDate BETWEEN :startDate AND :endDate")
+    // מציאת סך התשלומים המוצלחים בתקופה מסוימת, כולל תשלומים בארכיון
+    @Query(value = "SELECT SUM(amount) FROM (" +
+            "SELECT amount FROM payments WHERE payment_status = 'COMPLETED' " +
+            "AND payment_date BETWEEN :startDate AND :endDate " +
+            "UNION ALL " +
+            "SELECT amount FROM payments_archive WHERE payment_status = 'COMPLETED' " +
+            "AND payment_date BETWEEN :startDate AND :endDate" +
+            ") p", nativeQuery = true)
     Double sumCompletedPaymentsBetweenDates(
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
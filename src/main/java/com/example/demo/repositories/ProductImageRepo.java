@@ -0,0 +1,24 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.ProductImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductImageRepo extends JpaRepository<ProductImage, Long> {
+
+    // תמונה קיימת של אותו מוצר עם אותו תוכן
+    Optional<ProductImage> findFirstByProductIdAndContentHash(Long productId, String contentHash);
+
+    // תמונות אחרות עם אותו תוכן - כדי לחסוך יצירה מחדש של גרסאות מוקטנות
+    List<ProductImage> findByContentHash(String contentHash);
+
+    @Query("SELECT DISTINCT i.contentHash FROM ProductImage i WHERE i.contentHash IN :hashes")
+    List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+}
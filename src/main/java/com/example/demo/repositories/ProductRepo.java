@@ -11,7 +11,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ProductRepo extends JpaRepository<Product, Long> {
+public interface ProductRepo extends JpaRepository<Product, Long>, ProductRepoCustom {
 
     List<Product> findByCategoryId(Long categoryId);
 
@@ -29,6 +29,9 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
 
     List<Product> findByPriceBetween(double minPrice, double maxPrice);
 
+    // דף בטווח מחירים, מהזול ליקר - נקרא ישירות מ-idx_product_price
+    Page<Product> findByPriceBetweenOrderByPriceAscIdAsc(double minPrice, double maxPrice, Pageable pageable);
+
 
     List<Product> findByQuantityLessThan(int quantity);
 
@@ -38,6 +41,9 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
     // מוצרים אקטיביים בלבד
     List<Product> findByActiveTrue();
 
+    // דף של מוצרים אקטיביים אחרי מזהה נתון (keyset), לבניית ה-snapshot
+    List<Product> findTop500ByActiveTrueAndIdGreaterThanOrderByIdAsc(Long id);
+
     // שאילתה מורכבת - סינון לפי מחיר וקטגוריה
     @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.category.id = :categoryId")
     List<Product> findByPriceRangeAndCategory(
@@ -46,27 +52,26 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
             @Param("categoryId") Long categoryId
     );
 
-    // שאילתה מורכבת - חיפוש לפי מספר פרמטרים
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-            "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
-            "(:brand IS NULL OR p.brand = :brand) AND " +
-            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-            "p.active = true")
-    List<Product> findProductsByFilters(
-            @Param("name") String name,
+    // דף בטווח מחירים בקטגוריה, מהזול ליקר - נקרא ישירות מ-idx_product_category_price
+    @Query(value = "SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.price BETWEEN :minPrice AND :maxPrice " +
+            "ORDER BY p.price, p.id",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId AND p.price BETWEEN :minPrice AND :maxPrice")
+    Page<Product> findPageByPriceRangeAndCategory(
+            @Param("minPrice") double minPrice,
+            @Param("maxPrice") double maxPrice,
             @Param("categoryId") Long categoryId,
-            @Param("brand") String brand,
-            @Param("minPrice") Double minPrice,
-            @Param("maxPrice") Double maxPrice
+            Pageable pageable
     );
 
-    // מציאת מוצרים פופולריים (לפי הכמות בהזמנות)
-    @Query(value = "SELECT p.* FROM product p " +
-            "JOIN order_items oi ON p.id = oi.product_id " +
-            "GROUP BY p.id " +
-            "ORDER BY SUM(oi.quantity) DESC " +
+    // מציאת מוצרים פופולריים (לפי הכמות בהזמנות), כולל הזמנות בארכיון
+    @Query(value = "SELECT p.* FROM product p JOIN (" +
+            "SELECT product_id, SUM(quantity) AS total_sold FROM (" +
+            "SELECT product_id, quantity FROM order_items " +
+            "UNION ALL " +
+            "SELECT product_id, quantity FROM order_items_archive" +
+            ") oi GROUP BY product_id" +
+            ") sold ON sold.product_id = p.id " +
+            "ORDER BY sold.total_sold DESC " +
             "LIMIT :limit", nativeQuery = true)
     List<Product> findPopularProducts(@Param("limit") int limit);
 
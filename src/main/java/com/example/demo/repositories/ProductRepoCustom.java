@@ -0,0 +1,23 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.ProductDto;
+import com.example.demo.dto.ProductFilter;
+import com.example.demo.entities.Product;
+
+import java.util.List;
+
+public interface ProductRepoCustom {
+
+    /**
+     * Select only the requested product columns, and load images, the main image
+     * or specifications only when they were requested
+     */
+    List<ProductDto> findProjected(ProductFilter filter, FieldSet fields);
+
+    /**
+     * Products matching the filters that are set, sorted and keyset-paged as requested;
+     * throws IllegalArgumentException for an unknown sort or a bad keyset value
+     */
+    List<Product> findByFilter(ProductFilter filter);
+}
@@ -0,0 +1,207 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.ImageVariantDto;
+import com.example.demo.dto.ProductDto;
+import com.example.demo.dto.ProductFilter;
+import com.example.demo.dto.ProductImageDto;
+import com.example.demo.dto.ProductSpecificationDto;
+import com.example.demo.entities.ImageVariant;
+import com.example.demo.entities.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductRepoCustomImpl implements ProductRepoCustom {
+
+    // Keeps IN lists well below driver and optimizer limits
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductDto> findProjected(ProductFilter filter, FieldSet fields) {
+        StringBuilder select = new StringBuilder("SELECT p.id AS id");
+        for (String column : List.of("name", "description", "price", "brand", "model", "quantity", "active")) {
+            if (fields.includes(column)) {
+                select.append(", p.").append(column).append(" AS ").append(column);
+            }
+        }
+        if (fields.includes("categoryId")) {
+            select.append(", p.category.id AS categoryId");
+        }
+
+        Map<Long, ProductDto> products = new LinkedHashMap<>();
+        for (Tuple row : filtered(select + " FROM Product p", filter).create(entityManager, Tuple.class, filter.getLimit())
+                .getResultList()) {
+            ProductDto dto = toDto(row, fields);
+            products.put(dto.getId(), dto);
+        }
+
+        if (!products.isEmpty()) {
+            List<Long> ids = new ArrayList<>(products.keySet());
+            for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+                attachChildren(products, chunk, fields);
+            }
+        }
+        return new ArrayList<>(products.values());
+    }
+
+    @Override
+    public List<Product> findByFilter(ProductFilter filter) {
+        return filtered("SELECT p FROM Product p", filter)
+                .create(entityManager, Product.class, filter.getLimit())
+                .getResultList();
+    }
+
+    // The same predicates and keyset for entity and projected reads; only the select list differs
+    private static FilterQuery filtered(String from, ProductFilter filter) {
+        String sort = filter.getSort() != null ? filter.getSort() : "id";
+        return new FilterQuery(from, "p")
+                .where("p.id = :id", "id", filter.getId())
+                .where("p.id IN :ids", "ids", filter.getIds())
+                .where("LOWER(p.name) LIKE :name", "name",
+                        filter.getName() != null ? "%" + filter.getName().toLowerCase() + "%" : null)
+                .where("p.category.id = :categoryId", "categoryId", filter.getCategoryId())
+                .where("p.brand = :brand", "brand", filter.getBrand())
+                .where("p.price >= :minPrice", "minPrice", filter.getMinPrice())
+                .where("p.price <= :maxPrice", "maxPrice", filter.getMaxPrice())
+                .where("p.active = true", filter.isActiveOnly())
+                // name and price are NOT NULL
+                .orderBy(sort, false, filter.isDescending(), keysetValue(sort, filter.getAfter()), filter.getAfterId());
+    }
+
+    // Sortable columns and the type of their keyset value; anything else is rejected
+    private static Object keysetValue(String sort, String value) {
+        try {
+            return switch (sort) {
+                case "id" -> null;
+                case "name" -> value;
+                case "price" -> value != null ? Double.valueOf(value) : null;
+                default -> throw new IllegalArgumentException("Cannot sort products by " + sort);
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid keyset value for " + sort + ": " + value);
+        }
+    }
+
+    private ProductDto toDto(Tuple row, FieldSet fields) {
+        ProductDto dto = new ProductDto();
+        dto.setId(row.get("id", Long.class));
+        if (fields.includes("name")) {
+            dto.setName(row.get("name", String.class));
+        }
+        if (fields.includes("description")) {
+            dto.setDescription(row.get("description", String.class));
+        }
+        if (fields.includes("price")) {
+            dto.setPrice(row.get("price", Double.class));
+        }
+        if (fields.includes("brand")) {
+            dto.setBrand(row.get("brand", String.class));
+        }
+        if (fields.includes("model")) {
+            dto.setModel(row.get("model", String.class));
+        }
+        if (fields.includes("quantity")) {
+            dto.setQuantity(row.get("quantity", Integer.class));
+        }
+        if (fields.includes("active")) {
+            dto.setActive(row.get("active", Boolean.class));
+        }
+        if (fields.includes("categoryId")) {
+            dto.setCategoryId(row.get("categoryId", Long.class));
+        }
+        return dto;
+    }
+
+    // Child rows are read as scalar projections: loading ProductImage/ProductSpecification
+    // entities would eagerly pull their Product back in
+    private void attachChildren(Map<Long, ProductDto> products, List<Long> ids, FieldSet fields) {
+        if (fields.includes("mainImage")) {
+            List<Object[]> rows = entityManager.createQuery(
+                            "SELECT i.product.id, i.imageUrl FROM ProductImage i " +
+                                    "WHERE i.product.id IN :ids AND i.isMain = true ORDER BY i.id", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            for (Object[] row : rows) {
+                ProductDto dto = products.get((Long) row[0]);
+                if (dto.getMainImage() == null) {
+                    dto.setMainImage((String) row[1]);
+                }
+            }
+        }
+
+        if (fields.includes("thumbnail")) {
+            List<Object[]> rows = entityManager.createQuery(
+                            "SELECT i.product.id, i.imageUrl, v.url FROM ProductImage i LEFT JOIN i.variants v " +
+                                    "ON v.format <> :webp " +
+                                    "WHERE i.product.id IN :ids AND i.isMain = true ORDER BY i.id, v.width", Object[].class)
+                    .setParameter("webp", ImageVariant.WEBP)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            for (Object[] row : rows) {
+                ProductDto dto = products.get((Long) row[0]);
+                if (dto.getThumbnail() == null) {
+                    dto.setThumbnail(row[2] != null ? (String) row[2] : (String) row[1]);
+                }
+            }
+        }
+
+        if (fields.includes("images")) {
+            ids.forEach(id -> products.get(id).setImages(new ArrayList<>()));
+            List<Object[]> rows = entityManager.createQuery(
+                            "SELECT i.product.id, i.id, i.imageUrl, i.isMain FROM ProductImage i " +
+                                    "WHERE i.product.id IN :ids ORDER BY i.id", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            Map<Long, ProductImageDto> images = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                ProductImageDto image = new ProductImageDto();
+                image.setId((Long) row[1]);
+                image.setImageUrl((String) row[2]);
+                image.setMain((Boolean) row[3]);
+                image.setVariants(new ArrayList<>());
+                images.put(image.getId(), image);
+                products.get((Long) row[0]).getImages().add(image);
+            }
+
+            if (!images.isEmpty()) {
+                List<Object[]> variantRows = entityManager.createQuery(
+                                "SELECT i.id, v.width, v.format, v.url FROM ProductImage i JOIN i.variants v " +
+                                        "WHERE i.product.id IN :ids ORDER BY i.id, v.width", Object[].class)
+                        .setParameter("ids", ids)
+                        .getResultList();
+                for (Object[] row : variantRows) {
+                    ImageVariantDto variant = new ImageVariantDto();
+                    variant.setWidth((Integer) row[1]);
+                    variant.setFormat((String) row[2]);
+                    variant.setUrl((String) row[3]);
+                    images.get((Long) row[0]).getVariants().add(variant);
+                }
+            }
+        }
+
+        if (fields.includes("specifications")) {
+            ids.forEach(id -> products.get(id).setSpecifications(new ArrayList<>()));
+            List<Object[]> rows = entityManager.createQuery(
+                            "SELECT s.product.id, s.specName, s.specValue FROM ProductSpecification s " +
+                                    "WHERE s.product.id IN :ids ORDER BY s.id", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            for (Object[] row : rows) {
+                ProductSpecificationDto spec = new ProductSpecificationDto();
+                spec.setSpecName((String) row[1]);
+                spec.setSpecValue((String) row[2]);
+                products.get((Long) row[0]).getSpecifications().add(spec);
+            }
+        }
+    }
+}
@@ -2,7 +2,11 @@ package com.example.demo.repositories;
 
 import com.example.demo.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,4 +22,10 @@ public interface UserRepo extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     void deleteByEmail(String email);
+
+    // החלפת hash ישן בחדש רק אם הסיסמה לא שונתה בינתיים
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int upgradePassword(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.UserRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stateless access tokens: "v1.id.tokenVersion.role.expiresAt.email.username.hmac"
+ * (email and username base64url, HMAC-SHA256 over everything before the last dot).
+ * Verifying one needs no database access; the only shared state is a small map of
+ * users whose older tokens were revoked, pruned once those tokens have expired.
+ */
+@Service
+public class AccessTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenService.class);
+
+    private static final String FORMAT = "v1";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    /**
+     * What a valid token says about its user
+     */
+    public record Claims(Long id, String email, String username, UserRole role, int tokenVersion, long expiresAt) {
+    }
+
+    private record Revocation(int minimumVersion, long revokedAt) {
+    }
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final ThreadLocal<Mac> macs;
+    private final ConcurrentHashMap<Long, Revocation> revocations = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    public AccessTokenService(@Value("${app.auth.token-secret:}") String secret,
+                              @Value("${app.auth.token-ttl:PT12H}") Duration ttl) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("app.auth.token-secret is not set; using a random key, tokens will not survive a restart");
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+        }
+        this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        this.ttl = ttl;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String issue(Long id, String email, String username, UserRole role, int tokenVersion) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttl.toSeconds();
+        String payload = FORMAT + "." + id + "." + tokenVersion + "." + role.name() + "." + expiresAt + "."
+                + BASE64.encodeToString(email.getBytes(StandardCharsets.UTF_8)) + "."
+                + BASE64.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + BASE64.encodeToString(sign(payload));
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    /**
+     * Claims of a well-formed, correctly signed, unexpired and unrevoked token; null otherwise
+     */
+    public Claims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, signatureStart);
+        byte[] signature;
+        try {
+            signature = BASE64_DECODER.decode(token.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+
+        String[] parts = payload.split("\\.");
+        if (parts.length != 7 || !FORMAT.equals(parts[0])) {
+            return null;
+        }
+        try {
+            Claims claims = new Claims(Long.parseLong(parts[1]),
+                    new String(BASE64_DECODER.decode(parts[5]), StandardCharsets.UTF_8),
+                    new String(BASE64_DECODER.decode(parts[6]), StandardCharsets.UTF_8),
+                    UserRole.valueOf(parts[3]), Integer.parseInt(parts[2]), Long.parseLong(parts[4]));
+            if (claims.expiresAt() <= System.currentTimeMillis() / 1000) {
+                return null;
+            }
+            Revocation revocation = revocations.get(claims.id());
+            if (revocation != null && claims.tokenVersion() < revocation.minimumVersion()) {
+                return null;
+            }
+            return claims;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rejects this user's tokens with a version below minimumVersion from now on
+     */
+    public void revoke(Long userId, int minimumVersion) {
+        revocations.merge(userId, new Revocation(minimumVersion, System.currentTimeMillis()),
+                (old, next) -> old.minimumVersion() >= next.minimumVersion() ? old : next);
+    }
+
+    public int revokedUsers() {
+        return revocations.size();
+    }
+
+    // Users whose version was ever bumped; tokens signed before a restart may still be live
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        jdbcTemplate.query("SELECT id, token_version FROM users WHERE token_version > 0",
+                rs -> {
+                    revoke(rs.getLong(1), rs.getInt(2));
+                });
+        log.info("Access tokens: {} users with revoked tokens", revocations.size());
+    }
+
+    // After one TTL every token older than the revocation has expired on its own
+    @Scheduled(fixedDelayString = "PT10M", initialDelayString = "PT10M")
+    public void pruneRevocations() {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        revocations.values().removeIf(revocation -> revocation.revokedAt() < cutoff);
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
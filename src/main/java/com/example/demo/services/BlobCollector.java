@@ -0,0 +1,196 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.ImageBlob;
+import com.example.demo.repositories.ImageBlobRepo;
+import com.example.demo.repositories.ProductImageRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Mark-and-sweep for the blob store. Mark recounts references from the
+ * ProductImage rows (correcting any drift in the incremental counts); sweep
+ * deletes blobs that have had no references for the whole grace period. Work is
+ * done in small transactions that lock only the rows being collected, and file
+ * serving never touches these rows, so nothing waits on the collector.
+ */
+@Service
+public class BlobCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobCollector.class);
+
+    private static final int BATCH_SIZE = 200;
+
+    @Autowired
+    private ImageBlobRepo imageBlobRepo;
+
+    @Autowired
+    private ProductImageRepo productImageRepo;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.blobs.gc-grace:PT24H}")
+    private Duration grace;
+
+    @Scheduled(initialDelayString = "${app.blobs.gc-initial-delay:PT10M}", fixedDelayString = "${app.blobs.gc-interval:PT1H}")
+    public void collect() {
+        try {
+            int marked = mark();
+            int swept = sweep();
+            int orphans = sweepOrphanFiles();
+            log.info("Blob GC: {} blobs recounted, {} collected, {} orphan files removed", marked, swept, orphans);
+        } catch (IOException | RuntimeException e) {
+            log.error("Blob GC failed", e);
+        }
+    }
+
+    int mark() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        String after = "";
+        int total = 0;
+        while (true) {
+            List<String> hashes = imageBlobRepo.findHashesAfter(after, PageRequest.of(0, BATCH_SIZE));
+            if (hashes.isEmpty()) {
+                return total;
+            }
+            transaction.executeWithoutResult(status -> {
+                imageBlobRepo.recount(hashes);
+                imageBlobRepo.markUnreferenced(hashes, now);
+                imageBlobRepo.markReferenced(hashes);
+            });
+            total += hashes.size();
+            after = hashes.get(hashes.size() - 1);
+        }
+    }
+
+    int sweep() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime cutoff = LocalDateTime.now().minus(grace);
+        int total = 0;
+        while (true) {
+            List<String> candidates = imageBlobRepo.findCollectable(cutoff, PageRequest.of(0, BATCH_SIZE));
+            if (candidates.isEmpty()) {
+                return total;
+            }
+            Integer deleted = transaction.execute(status -> sweepBatch(candidates, cutoff));
+            total += deleted != null ? deleted : 0;
+            if (candidates.size() < BATCH_SIZE) {
+                return total;
+            }
+        }
+    }
+
+    // Locks the candidate rows, re-checks them against ProductImage, then deletes files and rows
+    private int sweepBatch(List<String> candidates, LocalDateTime cutoff) {
+        List<ImageBlob> locked = imageBlobRepo.lockCollectable(candidates, cutoff);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>(productImageRepo.findReferencedHashes(
+                locked.stream().map(ImageBlob::getHash).toList()));
+
+        List<ImageBlob> collectable = new ArrayList<>();
+        for (ImageBlob blob : locked) {
+            if (referenced.contains(blob.getHash())) {
+                continue;
+            }
+            try {
+                blobStore.deleteFiles(blob.getHash());
+                collectable.add(blob);
+            } catch (IOException e) {
+                log.warn("Could not delete files of blob {}", blob.getHash(), e);
+            }
+        }
+        if (!referenced.isEmpty()) {
+            imageBlobRepo.recount(referenced);
+            imageBlobRepo.markReferenced(referenced);
+        }
+        imageBlobRepo.deleteAllInBatch(collectable);
+        return collectable.size();
+    }
+
+    // Files with no blob row: left behind by uploads whose transaction rolled back, or temp files of crashed uploads
+    int sweepOrphanFiles() throws IOException {
+        long cutoff = System.currentTimeMillis() - grace.toMillis();
+        int removed = 0;
+
+        Path tmpDir = blobStore.root().resolve(BlobStore.TMP_DIR);
+        if (Files.isDirectory(tmpDir)) {
+            try (Stream<Path> files = Files.list(tmpDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (olderThan(file, cutoff) && Files.deleteIfExists(file)) {
+                        removed++;
+                    }
+                }
+            }
+        }
+
+        Path blobsDir = blobStore.blobsDir();
+        if (!Files.isDirectory(blobsDir)) {
+            return removed;
+        }
+        List<Path> batch = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(blobsDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && olderThan(file, cutoff) && hashOf(file) != null) {
+                    batch.add(file);
+                    if (batch.size() == BATCH_SIZE) {
+                        removed += deleteOrphans(batch);
+                        batch.clear();
+                    }
+                }
+            }
+        }
+        return removed + deleteOrphans(batch);
+    }
+
+    private int deleteOrphans(List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        Set<String> hashes = new HashSet<>();
+        files.forEach(file -> hashes.add(hashOf(file)));
+        Set<String> known = new HashSet<>(imageBlobRepo.findExistingHashes(hashes));
+
+        int removed = 0;
+        for (Path file : files) {
+            if (!known.contains(hashOf(file)) && Files.deleteIfExists(file)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean olderThan(Path file, long cutoff) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis() < cutoff;
+    }
+
+    // <sha256>.<ext> or <sha256>-w320.<ext>
+    private static String hashOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.length() >= 64 && name.substring(0, 64).matches("[0-9a-f]{64}") ? name.substring(0, 64) : null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.ImageBlob;
+import com.example.demo.events.ImageReferenceEvent;
+import com.example.demo.repositories.ImageBlobRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed file store under uploads/blobs. A file lives at
+ * blobs/&lt;h0h1&gt;/&lt;h2h3&gt;/&lt;sha256&gt;.&lt;ext&gt;, with its resized variants next to it,
+ * so identical uploads share one copy and directories stay small.
+ */
+@Service
+public class BlobStore {
+
+    static final String BLOBS_DIR = "blobs";
+    static final String TMP_DIR = "tmp";
+
+    @Autowired
+    private ImageServingService imageServingService;
+
+    @Autowired
+    private ImageBlobRepo imageBlobRepo;
+
+    /**
+     * Copy a stream to a temp file while hashing it; nothing is kept in memory
+     */
+    public Received receive(InputStream content) throws IOException {
+        Path tmpDir = Files.createDirectories(root().resolve(TMP_DIR));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(tmp)) {
+                in.transferTo(out);
+            }
+            return new Received(tmp, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        } catch (NoSuchAlgorithmException e) {
+            Files.deleteIfExists(tmp);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Register the blob and move the received file into place. Runs in the caller's
+     * transaction and holds the blob row lock, so the collector cannot delete the
+     * file between the existence check and the commit.
+     */
+    @Transactional
+    public ImageBlob commit(Received received, String format) throws IOException {
+        try {
+            Path target = originalPath(received.hash(), format);
+            imageBlobRepo.upsert(received.hash(), root().relativize(target).toString().replace('\\', '/'),
+                    format, Files.size(received.file()), LocalDateTime.now());
+            ImageBlob blob = imageBlobRepo.findForUpdate(received.hash()).orElseThrow();
+
+            Path stored = root().resolve(blob.getPath());
+            if (Files.exists(stored)) {
+                // Refresh mtime so the orphan-file sweep treats it as new
+                Files.setLastModifiedTime(stored, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.createDirectories(stored.getParent());
+                Files.move(received.file(), stored, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return blob;
+        } finally {
+            Files.deleteIfExists(received.file());
+        }
+    }
+
+    public Path path(ImageBlob blob) {
+        return root().resolve(blob.getPath());
+    }
+
+    public Path variantPath(String hash, int width, String extension) {
+        return shardDir(hash).resolve(hash + "-w" + width + "." + extension);
+    }
+
+    /**
+     * Delete the original and every variant of a blob
+     */
+    public void deleteFiles(String hash) throws IOException {
+        Path dir = shardDir(hash);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, hash + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Apply ProductImage reference changes once the writing transaction has committed
+     */
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onReferenceChanged(ImageReferenceEvent event) {
+        imageBlobRepo.adjustRefCount(event.getHash(), event.getDelta(), LocalDateTime.now());
+    }
+
+    Path root() {
+        return imageServingService.getRoot();
+    }
+
+    Path blobsDir() {
+        return root().resolve(BLOBS_DIR);
+    }
+
+    private Path originalPath(String hash, String format) {
+        String extension = "jpeg".equals(format) ? "jpg" : format;
+        return shardDir(hash).resolve(hash + "." + extension);
+    }
+
+    private Path shardDir(String hash) {
+        return blobsDir().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+    }
+
+    public record Received(Path file, String hash) {
+    }
+}
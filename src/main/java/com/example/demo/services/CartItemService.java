@@ -11,10 +11,12 @@ import com.example.demo.repositories.ProductRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Service for managing cart items in the e-commerce system.
@@ -25,6 +27,9 @@ public class CartItemService {
     @Autowired
     private CartItemRepo cartItemRepo;
 
+    @Autowired
+    private ResultStreamingService resultStreamingService;
+
     @Autowired
     private CartRepo cartRepo;
 
@@ -38,6 +43,14 @@ public class CartItemService {
         return cartItemRepo.findAll();
     }
 
+    /**
+     * Stream all cart items as a JSON array, one row at a time
+     */
+    public StreamingResponseBody streamAll() {
+        return resultStreamingService.stream("SELECT ci FROM CartItem ci ORDER BY ci.id", CartItem.class,
+                Function.identity());
+    }
+
     /**
      * Get cart item by ID
      */
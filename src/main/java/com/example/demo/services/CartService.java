@@ -1,5 +1,7 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.CartDto;
+import com.example.demo.dto.CartMapper;
 import com.example.demo.entities.Cart;
 import com.example.demo.entities.CartItem;
 import com.example.demo.entities.Product;
@@ -36,6 +38,9 @@ public class CartService {
     @Autowired
     private ProductRepo productRepo;
 
+    @Autowired
+    private CartMapper cartMapper;
+
     /**
      * Get all carts (admin function)
      */
@@ -71,6 +76,54 @@ public class CartService {
         return cartRepo.findByUserIdAndActiveTrue(userId);
     }
 
+    /**
+     * Get all carts as lightweight read models (admin function)
+     */
+    @Transactional(readOnly = true)
+    public List<CartDto> getAllViews() {
+        return cartMapper.toDtos(cartRepo.findAllCartViews());
+    }
+
+    /**
+     * Get cart read model by ID
+     */
+    @Transactional(readOnly = true)
+    public Optional<CartDto> getView(Long id) {
+        return cartMapper.toDto(cartRepo.findCartViewById(id));
+    }
+
+    /**
+     * Get cart read models by user email
+     */
+    @Transactional(readOnly = true)
+    public List<CartDto> getViewsByUserEmail(String email) {
+        return cartMapper.toDtos(cartRepo.findCartViewsByUserEmail(email));
+    }
+
+    /**
+     * Get active cart read model for user by email
+     */
+    @Transactional(readOnly = true)
+    public Optional<CartDto> getActiveCartViewByUserEmail(String email) {
+        return cartMapper.toDto(cartRepo.findActiveCartViewByUserEmail(email));
+    }
+
+    /**
+     * Get active cart read model for user by ID
+     */
+    @Transactional(readOnly = true)
+    public Optional<CartDto> getActiveCartViewByUserId(Long userId) {
+        return cartMapper.toDto(cartRepo.findActiveCartViewByUserId(userId));
+    }
+
+    /**
+     * Get abandoned cart read models (for marketing/analysis)
+     */
+    @Transactional(readOnly = true)
+    public List<CartDto> getAbandonedCartViews(LocalDateTime cutoffTime) {
+        return cartMapper.toDtos(cartRepo.findAbandonedCartViews(cutoffTime));
+    }
+
     /**
      * Create a new cart for user or get existing active cart
      */
@@ -84,6 +137,16 @@ public class CartService {
         return createCartForUser(email);
     }
 
+    /**
+     * Get or create the active cart of an already authenticated user; the user row is
+     * only referenced, not loaded
+     */
+    @Transactional
+    public Cart getOrCreateActiveCart(Long userId) {
+        return getActiveCartByUserId(userId)
+                .orElseGet(() -> cartRepo.save(new Cart(userRepo.getReferenceById(userId))));
+    }
+
     /**
      * Create a new cart for user
      */
@@ -0,0 +1,104 @@
+package com.example.demo.services;
+
+import com.example.demo.events.CatalogChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory version counters for the catalog collections, used as ETags.
+ * Reading a stamp never touches the database; counters move only after a
+ * catalog write commits, once per transaction however many rows it touched.
+ * Stamps include the startup time so validators from a previous run never match.
+ * There is no Last-Modified: HTTP dates have one-second precision, so a change
+ * within the second of an earlier response would still match its If-Modified-Since.
+ */
+@Service
+public class CatalogVersions {
+
+    private final long bootId = System.currentTimeMillis();
+
+    private final Map<CatalogChangedEvent.Type, AtomicReference<Stamp>> stamps = new EnumMap<>(CatalogChangedEvent.Type.class);
+
+    public CatalogVersions() {
+        for (CatalogChangedEvent.Type type : CatalogChangedEvent.Type.values()) {
+            stamps.put(type, new AtomicReference<>(new Stamp(bootId, 0)));
+        }
+    }
+
+    /**
+     * Stamp for product and brand representations
+     */
+    public Stamp products() {
+        return stamps.get(CatalogChangedEvent.Type.PRODUCT).get();
+    }
+
+    /**
+     * Stamp for category representations, which embed their products
+     */
+    public Stamp categories() {
+        return stamps.get(CatalogChangedEvent.Type.CATEGORY).get().and(products());
+    }
+
+    // Runs inside the publishing transaction so all events of one commit are folded into one bump
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(event.getType());
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingBump pending && pending.owner() == this) {
+                pending.types.add(event.getType());
+                return;
+            }
+        }
+        PendingBump pending = new PendingBump();
+        pending.types.add(event.getType());
+        TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+
+    private void bump(CatalogChangedEvent.Type type) {
+        stamps.get(type).updateAndGet(Stamp::next);
+    }
+
+    private final class PendingBump implements TransactionSynchronization {
+
+        private final Set<CatalogChangedEvent.Type> types = EnumSet.noneOf(CatalogChangedEvent.Type.class);
+
+        CatalogVersions owner() {
+            return CatalogVersions.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            types.forEach(CatalogVersions.this::bump);
+        }
+    }
+
+    public record Stamp(long bootId, long version) {
+
+        Stamp next() {
+            return new Stamp(bootId, version + 1);
+        }
+
+        Stamp and(Stamp other) {
+            return new Stamp(bootId, version + other.version);
+        }
+
+        /**
+         * Strong ETag for one representation; the variant separates e.g. JSON from Smile
+         */
+        public String etag(String variant) {
+            return "\"" + Long.toString(bootId, 36) + "-" + version
+                    + (variant != null ? "-" + Integer.toHexString(variant.hashCode()) : "") + "\"";
+        }
+    }
+}
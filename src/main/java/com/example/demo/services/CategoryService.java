@@ -6,16 +6,21 @@ import com.example.demo.repositories.CategoryRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 public class CategoryService {
     @Autowired
     private CategoryRepo categoryRepo;
 
+    @Autowired
+    private ResultStreamingService resultStreamingService;
+
     /**
      * Get all categories
      */
@@ -23,6 +28,14 @@ public class CategoryService {
         return categoryRepo.findAll();
     }
 
+    /**
+     * Stream all categories as a JSON array, one row at a time
+     */
+    public StreamingResponseBody streamAll() {
+        return resultStreamingService.stream("SELECT c FROM Category c ORDER BY c.id", Category.class,
+                Function.identity());
+    }
+
     /**
      * Get only active categories
      */
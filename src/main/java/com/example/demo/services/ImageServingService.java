@@ -0,0 +1,361 @@
+package com.example.demo.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Serves files under the uploads directory: sendfile / transferTo for large
+ * files, an LRU of small hot files, single byte ranges, precompressed .br/.gz
+ * siblings, and far-future caching for content-hashed URLs.
+ */
+@Service
+public class ImageServingService {
+
+    public static final String URL_PREFIX = "/uploads/";
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=300, must-revalidate";
+
+    // File names that are a content hash (optionally with a variant suffix like -w320) never change
+    private static final Pattern HASHED_NAME = Pattern.compile("^[0-9a-f]{16,64}(-[a-z0-9]+)?(\\.[A-Za-z0-9]+)?$");
+
+    private static final int SMALL_FILE_SIZE = 64 * 1024;
+    private static final long SMALL_FILE_BUDGET = 32L * 1024 * 1024;
+    private static final int MAX_CONTENT_HASHES = 10_000;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    static final long[] UNSATISFIABLE = new long[0];
+
+    private final Path root;
+
+    private final SmallFileCache smallFiles = new SmallFileCache(SMALL_FILE_BUDGET);
+
+    // Short content hash per file for ?v= URLs; LRU bounded by entry count, checked against size and mtime
+    private final Map<Path, ContentHash> contentHashes = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ContentHash> eldest) {
+            return size() > MAX_CONTENT_HASHES;
+        }
+    };
+
+    private record ContentHash(String hash, long size, long lastModified) {
+    }
+
+    public ImageServingService(@Value("${app.uploads.dir:uploads}") String uploadsDir) {
+        this.root = Paths.get(uploadsDir).toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Resolve a path below the uploads root, or null if it escapes the root or touches hidden files
+     */
+    public Path resolve(String relativePath) {
+        if (relativePath == null) {
+            return null;
+        }
+        String trimmed = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
+        if (trimmed.isEmpty() || trimmed.contains("\\")) {
+            return null;
+        }
+        for (String segment : trimmed.split("/")) {
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return null;
+            }
+        }
+        Path file = root.resolve(trimmed).normalize();
+        return file.startsWith(root) ? file : null;
+    }
+
+    /**
+     * Public URL of a file stored under the uploads root
+     */
+    public String urlFor(Path file) {
+        return URL_PREFIX + root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /**
+     * URL that can be cached forever: the ?v= token changes whenever the file content does
+     */
+    public String versionedUrl(String relativePath) throws IOException {
+        Path file = resolve(relativePath);
+        if (file == null || !Files.isRegularFile(file)) {
+            return URL_PREFIX + relativePath;
+        }
+        return urlFor(file)
+                + "?v=" + contentHash(file, Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    public void serve(String relativePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path original = resolve(relativePath);
+        if (original == null || !Files.isRegularFile(original)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Precompressed siblings (logo.svg.br, logo.svg.gz) are picked when the client accepts them
+        String encoding = null;
+        Path served = original;
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        Path brotli = original.resolveSibling(original.getFileName() + ".br");
+        Path gzip = original.resolveSibling(original.getFileName() + ".gz");
+        boolean hasBrotli = Files.isRegularFile(brotli);
+        boolean hasGzip = Files.isRegularFile(gzip);
+        if (hasBrotli || hasGzip) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (hasBrotli && accepts(acceptEncoding, "br")) {
+                encoding = "br";
+                served = brotli;
+            } else if (hasGzip && accepts(acceptEncoding, "gzip")) {
+                encoding = "gzip";
+                served = gzip;
+            }
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(served, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        String version = request.getParameter("v");
+        boolean immutable = HASHED_NAME.matcher(original.getFileName().toString()).matches()
+                || (version != null && version.equals(contentHash(original, Files.readAttributes(original, BasicFileAttributes.class))));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE : REVALIDATE);
+
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified)
+                + (encoding != null ? "-" + encoding : "") + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        MediaType contentType = MediaTypeFactory.getMediaType(original.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(contentType.toString());
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = length - 1;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRange.equals(etag)) {
+            long[] range = parseRange(request.getHeader(HttpHeaders.RANGE), length);
+            if (range == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range != null) {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (length <= SMALL_FILE_SIZE) {
+            byte[] content = smallFiles.get(served, length, lastModified);
+            response.getOutputStream().write(content, (int) start, (int) count);
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat streams the file from the kernel after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, served.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(served, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    // Truncated since Content-Length was set; abort rather than end the body early
+                    throw new IOException("File shrank while serving: " + served);
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Single byte range as {start, endInclusive}. Null means serve the whole file
+     * (no header, malformed, or multiple ranges); UNSATISFIABLE means 416.
+     */
+    static long[] parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (spec.contains(",") || dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end = length - 1;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0, length - suffix);
+            } else {
+                start = Long.parseLong(first);
+                if (!last.isEmpty()) {
+                    long requestedEnd = Long.parseLong(last);
+                    if (requestedEnd < start) {
+                        return null;
+                    }
+                    end = Math.min(requestedEnd, end);
+                }
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equalsIgnoreCase(coding)) {
+                return tokens.length < 2 || !tokens[1].replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+
+    private String contentHash(Path file, BasicFileAttributes attributes) throws IOException {
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        synchronized (contentHashes) {
+            ContentHash cached = contentHashes.get(file);
+            if (cached != null && cached.size == size && cached.lastModified == lastModified) {
+                return cached.hash;
+            }
+        }
+
+        String hash;
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            hash = HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        synchronized (contentHashes) {
+            contentHashes.put(file, new ContentHash(hash, size, lastModified));
+        }
+        return hash;
+    }
+
+    int contentHashCount() {
+        synchronized (contentHashes) {
+            return contentHashes.size();
+        }
+    }
+
+    /**
+     * LRU of small file contents bounded by total bytes. Entries are keyed by
+     * path and checked against size and mtime, so a replaced file is reloaded.
+     */
+    private static final class SmallFileCache {
+
+        private final long budget;
+        private long used;
+        private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+        private record Entry(byte[] content, long lastModified) {
+        }
+
+        SmallFileCache(long budget) {
+            this.budget = budget;
+        }
+
+        byte[] get(Path file, long size, long lastModified) throws IOException {
+            synchronized (this) {
+                Entry entry = entries.get(file);
+                if (entry != null && entry.content.length == size && entry.lastModified == lastModified) {
+                    return entry.content;
+                }
+            }
+
+            byte[] content;
+            try (InputStream in = Files.newInputStream(file)) {
+                content = in.readNBytes((int) size);
+            }
+            if (content.length != size) {
+                // Shrank between stat and read; Content-Length is already set, so fail instead of truncating
+                throw new IOException("File shrank while serving: " + file);
+            }
+
+            synchronized (this) {
+                Entry previous = entries.put(file, new Entry(content, lastModified));
+                used += content.length - (previous != null ? previous.content.length : 0);
+                var eldest = entries.entrySet().iterator();
+                while (used > budget && eldest.hasNext()) {
+                    used -= eldest.next().getValue().content.length;
+                    eldest.remove();
+                }
+            }
+            return content;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.dto.ProductImageDto;
+import com.example.demo.entities.ImageBlob;
+import com.example.demo.entities.ImageVariant;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.ProductImage;
+import com.example.demo.exceptions.ResourceNotFoundException;
+import com.example.demo.repositories.ProductImageRepo;
+import com.example.demo.repositories.ProductRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Accepts product image uploads. The multipart body is copied to disk in one
+ * pass while it is hashed, so the file is never held in memory, and stored in
+ * the {@link BlobStore} so identical content is kept once. Resized variants are
+ * produced afterwards by {@link ImageVariantGenerator}.
+ */
+@Service
+public class ImageUploadService {
+
+    private static final Set<String> ACCEPTED_FORMATS = Set.of("jpeg", "png", "gif", "bmp", "webp");
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private ProductImageRepo productImageRepo;
+
+    @Autowired
+    private ImageServingService imageServingService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ImageVariantGenerator imageVariantGenerator;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    /**
+     * Store an uploaded file and attach it to the product
+     */
+    @Transactional
+    public ProductImageDto upload(Long productId, MultipartFile file, boolean main) throws IOException {
+        Product product = productRepo.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Image file is required");
+        }
+
+        StoredFile stored = store(file);
+
+        // Same bytes already attached to this product: nothing to add
+        ProductImage existing = productImageRepo.findFirstByProductIdAndContentHash(productId, stored.hash()).orElse(null);
+        if (existing != null) {
+            if (main && !existing.isMain()) {
+                product.getImages().forEach(image -> image.setMain(image == existing));
+            }
+            // Its variant task may have been dropped on a full queue; uploading again retries it
+            if (existing.getVariants().isEmpty()) {
+                scheduleVariants(existing.getId(), stored);
+            }
+            return orderMapper.toDto(existing);
+        }
+
+        if (main) {
+            product.getImages().forEach(image -> image.setMain(false));
+        }
+        ProductImage image = new ProductImage(product, imageServingService.urlFor(stored.path()), main);
+        image.setContentHash(stored.hash());
+
+        // Another product already uses this file: reuse its variants instead of resizing again
+        List<ImageVariant> knownVariants = productImageRepo.findByContentHash(stored.hash()).stream()
+                .map(ProductImage::getVariants)
+                .filter(variants -> !variants.isEmpty())
+                .findFirst()
+                .orElse(List.of());
+        knownVariants.forEach(variant -> image.getVariants().add(new ImageVariant(variant.getWidth(),
+                variant.getHeight(), variant.getFormat(), variant.getUrl(), variant.getSizeBytes())));
+
+        product.getImages().add(image);
+        ProductImage saved = productImageRepo.save(image);
+
+        if (knownVariants.isEmpty()) {
+            scheduleVariants(saved.getId(), stored);
+        }
+        return orderMapper.toDto(saved);
+    }
+
+    private void scheduleVariants(Long imageId, StoredFile stored) {
+        // Only after commit: the generator looks the row up in its own transaction
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                imageVariantGenerator.submit(imageId, stored.path(), stored.hash(), stored.format());
+            }
+        });
+    }
+
+    private StoredFile store(MultipartFile file) throws IOException {
+        BlobStore.Received received = blobStore.receive(file.getInputStream());
+        try {
+            String format = detectFormat(received.file());
+            if (format == null || !ACCEPTED_FORMATS.contains(format)) {
+                throw new IllegalArgumentException("Unsupported image type");
+            }
+            ImageBlob blob = blobStore.commit(received, format);
+            return new StoredFile(blobStore.path(blob), blob.getHash(), format);
+        } finally {
+            Files.deleteIfExists(received.file());
+        }
+    }
+
+    // Reads only the header; the pixels are decoded later by the variant generator
+    private String detectFormat(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                return reader.getFormatName().toLowerCase(Locale.ROOT);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    record StoredFile(Path path, String hash, String format) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.ImageVariant;
+import com.example.demo.entities.ProductImage;
+import com.example.demo.events.CatalogChangedEvent;
+import com.example.demo.repositories.ProductImageRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Builds resized copies of uploaded images on a small bounded pool and records
+ * them on the ProductImage rows. If the pool is saturated the task is dropped
+ * and the image keeps serving its original; uploading the same file again
+ * schedules it once more.
+ */
+@Service
+public class ImageVariantGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantGenerator.class);
+
+    static final int[] WIDTHS = {160, 320, 640, 1280};
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    @Autowired
+    @Qualifier("imageVariantExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    private ImageServingService imageServingService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ProductImageRepo productImageRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public void submit(Long imageId, Path original, String hash, String format) {
+        try {
+            executor.execute(() -> generate(imageId, original, hash, format));
+        } catch (TaskRejectedException e) {
+            log.warn("Variant queue full, image {} will be served without variants", imageId);
+        }
+    }
+
+    void generate(Long imageId, Path original, String hash, String format) {
+        try {
+            List<ImageVariant> variants = resize(original, hash, format);
+            if (!variants.isEmpty()) {
+                record(imageId, hash, variants);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not generate variants for image {}", imageId, e);
+        }
+    }
+
+    List<ImageVariant> resize(Path original, String hash, String format) throws IOException {
+        Decoded decoded = read(original);
+        if (decoded == null) {
+            return List.of();
+        }
+        BufferedImage source = decoded.image();
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        String baseFormat = alpha ? ImageVariant.PNG : ImageVariant.JPEG;
+        boolean webp = ImageIO.getImageWritersByFormatName(ImageVariant.WEBP).hasNext();
+
+        List<ImageVariant> variants = new ArrayList<>();
+        for (int width : WIDTHS) {
+            // Never upscale: compare with the width before subsampling
+            if (width >= decoded.originalWidth()) {
+                break;
+            }
+            int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+            BufferedImage scaled = scale(source, width, height, alpha);
+
+            variants.add(write(scaled, hash, width, baseFormat));
+            if (webp) {
+                variants.add(write(scaled, hash, width, ImageVariant.WEBP));
+            }
+        }
+        return variants;
+    }
+
+    private void record(Long imageId, String hash, List<ImageVariant> variants) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            productImageRepo.findById(imageId).ifPresent(image -> replaceVariants(image, variants));
+            // Rows with the same content uploaded while this was running
+            for (ProductImage image : productImageRepo.findByContentHash(hash)) {
+                if (image.getVariants().isEmpty()) {
+                    replaceVariants(image, variants);
+                }
+            }
+        });
+    }
+
+    private void replaceVariants(ProductImage image, List<ImageVariant> variants) {
+        image.getVariants().clear();
+        for (ImageVariant variant : variants) {
+            image.getVariants().add(new ImageVariant(variant.getWidth(), variant.getHeight(),
+                    variant.getFormat(), variant.getUrl(), variant.getSizeBytes()));
+        }
+        // Element collection changes don't fire the entity listeners, but the product JSON shows variants
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT,
+                image.getProduct().getId(), false, LocalDateTime.now()));
+    }
+
+    // Decode with subsampling so a 6000px photo is not fully expanded just to make a 1280px copy
+    private Decoded read(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int largest = WIDTHS[WIDTHS.length - 1];
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (largest * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return new Decoded(reader.read(0, param), width);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private record Decoded(BufferedImage image, int originalWidth) {
+    }
+
+    // Repeated halving keeps bilinear downscaling sharp without a dedicated resampling library
+    static BufferedImage scale(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private ImageVariant write(BufferedImage image, String hash, int width, String format) throws IOException {
+        String extension = ImageVariant.JPEG.equals(format) ? "jpg" : format;
+        Path target = blobStore.variantPath(hash, width, extension);
+
+        if (!Files.exists(target)) {
+            Path dir = Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(dir, "variant-", ".part");
+            try {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+                try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                    ImageWriteParam param = writer.getDefaultWriteParam();
+                    if (ImageVariant.JPEG.equals(format)) {
+                        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                        param.setCompressionQuality(JPEG_QUALITY);
+                    }
+                    writer.setOutput(out);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return new ImageVariant(width, image.getHeight(), format, imageServingService.urlFor(target), Files.size(target));
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.demo.services;
+
+import java.util.Collection;
+
+/**
+ * Immutable open-addressing hash table from primitive long keys to byte arrays,
+ * with linear probing and a load factor of at most 1/2. Updates return a modified
+ * copy, so readers never lock. Key 0 marks an empty slot and cannot be stored
+ * (database ids start at 1).
+ */
+final class LongBytesTable {
+
+    // Compressed oops on heaps under 32 GB
+    private static final int REFERENCE_BYTES = 4;
+
+    static final LongBytesTable EMPTY = new LongBytesTable(new long[2], new byte[2][], 0);
+
+    private final long[] keys;
+    private final byte[][] values;
+    private final int size;
+    private final int mask;
+
+    private LongBytesTable(long[] keys, byte[][] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+        this.mask = keys.length - 1;
+    }
+
+    byte[] get(long key) {
+        int i = slot(key, mask);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == 0) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copy with the key set to value; grows when the copy would pass half full
+     */
+    LongBytesTable with(long key, byte[] value) {
+        checkKey(key);
+        byte[] current = get(key);
+        if (current == value) {
+            return this;
+        }
+        int newSize = current != null ? size : size + 1;
+        if (newSize * 2 > keys.length) {
+            Builder builder = new Builder(newSize);
+            forEach(builder::put);
+            builder.put(key, value);
+            return builder.build();
+        }
+        long[] k = keys.clone();
+        byte[][] v = values.clone();
+        insert(k, v, key, value);
+        return new LongBytesTable(k, v, newSize);
+    }
+
+    /**
+     * Copy without the key, or this table when the key is absent
+     */
+    LongBytesTable without(long key) {
+        if (key == 0 || get(key) == null) {
+            return this;
+        }
+        long[] k = keys.clone();
+        byte[][] v = values.clone();
+        remove(k, v, key);
+        return new LongBytesTable(k, v, size - 1);
+    }
+
+    /**
+     * Copy without any of the keys, made once for all of them; this table when none is present
+     */
+    LongBytesTable withoutAll(Collection<Long> removed) {
+        long[] k = keys;
+        byte[][] v = values;
+        int newSize = size;
+        for (Long key : removed) {
+            if (key == null || key == 0 || get(key) == null) {
+                continue;
+            }
+            if (k == keys) {
+                k = keys.clone();
+                v = values.clone();
+            }
+            if (remove(k, v, key)) {
+                newSize--;
+            }
+        }
+        return k == keys ? this : new LongBytesTable(k, v, newSize);
+    }
+
+    // Backward-shift deletion: pull later entries of the probe run into the hole
+    // unless their home slot lies cyclically in (hole, j]
+    private static boolean remove(long[] k, byte[][] v, long key) {
+        int mask = k.length - 1;
+        int hole = slot(key, mask);
+        while (k[hole] != key) {
+            if (k[hole] == 0) {
+                return false;
+            }
+            hole = (hole + 1) & mask;
+        }
+
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (k[j] == 0) {
+                break;
+            }
+            int home = slot(k[j], mask);
+            boolean stays = hole < j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!stays) {
+                k[hole] = k[j];
+                v[hole] = v[j];
+                hole = j;
+            }
+        }
+        k[hole] = 0;
+        v[hole] = null;
+        return true;
+    }
+
+    void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Bytes held by the table itself (key and reference arrays), without the values
+     */
+    long overheadBytes() {
+        return 16L + keys.length * 8L + 16L + (long) values.length * REFERENCE_BYTES;
+    }
+
+    /**
+     * Total of the stored values, array headers included
+     */
+    long valueBytes() {
+        long[] total = {0};
+        forEach((key, value) -> total[0] += 16 + value.length);
+        return total[0];
+    }
+
+    @FunctionalInterface
+    interface Entry {
+        void accept(long key, byte[] value);
+    }
+
+    /**
+     * Mutable builder for bulk loads; build() hands the arrays over without copying
+     */
+    static final class Builder {
+        private long[] keys;
+        private byte[][] values;
+        private int size;
+
+        Builder(int expected) {
+            int capacity = capacityFor(expected);
+            keys = new long[capacity];
+            values = new byte[capacity][];
+        }
+
+        Builder put(long key, byte[] value) {
+            checkKey(key);
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                byte[][] oldValues = values;
+                keys = new long[keys.length * 2];
+                values = new byte[keys.length][];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        insert(keys, values, oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            if (insert(keys, values, key, value)) {
+                size++;
+            }
+            return this;
+        }
+
+        LongBytesTable build() {
+            LongBytesTable table = size == 0 ? EMPTY : new LongBytesTable(keys, values, size);
+            keys = null;
+            values = null;
+            return table;
+        }
+    }
+
+    // Returns true when the key was not present before
+    private static boolean insert(long[] keys, byte[][] values, long key, byte[] value) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        boolean added = keys[i] == 0;
+        keys[i] = key;
+        values[i] = value;
+        return added;
+    }
+
+    private static int capacityFor(int entries) {
+        return Integer.highestOneBit(Math.max(1, entries * 2 - 1)) << 1;
+    }
+
+    // Fibonacci hashing spreads sequential ids across the whole table
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LongBytesTable[size=" + size + ", capacity=" + keys.length + "]";
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.OrderDto;
+import com.example.demo.dto.OrderItemDto;
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.entities.Order;
+import com.example.demo.entities.OrderItem;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.ProductRepo;
+import com.example.demo.repositories.UserRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps orders, order_items and payments small by moving closed orders to the
+ * *_archive tables (V6). An order is closed once it is older than app.archive.min-age
+ * and has no PENDING payment. Orders move with their items and payment in chunks; each
+ * chunk is one short transaction that locks, copies and deletes the same rows, so an
+ * order is always in exactly one store.
+ * <p>
+ * Revenue, sales and payment reports union both stores in their repository queries;
+ * the items-sold report adds findItemsByOrderDate. Order history (order_summaries)
+ * keeps archived orders, and getById falls back to findOrder.
+ */
+@Service
+public class OrderArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchive.class);
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.archive.min-age:P365D}")
+    private Duration minAge;
+
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+
+    // Bounds one run; the rest waits for the next one
+    @Value("${app.archive.max-batches:200}")
+    private int maxBatches;
+
+    // Between chunks, so replicas and the live workload keep up
+    @Value("${app.archive.pause:PT0.2S}")
+    private Duration pause;
+
+    @Scheduled(initialDelayString = "${app.archive.initial-delay:PT15M}", fixedDelayString = "${app.archive.interval:PT1H}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int moved = archive(LocalDateTime.now().minus(minAge));
+            if (moved > 0) {
+                log.info("Order archive: {} orders moved", moved);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Order archiving failed", e);
+        }
+    }
+
+    /**
+     * Archive closed orders created before cutoff, oldest first; returns how many moved
+     */
+    int archive(LocalDateTime cutoff) throws InterruptedException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Integer moved = transaction.execute(status -> archiveBatch(cutoff));
+            int count = moved != null ? moved : 0;
+            total += count;
+            if (count < batchSize) {
+                break;
+            }
+            Thread.sleep(pause.toMillis());
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        // Oldest first along idx_orders_created_at; rows another transaction holds are left for later
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT o.id FROM orders o WHERE o.created_at < :cutoff AND NOT EXISTS (" +
+                        "SELECT 1 FROM payments p WHERE p.order_id = o.id AND p.payment_status = 'PENDING') " +
+                        "ORDER BY o.created_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+                new MapSqlParameterSource("cutoff", cutoff).addValue("limit", batchSize), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // FOR UPDATE does not lock the subquery's payments; lock them and drop orders whose payment became PENDING
+        List<Long> pending = new ArrayList<>();
+        jdbcTemplate.query("SELECT order_id, payment_status FROM payments WHERE order_id IN (:ids) FOR UPDATE",
+                new MapSqlParameterSource("ids", ids), rs -> {
+                    if ("PENDING".equals(rs.getString("payment_status"))) {
+                        pending.add(rs.getLong("order_id"));
+                    }
+                });
+        if (!pending.isEmpty()) {
+            ids = new ArrayList<>(ids);
+            ids.removeAll(pending);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids).addValue("now", LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO orders_archive (id, user_id, order_date, created_at, updated_at, total_amount, " +
+                "shipping_address, shipping_city, shipping_zip_code, shipping_country, archived_at) " +
+                "SELECT id, user_id, order_date, created_at, updated_at, total_amount, " +
+                "shipping_address, shipping_city, shipping_zip_code, shipping_country, :now " +
+                "FROM orders WHERE id IN (:ids)", params);
+        jdbcTemplate.update("INSERT INTO order_items_archive (id, order_id, product_id, quantity, unit_price, created_at) " +
+                "SELECT id, order_id, product_id, quantity, unit_price, created_at " +
+                "FROM order_items WHERE order_id IN (:ids)", params);
+        jdbcTemplate.update("INSERT INTO payments_archive (id, order_id, payment_method, payment_status, transaction_id, " +
+                "amount, payment_date, created_at, updated_at) " +
+                "SELECT id, order_id, payment_method, payment_status, transaction_id, " +
+                "amount, payment_date, created_at, updated_at " +
+                "FROM payments WHERE order_id IN (:ids)", params);
+
+        jdbcTemplate.update("DELETE FROM payments WHERE order_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (:ids)", params);
+        return ids.size();
+    }
+
+    /**
+     * An archived order mapped like a live one, for opening an old order from the history
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderDto> findOrder(Long id, FieldSet fields) {
+        Map<String, Object> params = Map.of("id", id);
+        List<OrderDto> orders = jdbcTemplate.query(
+                "SELECT id, user_id, created_at, total_amount, shipping_address, shipping_city, " +
+                        "shipping_zip_code, shipping_country FROM orders_archive WHERE id = :id",
+                params,
+                (rs, rowNum) -> {
+                    OrderDto dto = new OrderDto();
+                    dto.setId(rs.getLong("id"));
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    dto.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+                    dto.setTotalAmount(rs.getDouble("total_amount"));
+                    dto.setShippingAddress(rs.getString("shipping_address"));
+                    dto.setShippingCity(rs.getString("shipping_city"));
+                    dto.setShippingZipCode(rs.getString("shipping_zip_code"));
+                    dto.setShippingCountry(rs.getString("shipping_country"));
+                    long userId = rs.getLong("user_id");
+                    if (!rs.wasNull() && fields.includes("user")) {
+                        userRepo.findById(userId).ifPresent(user -> dto.setUser(orderMapper.toDto(user)));
+                    }
+                    return dto;
+                });
+        if (orders.isEmpty()) {
+            return Optional.empty();
+        }
+
+        OrderDto order = orders.get(0);
+        if (fields.includes("orderItems")) {
+            order.setOrderItems(items(id, fields.nested("orderItems")));
+        }
+        return Optional.of(order);
+    }
+
+    /**
+     * Archived lines of orders dated in the range, as detached entities with their order and product
+     */
+    @Transactional(readOnly = true)
+    public List<OrderItem> findItemsByOrderDate(LocalDate startDate, LocalDate endDate) {
+        Map<Long, Order> orders = new HashMap<>();
+        Map<Long, Long> orderUsers = new HashMap<>();
+        List<Long> productIds = new ArrayList<>();
+        List<OrderItem> items = jdbcTemplate.query(
+                "SELECT i.id, i.product_id, i.quantity, i.unit_price, i.created_at, i.order_id, o.user_id, o.order_date, " +
+                        "o.created_at AS order_created_at, o.updated_at AS order_updated_at, o.total_amount, " +
+                        "o.shipping_address, o.shipping_city, o.shipping_zip_code, o.shipping_country " +
+                        "FROM orders_archive o JOIN order_items_archive i ON i.order_id = o.id " +
+                        "WHERE o.order_date BETWEEN :startDate AND :endDate ORDER BY i.id",
+                new MapSqlParameterSource("startDate", startDate).addValue("endDate", endDate),
+                (rs, rowNum) -> {
+                    Order order = orders.get(rs.getLong("order_id"));
+                    if (order == null) {
+                        order = new Order();
+                        order.setId(rs.getLong("order_id"));
+                        order.setOrderDate(rs.getDate("order_date").toLocalDate());
+                        order.setCreatedAt(toLocalDateTime(rs.getTimestamp("order_created_at")));
+                        order.setUpdatedAt(toLocalDateTime(rs.getTimestamp("order_updated_at")));
+                        order.setTotalAmount(rs.getDouble("total_amount"));
+                        order.setShippingAddress(rs.getString("shipping_address"));
+                        order.setShippingCity(rs.getString("shipping_city"));
+                        order.setShippingZipCode(rs.getString("shipping_zip_code"));
+                        order.setShippingCountry(rs.getString("shipping_country"));
+                        long userId = rs.getLong("user_id");
+                        if (!rs.wasNull()) {
+                            orderUsers.put(order.getId(), userId);
+                        }
+                        orders.put(order.getId(), order);
+                    }
+
+                    OrderItem item = new OrderItem();
+                    item.setId(rs.getLong("id"));
+                    item.setOrder(order);
+                    item.setQuantity(rs.getInt("quantity"));
+                    item.setUnitPrice(rs.getDouble("unit_price"));
+                    item.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+                    order.getOrderItems().add(item);
+                    long productId = rs.getLong("product_id");
+                    productIds.add(rs.wasNull() ? null : productId);
+                    return item;
+                });
+        if (items.isEmpty()) {
+            return items;
+        }
+
+        // One query each for the users and products of the whole range
+        Map<Long, User> users = userRepo.findAllById(orderUsers.values()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        orderUsers.forEach((orderId, userId) -> orders.get(orderId).setUser(users.get(userId)));
+        Map<Long, Product> products = productRepo.findAllById(productIds.stream().filter(Objects::nonNull).toList()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setProduct(products.get(productIds.get(i)));
+        }
+        return items;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private List<OrderItemDto> items(Long orderId, FieldSet fields) {
+        List<Long> productIds = new ArrayList<>();
+        List<OrderItemDto> items = jdbcTemplate.query(
+                "SELECT id, product_id, quantity, unit_price FROM order_items_archive WHERE order_id = :orderId ORDER BY id",
+                Map.of("orderId", orderId),
+                (rs, rowNum) -> {
+                    OrderItemDto dto = new OrderItemDto();
+                    dto.setId(rs.getLong("id"));
+                    dto.setQuantity(rs.getInt("quantity"));
+                    dto.setUnitPrice(rs.getDouble("unit_price"));
+                    dto.setTotalAmount(dto.getUnitPrice() * dto.getQuantity());
+                    productIds.add(rs.getLong("product_id"));
+                    return dto;
+                });
+
+        if (fields.includes("product") && !items.isEmpty()) {
+            FieldSet productFields = fields.nested("product");
+            Map<Long, Product> products = productRepo.findAllById(productIds).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            for (int i = 0; i < items.size(); i++) {
+                Product product = products.get(productIds.get(i));
+                if (product != null) {
+                    items.get(i).setProduct(orderMapper.toDto(product, productFields));
+                }
+            }
+        }
+        return items;
+    }
+}
@@ -11,9 +11,12 @@ import com.example.demo.repositories.ProductRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Service for managing order items in the e-commerce system.
@@ -24,12 +27,21 @@ public class OrderItemService {
     @Autowired
     private OrderItemRepo orderItemRepo;
 
+    @Autowired
+    private ResultStreamingService resultStreamingService;
+
     @Autowired
     private OrderRepo orderRepo;
 
     @Autowired
     private ProductRepo productRepo;
 
+    @Autowired
+    private OrderSummaries orderSummaries;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
     /**
      * Get all order items (admin function)
      */
@@ -37,6 +49,14 @@ public class OrderItemService {
         return orderItemRepo.findAll();
     }
 
+    /**
+     * Stream all order items as a JSON array, one row at a time
+     */
+    public StreamingResponseBody streamAll() {
+        return resultStreamingService.stream("SELECT oi FROM OrderItem oi ORDER BY oi.id", OrderItem.class,
+                Function.identity());
+    }
+
     /**
      * Get order item by ID
      */
@@ -61,6 +81,7 @@ public class OrderItemService {
     /**
      * Get top selling products based on order items
      */
+    @Transactional(readOnly = true)
     public List<Object[]> getTopSellingProducts(int limit) {
         return orderItemRepo.findTopSellingProducts(limit);
     }
@@ -97,11 +118,16 @@ public class OrderItemService {
             item.setUnitPrice(product.getPrice());
         }
 
+        item.setOrder(order);
+        item.setProduct(product);
         OrderItem savedItem = orderItemRepo.save(item);
+        // The total and the summary are computed from the order's lines
+        order.getOrderItems().add(savedItem);
 
         // Recalculate order total
         order.calculateTotalAmount();
         orderRepo.save(order);
+        orderSummaries.record(order);
 
         return savedItem;
     }
@@ -134,6 +160,7 @@ public class OrderItemService {
         // Recalculate order total
         order.calculateTotalAmount();
         orderRepo.save(order);
+        orderSummaries.record(order);
 
         return savedItem;
     }
@@ -161,6 +188,7 @@ public class OrderItemService {
         // Recalculate order total
         order.calculateTotalAmount();
         orderRepo.save(order);
+        orderSummaries.record(order);
 
         return savedItem;
     }
@@ -177,24 +205,30 @@ public class OrderItemService {
 
 
 
-        orderItemRepo.deleteById(id);
+        order.getOrderItems().remove(item);
+        orderItemRepo.delete(item);
 
         // Recalculate order total
         order.calculateTotalAmount();
         orderRepo.save(order);
+        orderSummaries.record(order);
     }
 
     /**
      * Get total sales by product
      */
+    @Transactional(readOnly = true)
     public List<Object[]> getTotalSalesByProduct() {
         return orderItemRepo.calculateTotalSalesByProduct();
     }
 
     /**
-     * Get items sold in a specific date range
+     * Get items sold in a specific date range, including archived orders
      */
+    @Transactional(readOnly = true)
     public List<OrderItem> getItemsSoldInDateRange(java.time.LocalDate startDate, java.time.LocalDate endDate) {
-        return orderItemRepo.findByOrderOrderDateBetween(startDate, endDate);
+        List<OrderItem> items = new ArrayList<>(orderItemRepo.findByOrderOrderDateBetween(startDate, endDate));
+        items.addAll(orderArchive.findItemsByOrderDate(startDate, endDate));
+        return items;
     }
 }
\ No newline at end of file
@@ -1,17 +1,25 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.FieldSet;
 import com.example.demo.dto.OrderDto;
+import com.example.demo.dto.OrderFilter;
 import com.example.demo.dto.OrderMapper;
+import com.example.demo.dto.OrderSummaryPage;
+import com.example.demo.dto.SparseFields;
 import com.example.demo.entities.*;
 import com.example.demo.exceptions.InsufficientInventoryException;
 import com.example.demo.exceptions.InvalidOrderStateException;
 import com.example.demo.exceptions.ResourceNotFoundException;
 import com.example.demo.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,8 +34,16 @@ import java.util.stream.Collectors;
  */
 @Service
 public class OrderService {
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private OrderRepo orderRepo;
+
+    @Autowired
+    private ResultStreamingService resultStreamingService;
     @Autowired
     private OrderMapper orderMapper;
 
@@ -44,32 +60,60 @@ public class OrderService {
     @Autowired
     private ProductRepo productRepo;
 
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private OrderSummaries orderSummaries;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
     /**
-     * Get all orders with optional pagination
+     * Get a page of orders by id; pass the last id of a page as afterId for the next one
      */
     public List<OrderDto> getAllPaginated() {
-        return orderRepo.findAll()
-                .stream()
-                .map(orderMapper::toDto)
-                .collect(Collectors.toList());
+        return getAllPaginated(FieldSet.ALL, null, DEFAULT_PAGE_SIZE);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDto> getAllPaginated(FieldSet fields, Long afterId, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return toDtos(orderRepo.findPageAfterId(afterId != null ? afterId : 0L, PageRequest.ofSize(pageSize)), fields);
     }
 
     /**
      * Get all orders (without pagination)
      */
     public List<OrderDto> getAll() {
-        return orderRepo.findAll().
-                stream()
-                .map(orderMapper::toDto)
-                .collect(Collectors.toList());
+        return getAll(FieldSet.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDto> getAll(FieldSet fields) {
+        return toDtos(orderRepo.findAll(), fields);
+    }
+
+    /**
+     * Stream all orders as a JSON array, one row at a time
+     */
+    public StreamingResponseBody streamAll(FieldSet fields) {
+        return resultStreamingService.stream("SELECT o FROM Order o ORDER BY o.id", Order.class,
+                order -> orderMapper.toDto(order, fields), SparseFields.orderFilters(fields));
     }
 
     /**
      * Get order by ID
      */
     public Optional<OrderDto> getById(Long id) {
+        return getById(id, FieldSet.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<OrderDto> getById(Long id, FieldSet fields) {
         return orderRepo.findById(id)
-                .map(order -> orderMapper.toDto(order));
+                .map(order -> orderMapper.toDto(order, fields))
+                .or(() -> orderArchive.findOrder(id, fields));
     }
 
 
@@ -78,10 +122,27 @@ public class OrderService {
      */
     public List<OrderDto> getByUserEmail(String email)
     {
-        return orderRepo.findByUser_Email(email)
-                .stream()
-                .map(orderMapper::toDto)
-                .collect(Collectors.toList());
+        return getByUserEmail(email, FieldSet.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDto> getByUserEmail(String email, FieldSet fields) {
+        return toDtos(orderRepo.findByUser_Email(email), fields);
+    }
+
+    /**
+     * Order history from the summary read model, newest first; open an order with getById
+     */
+    public OrderSummaryPage getOrderHistory(Long userId, String after, int size) {
+        return orderSummaries.page(userId, after, size);
+    }
+
+    public OrderSummaryPage getOrderHistory(String email, String after, int size) {
+        User user = userRepo.findByEmail(email);
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found with email: " + email);
+        }
+        return orderSummaries.page(user.getId(), after, size);
     }
 
     /**
@@ -93,10 +154,12 @@ public class OrderService {
      * Get orders by date range with pagination
      */
     public List<OrderDto> getByDateRange(LocalDate startDate, LocalDate endDate) {
-        return orderRepo.findByOrderDateBetween(startDate, endDate)
-                .stream()
-                .map(orderMapper::toDto)
-                .collect(Collectors.toList());
+        return getByDateRange(startDate, endDate, FieldSet.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDto> getByDateRange(LocalDate startDate, LocalDate endDate, FieldSet fields) {
+        return toDtos(orderRepo.findByOrderDateBetween(startDate, endDate), fields);
     }
 
     /**
@@ -105,10 +168,30 @@ public class OrderService {
     public List<OrderDto> filterOrders(Long userId,
                                     LocalDate startDate, LocalDate endDate,
                                     Double minAmount) {
-        return orderRepo.findOrdersByFilters(userId,startDate, endDate, minAmount)
-                .stream()
-                .map(orderMapper::toDto)
-                .collect(Collectors.toList());
+        return filterOrders(userId, startDate, endDate, minAmount, FieldSet.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDto> filterOrders(Long userId,
+                                       LocalDate startDate, LocalDate endDate,
+                                       Double minAmount, FieldSet fields) {
+        OrderFilter filter = new OrderFilter();
+        filter.setUserId(userId);
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        filter.setMinAmount(minAmount);
+        return filterOrders(filter, fields);
+    }
+
+    /**
+     * Filter, sort and keyset-page orders; only the filters that are set reach the SQL
+     */
+    @Transactional(readOnly = true)
+    public List<OrderDto> filterOrders(OrderFilter filter, FieldSet fields) {
+        if (filter.getLimit() != null) {
+            filter.setLimit(Math.min(Math.max(filter.getLimit(), 1), MAX_PAGE_SIZE));
+        }
+        return toDtos(orderRepo.findByFilter(filter), fields);
     }
 
     /**
@@ -129,7 +212,9 @@ public class OrderService {
         order.setUpdatedAt(LocalDateTime.now());
 
 
-        return orderRepo.save(order);
+        Order saved = orderRepo.save(order);
+        orderSummaries.record(saved);
+        return saved;
     }
 
     /**
@@ -170,6 +255,7 @@ public class OrderService {
 
 
         orderRepo.deleteById(id);
+        orderSummaries.delete(id);
     }
 
 
@@ -253,17 +339,12 @@ public class OrderService {
         // Update order total
         order.setTotalAmount(totalAmount);
         try {
-             orderRepo.save(order);
-        } catch (Exception e) {
-            e.printStackTrace(); // או לוג
-            System.out.println("שגיאה: " + e.getMessage());
-            Throwable cause = e.getCause();
-            while (cause != null) {
-                System.out.println("Caused by: " + cause.getMessage());
-                cause = cause.getCause();
-            }
-            throw e; // כדי לראות בדיוק מה קרה
+            orderRepo.save(order);
+        } catch (RuntimeException e) {
+            log.error("Saving order from cart {} failed", cartId, e);
+            throw e;
         }
+        orderSummaries.record(order);
 
         // Deactivate the cart
         cart.setActive(false);
@@ -293,17 +374,33 @@ public class OrderService {
     /**
      * Get revenue statistics by date range
      */
+    @Transactional(readOnly = true)
     public List<Object[]> getRevenueByDateRange(LocalDate startDate, LocalDate endDate) {
-        return orderRepo.sumOrderAmountsByDate(startDate, endDate);
+        // Live and archived orders; the native query returns java.sql.Date
+        List<Object[]> rows = orderRepo.sumOrderAmountsByDate(startDate, endDate);
+        for (Object[] row : rows) {
+            if (row[0] instanceof java.sql.Date date) {
+                row[0] = date.toLocalDate();
+            }
+        }
+        return rows;
     }
 
     /**
      * Get recent orders
      */
     public List<OrderDto> getRecentOrders() {
-        return orderRepo.findTop10ByOrderByCreatedAtDesc()
-                .stream()
-                .map(orderMapper::toDto)
+        return getRecentOrders(FieldSet.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDto> getRecentOrders(FieldSet fields) {
+        return toDtos(orderRepo.findTop10ByOrderByCreatedAtDesc(), fields);
+    }
+
+    private List<OrderDto> toDtos(List<Order> orders, FieldSet fields) {
+        return orders.stream()
+                .map(order -> orderMapper.toDto(order, fields))
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
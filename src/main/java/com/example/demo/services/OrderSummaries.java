@@ -0,0 +1,122 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.dto.OrderSummaryPage;
+import com.example.demo.entities.Order;
+import com.example.demo.entities.OrderItem;
+import com.example.demo.entities.OrderSummary;
+import com.example.demo.repositories.OrderSummaryRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Order history read model. Each order has one OrderSummary row, rewritten in the
+ * transaction that creates the order or changes its lines. History pages are read
+ * newest first with a keyset cursor on (createdAt, orderId), so a deep page costs
+ * the same as the first one.
+ */
+@Service
+public class OrderSummaries {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private OrderSummaryRepo summaryRepo;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    /**
+     * Write or refresh the summary of a saved order from its current lines
+     */
+    @Transactional
+    public void record(Order order) {
+        if (order.getId() == null || order.getUser() == null) {
+            return;
+        }
+        OrderSummary summary = summaryRepo.findById(order.getId()).orElseGet(() -> {
+            OrderSummary created = new OrderSummary();
+            created.setOrderId(order.getId());
+            return created;
+        });
+        summary.setUserId(order.getUser().getId());
+        // MySQL keeps microseconds; the cursor has to compare equal to the stored value
+        LocalDateTime createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        summary.setCreatedAt(createdAt.truncatedTo(ChronoUnit.MICROS));
+        summary.setOrderDate(order.getOrderDate());
+        summary.setTotalAmount(order.getTotalAmount());
+        summary.setItemCount(order.getOrderItems().stream().mapToInt(OrderItem::getQuantity).sum());
+        summary.setThumbnail(order.getOrderItems().stream()
+                .filter(item -> item.getProduct() != null)
+                .findFirst()
+                .map(item -> orderMapper.thumbnail(item.getProduct()))
+                .orElse(null));
+        summaryRepo.save(summary);
+    }
+
+    /**
+     * Drop the summary of a deleted order
+     */
+    @Transactional
+    public void delete(Long orderId) {
+        summaryRepo.findById(orderId).ifPresent(summaryRepo::delete);
+    }
+
+    /**
+     * A page of the user's orders, newest first. after is the nextCursor of the
+     * previous page, null for the first; throws IllegalArgumentException for a bad cursor.
+     */
+    @Transactional(readOnly = true)
+    public OrderSummaryPage page(Long userId, String after, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // One extra row says whether another page follows
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+        List<OrderSummary> rows;
+        if (after == null || after.isBlank()) {
+            rows = summaryRepo.findFirstPage(userId, limit);
+        } else {
+            Cursor cursor = Cursor.decode(after);
+            rows = summaryRepo.findPageAfter(userId, cursor.createdAt(), cursor.orderId(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        OrderSummaryPage page = new OrderSummaryPage();
+        page.setItems(rows.stream().map(orderMapper::toDto).toList());
+        if (hasMore) {
+            OrderSummary last = rows.get(rows.size() - 1);
+            page.setNextCursor(new Cursor(last.getCreatedAt(), last.getOrderId()).encode());
+        }
+        return page;
+    }
+
+    // Opaque to clients; only this class reads it back
+    record Cursor(LocalDateTime createdAt, Long orderId) {
+
+        String encode() {
+            String raw = createdAt + "|" + orderId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.services;
+
+import com.example.demo.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs password hashing and verification on the bounded passwordHashExecutor.
+ * When the executor is saturated callers get a TooManyRequestsException (429)
+ * rather than more CPU-bound hashes competing with request threads.
+ */
+@Service
+public class PasswordHasher {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${app.auth.hash-timeout:PT5S}")
+    private Duration timeout;
+
+    // Verified against when the account does not exist, so unknown emails take as long as wrong passwords
+    private volatile String dummyHash;
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether the password matches; a null hash (unknown account) costs the same as a mismatch
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            String dummy = dummyHash();
+            run(() -> passwordEncoder.matches(rawPassword, dummy));
+            return false;
+        }
+        return Boolean.TRUE.equals(run(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = run(() -> passwordEncoder.encode("not-a-real-password"));
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (TaskRejectedException e) {
+            throw new TooManyRequestsException("Too many sign-in attempts in progress, please retry shortly");
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TooManyRequestsException("Too many sign-in attempts in progress, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.PasswordResetToken;
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.repositories.PasswordResetTokenRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Password reset tokens. The raw token only ever exists in the response to the
+ * user; the table holds its SHA-256. Requests are rate limited per email before any
+ * lookup, so a flood neither fills the table nor reveals which emails exist.
+ */
+@Service
+public class PasswordResetTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordResetTokens.class);
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private PasswordResetTokenRepo tokenRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.auth.reset-token-ttl:PT30M}")
+    private Duration ttl;
+
+    private final SlidingWindowRateLimiter limiter;
+
+    public PasswordResetTokens(@Value("${app.auth.reset-limit:3}") int limit,
+                               @Value("${app.auth.reset-limit-window:PT15M}") Duration window) {
+        this.limiter = new SlidingWindowRateLimiter(limit, window, 100_000);
+    }
+
+    /**
+     * Throws TooManyRequestsException once the email has used up its reset requests
+     */
+    public void checkRateLimit(String email) {
+        if (!limiter.tryAcquire(email.trim().toLowerCase(Locale.ROOT))) {
+            throw new TooManyRequestsException("Too many password reset requests, please try again later");
+        }
+    }
+
+    /**
+     * New token for the user, replacing any earlier one; returns the raw token
+     */
+    @Transactional
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        tokenRepo.deleteByUserId(userId);
+        tokenRepo.save(new PasswordResetToken(hash(token), userId, LocalDateTime.now().plus(ttl)));
+        return token;
+    }
+
+    /**
+     * Single use: the token row is locked and deleted, so of two concurrent resets
+     * with the same token only one gets the user id. Joins the caller's transaction, so
+     * the token is only used up if the password change commits.
+     */
+    @Transactional
+    public Optional<Long> consume(String token) {
+        Optional<PasswordResetToken> found = tokenRepo.lockByTokenHash(hash(token));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        PasswordResetToken resetToken = found.get();
+        tokenRepo.delete(resetToken);
+        if (resetToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(resetToken.getUserId());
+    }
+
+    @Scheduled(initialDelayString = "PT5M", fixedDelayString = "${app.auth.reset-token-purge-interval:PT15M}")
+    public void purgeExpired() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        try {
+            Integer deleted;
+            do {
+                deleted = transaction.execute(status -> tokenRepo.deleteExpired(now, PURGE_BATCH_SIZE));
+                total += deleted != null ? deleted : 0;
+            } while (deleted != null && deleted == PURGE_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.error("Password reset token purge failed", e);
+        }
+        limiter.evictIdle();
+        if (total > 0) {
+            log.info("Purged {} expired password reset tokens", total);
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
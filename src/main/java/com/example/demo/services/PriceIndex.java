@@ -0,0 +1,525 @@
+package com.example.demo.services;
+
+import com.example.demo.events.CatalogChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * In-memory price-sorted index of products: parallel double[] prices and long[] ids,
+ * ordered by (price, id), for the whole catalog, the active products, and the same
+ * two per category. Range queries are two binary searches and a slice.
+ * <p>
+ * Readers use an immutable snapshot. Product changes are applied copy-on-write right
+ * after commit; a bulk chunk's products are read with one query and merged into each
+ * segment in one pass. Changes of unknown scope drop the index and rebuild it in the
+ * background, with callers falling back to the database meanwhile.
+ */
+@Service
+public class PriceIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceIndex.class);
+
+    private static final int LOAD_PAGE = 1_000;
+
+    // Ids re-read after a rebuild; past this many, the rebuild starts over instead
+    static final int DIRTY_LIMIT = 10_000;
+
+    // A failed rebuild is retried after FIRST_RETRY, waiting twice as long after every further failure
+    private static final Duration FIRST_RETRY = Duration.ofSeconds(5);
+    private static final Duration MAX_RETRY = Duration.ofMinutes(5);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    @Qualifier("catalogSnapshotExecutor")
+    private TaskExecutor executor;
+
+    // null while (re)building
+    private volatile Index current;
+
+    // Writer state, guarded by this
+    private Map<Long, Row> rows = new HashMap<>();
+    // Changed while a rebuild is reading; null when no rebuild is running
+    private Set<Long> dirty;
+    private long epoch;
+    private boolean rebuildScheduled;
+    private Duration retryDelay = FIRST_RETRY;
+    // Earliest time of the next retry; null when none is due
+    private Instant retryAt;
+
+    /**
+     * Products priced in [minPrice, maxPrice], cheapest first, optionally within one
+     * category and/or only active ones; null when the index is not ready
+     */
+    public Slice range(double minPrice, double maxPrice, Long categoryId, boolean activeOnly, int offset, int limit) {
+        Index index = current;
+        if (index == null) {
+            return null;
+        }
+        Segment segment = index.segment(categoryId, activeOnly);
+        if (segment == null) {
+            return new Slice(new long[0], 0);
+        }
+        int from = segment.lowerBound(minPrice);
+        int to = segment.upperBound(maxPrice);
+        int total = Math.max(0, to - from);
+        int start = (int) Math.min((long) from + Math.max(0, offset), to);
+        int end = (int) Math.min((long) start + Math.max(0, limit), to);
+        return new Slice(Arrays.copyOfRange(segment.ids, start, Math.max(start, end)), total);
+    }
+
+    /**
+     * Product ids of one page, in price order, and the number of matches overall
+     */
+    public record Slice(long[] ids, int total) {
+
+        public List<Long> idList() {
+            List<Long> list = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                list.add(id);
+            }
+            return list;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        scheduleRebuild();
+    }
+
+    // Before CatalogVersions, so a fresh ETag never comes with stale search results
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getType() != CatalogChangedEvent.Type.PRODUCT) {
+            return;
+        }
+        Set<Long> ids = event.ids();
+        if (ids == null) {
+            restart();
+            return;
+        }
+        if (current == null) {
+            // Without a running rebuild there is nothing to patch; the next one reads everything
+            if (dirty != null) {
+                dirty.addAll(ids);
+                if (dirty.size() > DIRTY_LIMIT) {
+                    restart();
+                }
+            }
+            return;
+        }
+        // Read under the lock so two commits to the same product apply in order
+        Map<Long, Row> loaded = event.isRemoved() ? Map.of() : loadRows(ids);
+        if (ids.size() == 1) {
+            Long id = ids.iterator().next();
+            apply(id, loaded.get(id));
+        } else {
+            applyAll(ids, loaded);
+        }
+    }
+
+    private void apply(long id, Row row) {
+        Row old = row != null ? rows.put(id, row) : rows.remove(id);
+        if (row != null && row.equals(old)) {
+            return;
+        }
+        current = current.replace(id, old, row);
+    }
+
+    private void applyAll(Set<Long> ids, Map<Long, Row> loaded) {
+        Map<Long, Row> old = new HashMap<>();
+        Map<Long, Row> updated = new HashMap<>();
+        for (Long id : ids) {
+            Row row = loaded.get(id);
+            Row previous = row != null ? rows.put(id, row) : rows.remove(id);
+            if (Objects.equals(row, previous)) {
+                continue;
+            }
+            if (previous != null) {
+                old.put(id, previous);
+            }
+            if (row != null) {
+                updated.put(id, row);
+            }
+        }
+        if (!old.isEmpty() || !updated.isEmpty()) {
+            current = current.replaceAll(old, updated);
+        }
+    }
+
+    // Drop the index; a running rebuild is discarded when it finishes
+    private void restart() {
+        epoch++;
+        current = null;
+        dirty = null;
+        scheduleRebuild();
+    }
+
+    @Scheduled(initialDelayString = "PT5S", fixedDelayString = "PT5S")
+    public synchronized void retryRebuild() {
+        if (retryAt != null && !Instant.now().isBefore(retryAt)) {
+            retryAt = null;
+            scheduleRebuild();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled) {
+            return;
+        }
+        rebuildScheduled = true;
+        try {
+            executor.execute(this::rebuild);
+        } catch (TaskRejectedException e) {
+            rebuildScheduled = false;
+            scheduleRetry();
+            log.warn("Price index rebuild rejected, price queries use the database: {}", e.getMessage());
+        }
+    }
+
+    private void scheduleRetry() {
+        retryAt = Instant.now().plus(retryDelay);
+        retryDelay = retryDelay.multipliedBy(2).compareTo(MAX_RETRY) < 0 ? retryDelay.multipliedBy(2) : MAX_RETRY;
+    }
+
+    private void rebuild() {
+        long startEpoch;
+        synchronized (this) {
+            rebuildScheduled = false;
+            startEpoch = epoch;
+            dirty = new HashSet<>();
+        }
+
+        try {
+            Map<Long, Row> loaded = new HashMap<>();
+            jdbcTemplate.query("SELECT id, price, category_id, active FROM product", rs -> {
+                long categoryId = rs.getLong(3);
+                loaded.put(rs.getLong(1), new Row(rs.getDouble(2), rs.wasNull() ? null : categoryId, rs.getBoolean(4)));
+            });
+
+            synchronized (this) {
+                if (epoch != startEpoch) {
+                    return;
+                }
+                // Changed while we were reading; read them again
+                Map<Long, Row> reread = loadRows(dirty);
+                for (Long id : dirty) {
+                    Row row = reread.get(id);
+                    if (row != null) {
+                        loaded.put(id, row);
+                    } else {
+                        loaded.remove(id);
+                    }
+                }
+                dirty = null;
+                rows = loaded;
+                current = Index.build(loaded);
+                retryDelay = FIRST_RETRY;
+                retryAt = null;
+            }
+            log.info("Price index built for {} products", loaded.size());
+        } catch (RuntimeException e) {
+            Duration delay;
+            synchronized (this) {
+                delay = retryDelay;
+                if (epoch == startEpoch) {
+                    dirty = null;
+                    scheduleRetry();
+                }
+            }
+            log.warn("Price index rebuild failed, price queries use the database; retrying in {}", delay, e);
+        }
+    }
+
+    // Rows of the products that still exist, LOAD_PAGE ids per query
+    private Map<Long, Row> loadRows(Collection<Long> ids) {
+        Map<Long, Row> found = new HashMap<>();
+        List<Long> list = new ArrayList<>(ids);
+        for (int from = 0; from < list.size(); from += LOAD_PAGE) {
+            List<Long> page = list.subList(from, Math.min(from + LOAD_PAGE, list.size()));
+            namedJdbcTemplate.query("SELECT id, price, category_id, active FROM product WHERE id IN (:ids)",
+                    Map.of("ids", page),
+                    rs -> {
+                        long categoryId = rs.getLong(3);
+                        found.put(rs.getLong(1), new Row(rs.getDouble(2), rs.wasNull() ? null : categoryId, rs.getBoolean(4)));
+                    });
+        }
+        return found;
+    }
+
+    record Row(double price, Long categoryId, boolean active) {
+    }
+
+    /**
+     * Immutable set of segments; replace() returns a copy sharing untouched segments
+     */
+    record Index(Segment all, Segment active, Map<Long, Segment> allByCategory, Map<Long, Segment> activeByCategory) {
+
+        static Index build(Map<Long, Row> rows) {
+            Map<Long, List<Map.Entry<Long, Row>>> byCategory = new HashMap<>();
+            List<Map.Entry<Long, Row>> entries = new ArrayList<>(rows.entrySet());
+            for (Map.Entry<Long, Row> entry : entries) {
+                if (entry.getValue().categoryId() != null) {
+                    byCategory.computeIfAbsent(entry.getValue().categoryId(), c -> new ArrayList<>()).add(entry);
+                }
+            }
+            Map<Long, Segment> allByCategory = new HashMap<>();
+            Map<Long, Segment> activeByCategory = new HashMap<>();
+            byCategory.forEach((categoryId, list) -> {
+                allByCategory.put(categoryId, Segment.of(list, false));
+                activeByCategory.put(categoryId, Segment.of(list, true));
+            });
+            return new Index(Segment.of(entries, false), Segment.of(entries, true), allByCategory, activeByCategory);
+        }
+
+        Segment segment(Long categoryId, boolean activeOnly) {
+            if (categoryId == null) {
+                return activeOnly ? active : all;
+            }
+            return (activeOnly ? activeByCategory : allByCategory).get(categoryId);
+        }
+
+        Index replace(long id, Row old, Row row) {
+            Segment newAll = all.without(old, id).with(row, id);
+            Segment newActive = active.without(activeOnly(old), id).with(activeOnly(row), id);
+
+            Map<Long, Segment> newAllByCategory = allByCategory;
+            Map<Long, Segment> newActiveByCategory = activeByCategory;
+            Set<Long> categories = new HashSet<>();
+            if (old != null && old.categoryId() != null) {
+                categories.add(old.categoryId());
+            }
+            if (row != null && row.categoryId() != null) {
+                categories.add(row.categoryId());
+            }
+            if (!categories.isEmpty()) {
+                newAllByCategory = new HashMap<>(allByCategory);
+                newActiveByCategory = new HashMap<>(activeByCategory);
+                for (Long categoryId : categories) {
+                    Row oldInCategory = old != null && categoryId.equals(old.categoryId()) ? old : null;
+                    Row newInCategory = row != null && categoryId.equals(row.categoryId()) ? row : null;
+                    newAllByCategory.put(categoryId, newAllByCategory.getOrDefault(categoryId, Segment.EMPTY)
+                            .without(oldInCategory, id).with(newInCategory, id));
+                    newActiveByCategory.put(categoryId, newActiveByCategory.getOrDefault(categoryId, Segment.EMPTY)
+                            .without(activeOnly(oldInCategory), id).with(activeOnly(newInCategory), id));
+                }
+            }
+            return new Index(newAll, newActive, newAllByCategory, newActiveByCategory);
+        }
+
+        /**
+         * Copy with the old rows removed and the updated ones merged in, one pass per
+         * touched segment; both maps are keyed by product id
+         */
+        Index replaceAll(Map<Long, Row> old, Map<Long, Row> updated) {
+            Set<Long> changed = new HashSet<>(old.keySet());
+            changed.addAll(updated.keySet());
+            List<Map.Entry<Long, Row>> added = new ArrayList<>(updated.entrySet());
+            Segment newAll = all.merge(changed, Segment.of(added, false));
+            Segment newActive = active.merge(changed, Segment.of(added, true));
+
+            Map<Long, List<Map.Entry<Long, Row>>> addedByCategory = new HashMap<>();
+            Set<Long> categories = new HashSet<>();
+            for (Row row : old.values()) {
+                if (row.categoryId() != null) {
+                    categories.add(row.categoryId());
+                }
+            }
+            for (Map.Entry<Long, Row> entry : added) {
+                if (entry.getValue().categoryId() != null) {
+                    categories.add(entry.getValue().categoryId());
+                    addedByCategory.computeIfAbsent(entry.getValue().categoryId(), c -> new ArrayList<>()).add(entry);
+                }
+            }
+            Map<Long, Segment> newAllByCategory = new HashMap<>(allByCategory);
+            Map<Long, Segment> newActiveByCategory = new HashMap<>(activeByCategory);
+            for (Long categoryId : categories) {
+                List<Map.Entry<Long, Row>> inCategory = addedByCategory.getOrDefault(categoryId, List.of());
+                newAllByCategory.put(categoryId, newAllByCategory.getOrDefault(categoryId, Segment.EMPTY)
+                        .merge(changed, Segment.of(inCategory, false)));
+                newActiveByCategory.put(categoryId, newActiveByCategory.getOrDefault(categoryId, Segment.EMPTY)
+                        .merge(changed, Segment.of(inCategory, true)));
+            }
+            return new Index(newAll, newActive, newAllByCategory, newActiveByCategory);
+        }
+
+        private static Row activeOnly(Row row) {
+            return row != null && row.active() ? row : null;
+        }
+    }
+
+    /**
+     * Parallel arrays sorted by (price, id)
+     */
+    static final class Segment {
+
+        static final Segment EMPTY = new Segment(new double[0], new long[0]);
+
+        final double[] prices;
+        final long[] ids;
+
+        Segment(double[] prices, long[] ids) {
+            this.prices = prices;
+            this.ids = ids;
+        }
+
+        static Segment of(List<Map.Entry<Long, Row>> entries, boolean activeOnly) {
+            List<Map.Entry<Long, Row>> selected = new ArrayList<>(entries.size());
+            for (Map.Entry<Long, Row> entry : entries) {
+                if (!activeOnly || entry.getValue().active()) {
+                    selected.add(entry);
+                }
+            }
+            selected.sort((a, b) -> {
+                int byPrice = Double.compare(a.getValue().price(), b.getValue().price());
+                return byPrice != 0 ? byPrice : Long.compare(a.getKey(), b.getKey());
+            });
+            double[] prices = new double[selected.size()];
+            long[] ids = new long[selected.size()];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = selected.get(i).getValue().price();
+                ids[i] = selected.get(i).getKey();
+            }
+            return new Segment(prices, ids);
+        }
+
+        // First position whose price is >= price
+        int lowerBound(double price) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First position whose price is > price
+        int upperBound(double price) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Position of (price, id), or where it would be inserted
+        private int position(double price, long id) {
+            int low = lowerBound(price);
+            int high = upperBound(price);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] < id) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        Segment with(Row row, long id) {
+            if (row == null) {
+                return this;
+            }
+            int at = position(row.price(), id);
+            double[] newPrices = new double[prices.length + 1];
+            long[] newIds = new long[ids.length + 1];
+            System.arraycopy(prices, 0, newPrices, 0, at);
+            System.arraycopy(ids, 0, newIds, 0, at);
+            newPrices[at] = row.price();
+            newIds[at] = id;
+            System.arraycopy(prices, at, newPrices, at + 1, prices.length - at);
+            System.arraycopy(ids, at, newIds, at + 1, ids.length - at);
+            return new Segment(newPrices, newIds);
+        }
+
+        /**
+         * Copy without the removed ids and with the (sorted) added entries merged in
+         */
+        Segment merge(Set<Long> removed, Segment added) {
+            double[] newPrices = new double[prices.length + added.prices.length];
+            long[] newIds = new long[newPrices.length];
+            int n = 0;
+            int j = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (removed.contains(ids[i])) {
+                    continue;
+                }
+                while (j < added.ids.length && before(added.prices[j], added.ids[j], prices[i], ids[i])) {
+                    newPrices[n] = added.prices[j];
+                    newIds[n++] = added.ids[j++];
+                }
+                newPrices[n] = prices[i];
+                newIds[n++] = ids[i];
+            }
+            for (; j < added.ids.length; j++) {
+                newPrices[n] = added.prices[j];
+                newIds[n++] = added.ids[j];
+            }
+            return new Segment(Arrays.copyOf(newPrices, n), Arrays.copyOf(newIds, n));
+        }
+
+        private static boolean before(double price, long id, double otherPrice, long otherId) {
+            int byPrice = Double.compare(price, otherPrice);
+            return byPrice != 0 ? byPrice < 0 : id < otherId;
+        }
+
+        Segment without(Row row, long id) {
+            if (row == null) {
+                return this;
+            }
+            int at = position(row.price(), id);
+            if (at >= ids.length || ids[at] != id) {
+                return this;
+            }
+            double[] newPrices = new double[prices.length - 1];
+            long[] newIds = new long[ids.length - 1];
+            System.arraycopy(prices, 0, newPrices, 0, at);
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(prices, at + 1, newPrices, at, prices.length - at - 1);
+            System.arraycopy(ids, at + 1, newIds, at, ids.length - at - 1);
+            return new Segment(newPrices, newIds);
+        }
+    }
+}
@@ -0,0 +1,691 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ImportReport;
+import com.example.demo.dto.ProductImageDto;
+import com.example.demo.dto.ProductImportRow;
+import com.example.demo.dto.ProductSpecificationDto;
+import com.example.demo.dto.StockUpdateRecord;
+import com.example.demo.dto.StockUpdateReport;
+import com.example.demo.entities.ImageBlob;
+import com.example.demo.events.CatalogChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bulk catalog import and export in NDJSON or CSV, and the NDJSON price/stock sync.
+ * <p>
+ * Imports are read one row at a time and handled in chunks: each chunk is validated
+ * in parallel against a category map loaded once per import, then written with JDBC
+ * batches inside its own transaction. A failing chunk fails only its own rows.
+ * JDBC bypasses the entity listeners, so each chunk publishes one catalog change
+ * itself; blob reference counts are reconciled by the next blob GC mark pass.
+ */
+@Service
+public class ProductBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBulkService.class);
+
+    static final int CHUNK_SIZE = 500;
+
+    static final List<String> CSV_COLUMNS = List.of(
+            "name", "description", "price", "quantity", "brand", "model", "active",
+            "categoryId", "category", "images", "specifications");
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO product (name, description, price, quantity, brand, model, active, category_id, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IMAGE =
+            "INSERT INTO product_image (product_id, image_url, is_main, content_hash, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_SPECIFICATION =
+            "INSERT INTO product_specification (product_id, spec_name, spec_value) VALUES (?, ?, ?)";
+    // Computed in the database, so concurrent orders can't be lost between a read and a write
+    private static final String UPDATE_PRICE_STOCK =
+            "UPDATE product SET price = COALESCE(?, price), quantity = GREATEST(COALESCE(?, quantity) + ?, 0), " +
+                    "updated_at = ? WHERE id = ?";
+    private static final int[] UPDATE_PRICE_STOCK_TYPES = {Types.DOUBLE, Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.BIGINT};
+
+    public enum Format {
+        NDJSON,
+        CSV;
+
+        /**
+         * Explicit format wins, otherwise the file extension decides
+         */
+        public static Format resolve(String format, String filename) {
+            if (format != null && !format.isBlank()) {
+                try {
+                    return valueOf(format.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unsupported format: " + format);
+                }
+            }
+            if (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectReader rowReader;
+    private final ObjectReader updateReader;
+    private final ObjectWriter rowWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductBulkService(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.rowReader = objectMapper.readerFor(ProductImportRow.class);
+        this.updateReader = objectMapper.readerFor(StockUpdateRecord.class);
+        this.rowWriter = objectMapper.writerFor(ProductImportRow.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ---------------------------------------------------------------- import
+
+    public ImportReport importProducts(InputStream in, Format format) throws IOException {
+        CategoryLookup categories = loadCategories();
+        ImportReport report = new ImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        try (RowSource source = format == Format.CSV ? new CsvRows(reader) : new NdjsonRows(reader)) {
+            List<ParsedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            ParsedRow row;
+            while ((row = source.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, categories, report);
+                    chunk.clear();
+                }
+            }
+            importChunk(chunk, categories, report);
+        }
+
+        log.info("Bulk import finished: {} rows, {} imported, {} failed",
+                report.getTotal(), report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private void importChunk(List<ParsedRow> chunk, CategoryLookup categories, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        report.setTotal(report.getTotal() + chunk.size());
+
+        // Validation is pure CPU work over in-memory data, so the common pool is enough
+        List<ValidRow> valid = new ArrayList<>(chunk.size());
+        List<ParsedRow> checked = chunk.parallelStream()
+                .map(row -> row.error() != null ? row : validate(row, categories))
+                .toList();
+        for (ParsedRow row : checked) {
+            if (row.error() != null) {
+                report.addError(row.line(), row.error());
+            } else {
+                valid.add(new ValidRow(row.line(), row.row(), categories.resolve(row.row())));
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeChunk(valid));
+            report.setImported(report.getImported() + valid.size());
+        } catch (DataAccessException e) {
+            String message = "Chunk rejected by database: " + e.getMostSpecificCause().getMessage();
+            log.warn("Bulk import chunk starting at line {} failed", valid.get(0).line(), e);
+            valid.forEach(row -> report.addError(row.line(), message));
+        }
+    }
+
+    private ParsedRow validate(ParsedRow parsed, CategoryLookup categories) {
+        ProductImportRow row = parsed.row();
+        String error = null;
+        if (row.getName() == null || row.getName().isBlank()) {
+            error = "Product name is required";
+        } else if (row.getPrice() == null || row.getPrice() <= 0) {
+            error = "Price must be greater than 0";
+        } else if (row.getQuantity() != null && row.getQuantity() < 0) {
+            error = "Quantity cannot be negative";
+        } else if (row.getCategoryId() == null && (row.getCategory() == null || row.getCategory().isBlank())) {
+            error = "Category ID or name is required";
+        } else if (categories.resolve(row) == null) {
+            error = row.getCategoryId() != null
+                    ? "Category not found with id: " + row.getCategoryId()
+                    : "Category not found with name: " + row.getCategory();
+        }
+        return error == null ? parsed : new ParsedRow(parsed.line(), row, error);
+    }
+
+    private void writeChunk(List<ValidRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ProductImportRow row = rows.get(i).row();
+                        ps.setString(1, row.getName().trim());
+                        ps.setString(2, trimOrEmpty(row.getDescription()));
+                        ps.setDouble(3, row.getPrice());
+                        ps.setInt(4, row.getQuantity() != null ? row.getQuantity() : 0);
+                        ps.setString(5, trimOrEmpty(row.getBrand()));
+                        ps.setString(6, trimOrEmpty(row.getModel()));
+                        ps.setBoolean(7, row.getActive() == null || row.getActive());
+                        ps.setLong(8, rows.get(i).categoryId());
+                        ps.setTimestamp(9, now);
+                        ps.setTimestamp(10, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        if (keyList.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " generated ids, got " + keyList.size());
+        }
+
+        List<Long> productIds = new ArrayList<>(rows.size());
+        List<Object[]> images = new ArrayList<>();
+        List<Object[]> specifications = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            long productId = ((Number) keyList.get(i).values().iterator().next()).longValue();
+            productIds.add(productId);
+            ProductImportRow row = rows.get(i).row();
+            if (row.getImages() != null) {
+                for (ProductImageDto image : row.getImages()) {
+                    if (image.getImageUrl() != null && !image.getImageUrl().isBlank()) {
+                        String url = image.getImageUrl().trim();
+                        images.add(new Object[]{productId, url, image.isMain(), ImageBlob.hashFromUrl(url), now});
+                    }
+                }
+            }
+            if (row.getSpecifications() != null) {
+                for (ProductSpecificationDto spec : row.getSpecifications()) {
+                    if (spec.getSpecName() != null && !spec.getSpecName().isBlank()) {
+                        specifications.add(new Object[]{productId, spec.getSpecName().trim(), trimOrEmpty(spec.getSpecValue())});
+                    }
+                }
+            }
+        }
+        if (!images.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, images);
+        }
+        if (!specifications.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SPECIFICATION, specifications);
+        }
+
+        publishChanged(productIds);
+    }
+
+    // One event naming the chunk's products, so caches refresh just these rows in one pass; delivered after commit
+    private void publishChanged(Collection<Long> productIds) {
+        eventPublisher.publishEvent(CatalogChangedEvent.products(productIds, LocalDateTime.now()));
+    }
+
+    private CategoryLookup loadCategories() {
+        Map<Long, Long> byId = new HashMap<>();
+        Map<String, Long> byName = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM categories", rs -> {
+            long id = rs.getLong(1);
+            byId.put(id, id);
+            String name = rs.getString(2);
+            if (name != null) {
+                byName.putIfAbsent(name.trim().toLowerCase(Locale.ROOT), id);
+            }
+        });
+        return new CategoryLookup(byId, byName);
+    }
+
+    private static String trimOrEmpty(String value) {
+        return value != null ? value.trim() : "";
+    }
+
+    // Read-only after loading, so safe to share across the validation threads
+    private record CategoryLookup(Map<Long, Long> byId, Map<String, Long> byName) {
+        Long resolve(ProductImportRow row) {
+            if (row.getCategoryId() != null) {
+                return byId.get(row.getCategoryId());
+            }
+            return row.getCategory() == null ? null : byName.get(row.getCategory().trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private record ParsedRow(long line, ProductImportRow row, String error) {
+    }
+
+    private record ValidRow(long line, ProductImportRow row, long categoryId) {
+    }
+
+    private interface RowSource extends AutoCloseable {
+        ParsedRow next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private class NdjsonRows implements RowSource {
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new ParsedRow(line, rowReader.readValue(text), null);
+                } catch (JsonProcessingException e) {
+                    return new ParsedRow(line, null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static class CsvRows implements RowSource {
+        private final CsvReader csv;
+        private Map<String, Integer> header;
+
+        CsvRows(BufferedReader reader) {
+            this.csv = new CsvReader(reader);
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            if (header == null) {
+                List<String> names = csv.next();
+                if (names == null) {
+                    return null;
+                }
+                header = new HashMap<>();
+                for (int i = 0; i < names.size(); i++) {
+                    header.put(names.get(i).trim().replace("\uFEFF", ""), i);
+                }
+            }
+
+            List<String> fields;
+            do {
+                fields = csv.next();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            long line = csv.recordLine();
+            try {
+                return new ParsedRow(line, toRow(fields), null);
+            } catch (IllegalArgumentException e) {
+                return new ParsedRow(line, null, e.getMessage());
+            }
+        }
+
+        private ProductImportRow toRow(List<String> fields) {
+            ProductImportRow row = new ProductImportRow();
+            row.setName(field(fields, "name"));
+            row.setDescription(field(fields, "description"));
+            row.setPrice(parse(fields, "price", Double::valueOf));
+            row.setQuantity(parse(fields, "quantity", Integer::valueOf));
+            row.setBrand(field(fields, "brand"));
+            row.setModel(field(fields, "model"));
+            String active = field(fields, "active");
+            row.setActive(active == null ? null : Boolean.parseBoolean(active.trim()));
+            row.setCategoryId(parse(fields, "categoryId", Long::valueOf));
+            row.setCategory(field(fields, "category"));
+
+            // images: url|url|... (first one is the main image)
+            String images = field(fields, "images");
+            if (images != null) {
+                List<ProductImageDto> list = new ArrayList<>();
+                for (String url : images.split("\\|")) {
+                    if (!url.isBlank()) {
+                        ProductImageDto image = new ProductImageDto();
+                        image.setImageUrl(url.trim());
+                        image.setMain(list.isEmpty());
+                        list.add(image);
+                    }
+                }
+                row.setImages(list);
+            }
+
+            // specifications: name=value|name=value
+            String specs = field(fields, "specifications");
+            if (specs != null) {
+                List<ProductSpecificationDto> list = new ArrayList<>();
+                for (String pair : specs.split("\\|")) {
+                    if (pair.isBlank()) {
+                        continue;
+                    }
+                    int eq = pair.indexOf('=');
+                    if (eq <= 0) {
+                        throw new IllegalArgumentException("Invalid specification '" + pair + "', expected name=value");
+                    }
+                    ProductSpecificationDto spec = new ProductSpecificationDto();
+                    spec.setSpecName(pair.substring(0, eq).trim());
+                    spec.setSpecValue(pair.substring(eq + 1).trim());
+                    list.add(spec);
+                }
+                row.setSpecifications(list);
+            }
+            return row;
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = header.get(column);
+            if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+                return null;
+            }
+            return fields.get(index);
+        }
+
+        private <T> T parse(List<String> fields, String column, Function<String, T> parser) {
+            String value = field(fields, column);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return parser.apply(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": " + value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+    }
+
+    // ---------------------------------------------------------------- price / stock sync
+
+    /**
+     * Apply NDJSON price/stock records in chunks: one batched UPDATE and one catalog
+     * invalidation per chunk. Records for the same product apply in file order.
+     */
+    public StockUpdateReport applyStockUpdates(InputStream in) throws IOException {
+        StockUpdateReport report = new StockUpdateReport();
+        List<NumberedUpdate> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String text;
+            long line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.setTotal(report.getTotal() + 1);
+
+                StockUpdateRecord record;
+                try {
+                    record = updateReader.readValue(text);
+                } catch (JsonProcessingException e) {
+                    report.addError(line, "Invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                String error = validate(record);
+                if (error != null) {
+                    report.addError(line, error);
+                    continue;
+                }
+
+                chunk.add(new NumberedUpdate(line, record));
+                if (chunk.size() == CHUNK_SIZE) {
+                    applyChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        applyChunk(chunk, report);
+
+        log.info("Bulk stock update finished: {} records, {} updated, {} failed",
+                report.getTotal(), report.getUpdated(), report.getFailed());
+        return report;
+    }
+
+    private String validate(StockUpdateRecord record) {
+        if (record.getProductId() == null) {
+            return "productId is required";
+        }
+        if (record.getPrice() == null && record.getQuantity() == null && record.getDelta() == null) {
+            return "Nothing to update: price, quantity or delta is required";
+        }
+        if (record.getPrice() != null && record.getPrice() <= 0) {
+            return "Price must be greater than 0";
+        }
+        if (record.getQuantity() != null && record.getQuantity() < 0) {
+            return "Quantity cannot be negative";
+        }
+        return null;
+    }
+
+    private void applyChunk(List<NumberedUpdate> chunk, StockUpdateReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<NumberedUpdate> missing = new ArrayList<>();
+        try {
+            Integer updated = transactionTemplate.execute(status -> {
+                Set<Long> ids = new HashSet<>();
+                chunk.forEach(update -> ids.add(update.record().getProductId()));
+                Set<Long> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                        "SELECT id FROM product WHERE id IN (:ids)", Map.of("ids", ids), Long.class));
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> args = new ArrayList<>(chunk.size());
+                Set<Long> changed = new LinkedHashSet<>();
+                for (NumberedUpdate update : chunk) {
+                    StockUpdateRecord record = update.record();
+                    if (!existing.contains(record.getProductId())) {
+                        missing.add(update);
+                        continue;
+                    }
+                    changed.add(record.getProductId());
+                    args.add(new Object[]{record.getPrice(), record.getQuantity(),
+                            record.getDelta() != null ? record.getDelta() : 0, now, record.getProductId()});
+                }
+                if (args.isEmpty()) {
+                    return 0;
+                }
+
+                jdbcTemplate.batchUpdate(UPDATE_PRICE_STOCK, args, UPDATE_PRICE_STOCK_TYPES);
+                publishChanged(changed);
+                return args.size();
+            });
+
+            report.setUpdated(report.getUpdated() + updated);
+            missing.forEach(update -> report.addError(update.line(),
+                    "Product not found with id: " + update.record().getProductId()));
+        } catch (DataAccessException e) {
+            String message = "Chunk rejected by database: " + e.getMostSpecificCause().getMessage();
+            log.warn("Bulk stock update chunk starting at line {} failed", chunk.get(0).line(), e);
+            chunk.forEach(update -> report.addError(update.line(), message));
+        }
+    }
+
+    private record NumberedUpdate(long line, StockUpdateRecord record) {
+    }
+
+    // ---------------------------------------------------------------- export
+
+    /**
+     * Whole catalog in id order, a page of products (plus their images and specs)
+     * at a time, in the same shape the import accepts
+     */
+    public StreamingResponseBody export(Format format) {
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == Format.CSV) {
+                writer.write(String.join(",", CSV_COLUMNS));
+                writer.write('\n');
+            }
+
+            long afterId = 0;
+            List<ProductImportRow> page;
+            do {
+                page = loadPage(afterId);
+                for (ProductImportRow row : page) {
+                    if (format == Format.CSV) {
+                        writeCsv(writer, row);
+                    } else {
+                        writer.write(rowWriter.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                }
+                writer.flush();
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == CHUNK_SIZE);
+        };
+    }
+
+    // Keyset paging keeps every page an index range scan, however deep the export goes
+    private List<ProductImportRow> loadPage(long afterId) {
+        Map<Long, ProductImportRow> products = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT p.id, p.name, p.description, p.price, p.quantity, p.brand, p.model, p.active, " +
+                        "p.category_id, c.name FROM product p LEFT JOIN categories c ON c.id = p.category_id " +
+                        "WHERE p.id > ? ORDER BY p.id LIMIT ?",
+                rs -> {
+                    ProductImportRow row = new ProductImportRow();
+                    row.setId(rs.getLong(1));
+                    row.setName(rs.getString(2));
+                    row.setDescription(rs.getString(3));
+                    row.setPrice(rs.getDouble(4));
+                    row.setQuantity(rs.getInt(5));
+                    row.setBrand(rs.getString(6));
+                    row.setModel(rs.getString(7));
+                    row.setActive(rs.getBoolean(8));
+                    long categoryId = rs.getLong(9);
+                    row.setCategoryId(rs.wasNull() ? null : categoryId);
+                    row.setCategory(rs.getString(10));
+                    row.setImages(new ArrayList<>());
+                    row.setSpecifications(new ArrayList<>());
+                    products.put(row.getId(), row);
+                },
+                afterId, CHUNK_SIZE);
+        if (products.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Object> ids = Map.of("ids", products.keySet());
+        namedJdbcTemplate.query(
+                "SELECT product_id, image_url, is_main FROM product_image WHERE product_id IN (:ids) ORDER BY id",
+                ids,
+                rs -> {
+                    ProductImageDto image = new ProductImageDto();
+                    image.setImageUrl(rs.getString(2));
+                    image.setMain(rs.getBoolean(3));
+                    products.get(rs.getLong(1)).getImages().add(image);
+                });
+        namedJdbcTemplate.query(
+                "SELECT product_id, spec_name, spec_value FROM product_specification WHERE product_id IN (:ids) ORDER BY id",
+                ids,
+                rs -> {
+                    ProductSpecificationDto spec = new ProductSpecificationDto();
+                    spec.setSpecName(rs.getString(2));
+                    spec.setSpecValue(rs.getString(3));
+                    products.get(rs.getLong(1)).getSpecifications().add(spec);
+                });
+        return new ArrayList<>(products.values());
+    }
+
+    private void writeCsv(Writer writer, ProductImportRow row) throws IOException {
+        // Main image first so that a re-import marks the same one as main
+        List<String> images = new ArrayList<>();
+        for (ProductImageDto image : row.getImages()) {
+            if (image.isMain()) {
+                images.add(0, image.getImageUrl());
+            } else {
+                images.add(image.getImageUrl());
+            }
+        }
+        List<String> specs = new ArrayList<>();
+        for (ProductSpecificationDto spec : row.getSpecifications()) {
+            specs.add(spec.getSpecName() + "=" + (spec.getSpecValue() != null ? spec.getSpecValue() : ""));
+        }
+
+        List<String> values = List.of(
+                CsvReader.quote(row.getName()),
+                CsvReader.quote(row.getDescription()),
+                String.valueOf(row.getPrice()),
+                String.valueOf(row.getQuantity()),
+                CsvReader.quote(row.getBrand()),
+                CsvReader.quote(row.getModel()),
+                String.valueOf(row.getActive()),
+                row.getCategoryId() != null ? String.valueOf(row.getCategoryId()) : "",
+                CsvReader.quote(row.getCategory()),
+                CsvReader.quote(String.join("|", images)),
+                CsvReader.quote(String.join("|", specs)));
+        writer.write(String.join(",", values));
+        writer.write('\n');
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.FieldSet;
 import com.example.demo.dto.OrderMapper;
 import com.example.demo.dto.ProductDto;
+import com.example.demo.dto.ProductFilter;
 import com.example.demo.dto.ProductImageDto;
 import com.example.demo.dto.ProductSpecificationDto;
 import com.example.demo.entities.Category;
@@ -13,6 +15,8 @@ import com.example.demo.repositories.CategoryRepo;
 import com.example.demo.repositories.ProductRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,10 +28,14 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
+    // Above this many matches a price search goes to the database instead of an id IN list
+    private static final int PRICE_INDEX_LOOKUP_LIMIT = 1000;
+
     @Autowired
     private ProductRepo productRepo;
 
@@ -36,6 +44,9 @@ public class ProductService {
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private PriceIndex priceIndex;
+
 
     public ProductService() {
     }
@@ -50,11 +61,24 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get all products with only the requested fields loaded
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDto> getAll(FieldSet fields) {
+        if (fields.isAll()) {
+            return getAll();
+        }
+        return productRepo.findProjected(new ProductFilter(), fields);
+    }
+
     /**
      * Get all active products (with pagination)
      */
     public List<ProductDto> getAllActive() {
-        return productRepo.findProductsByFilters(null, null, null, null, null)
+        ProductFilter filter = new ProductFilter();
+        filter.setActiveOnly(true);
+        return productRepo.findByFilter(filter)
                 .stream()
                 .map(orderMapper::toDto)
                 .collect(Collectors.toList());
@@ -68,6 +92,19 @@ public class ProductService {
                 .map(orderMapper::toDto);
     }
 
+    /**
+     * Get product by ID with only the requested fields loaded
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductDto> getById(Long id, FieldSet fields) {
+        if (fields.isAll()) {
+            return getById(id);
+        }
+        ProductFilter filter = new ProductFilter();
+        filter.setId(id);
+        return productRepo.findProjected(filter, fields).stream().findFirst();
+    }
+
     /**
      * Get products by category ID (with pagination)
      */
@@ -78,6 +115,19 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get products by category ID with only the requested fields loaded
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDto> getByCategoryId(Long categoryId, FieldSet fields) {
+        if (fields.isAll()) {
+            return getByCategoryId(categoryId);
+        }
+        ProductFilter filter = new ProductFilter();
+        filter.setCategoryId(categoryId);
+        return productRepo.findProjected(filter, fields);
+    }
+
     /**
      * Search products by name (with pagination)
      */
@@ -90,12 +140,54 @@ public class ProductService {
      */
     public List<ProductDto> searchProducts(String name, Long categoryId, String brand,
                                         Double minPrice, Double maxPrice) {
-        return productRepo.findProductsByFilters(name, categoryId, brand, minPrice, maxPrice)
+        List<Long> byPrice = priceIndexIds(name, categoryId, brand, minPrice, maxPrice);
+        if (byPrice != null) {
+            return inOrder(byPrice, productRepo.findAllById(byPrice), Product::getId)
+                    .stream()
+                    .map(orderMapper::toDto)
+                    .collect(Collectors.toList());
+        }
+        ProductFilter filter = new ProductFilter();
+        filter.setName(name);
+        filter.setCategoryId(categoryId);
+        filter.setBrand(brand);
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        filter.setActiveOnly(true);
+        return productRepo.findByFilter(filter)
                 .stream()
                 .map(orderMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Advanced product search with filters, loading only the requested fields
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDto> searchProducts(String name, Long categoryId, String brand,
+                                           Double minPrice, Double maxPrice, FieldSet fields) {
+        if (fields.isAll()) {
+            return searchProducts(name, categoryId, brand, minPrice, maxPrice);
+        }
+        List<Long> byPrice = priceIndexIds(name, categoryId, brand, minPrice, maxPrice);
+        if (byPrice != null) {
+            if (byPrice.isEmpty()) {
+                return new ArrayList<>();
+            }
+            ProductFilter filter = new ProductFilter();
+            filter.setIds(byPrice);
+            return inOrder(byPrice, productRepo.findProjected(filter, fields), ProductDto::getId);
+        }
+        ProductFilter filter = new ProductFilter();
+        filter.setName(name);
+        filter.setCategoryId(categoryId);
+        filter.setBrand(brand);
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        filter.setActiveOnly(true);
+        return productRepo.findProjected(filter, fields);
+    }
+
     /**
      * Get products by brand
      */
@@ -200,7 +292,7 @@ public class ProductService {
             existingProduct.setModel(productDTO.getModel().trim());
         }
         existingProduct.setActive(productDTO.isActive());
-        existingProduct.setUpdatedAt(LocalDateTime.now());
+        // updatedAt is set by @PreUpdate only when a column really changed, so an identical save writes nothing
 
         // Update category if provided
         if (productDTO.getCategoryId() != null && existingProduct.getCategory()!=null&&!productDTO.getCategoryId().equals(existingProduct.getCategory().getId())) {
@@ -209,37 +301,114 @@ public class ProductService {
             existingProduct.setCategory(category);
         }
 
-        // Update images if provided
+        // Merge child collections: only changed rows are inserted, updated or deleted
+        boolean childrenChanged = false;
         if (productDTO.getImages() != null) {
-            // Clear existing images that are not in the new list
-            existingProduct.getImages().clear();
+            childrenChanged |= mergeImages(existingProduct, productDTO.getImages());
+        }
+        if (productDTO.getSpecifications() != null) {
+            childrenChanged |= mergeSpecifications(existingProduct, productDTO.getSpecifications());
+        }
+        if (childrenChanged) {
+            existingProduct.setUpdatedAt(LocalDateTime.now());
+        }
 
-            for (ProductImageDto imageDTO : productDTO.getImages()) {
-                if (imageDTO.getImageUrl() != null && !imageDTO.getImageUrl().trim().isEmpty()) {
-                    ProductImage image = new ProductImage(existingProduct, imageDTO.getImageUrl().trim(), imageDTO.isMain());
-                    existingProduct.getImages().add(image);
-                }
+         productRepo.save(existingProduct);
+        return orderMapper.toDto(existingProduct);
+    }
+
+
+    /**
+     * Match incoming images to existing rows by id (same URL) or by URL. Matched rows
+     * are updated in place, unmatched rows removed, new URLs added. A collection that
+     * ends up unchanged is never touched, so Hibernate issues nothing for it.
+     * Returns whether anything changed.
+     */
+    private boolean mergeImages(Product product, List<ProductImageDto> incoming) {
+        Map<Long, ProductImage> byId = new HashMap<>();
+        Map<String, ProductImage> byUrl = new HashMap<>();
+        for (ProductImage image : product.getImages()) {
+            if (image.getId() != null) {
+                byId.put(image.getId(), image);
             }
+            byUrl.putIfAbsent(image.getImageUrl(), image);
         }
 
-        // Update specifications if provided
-        if (productDTO.getSpecifications() != null) {
-            existingProduct.getSpecifications().clear();
+        Set<ProductImage> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<ProductImage> added = new ArrayList<>();
+        boolean changed = false;
+        for (ProductImageDto imageDTO : incoming) {
+            if (imageDTO.getImageUrl() == null || imageDTO.getImageUrl().trim().isEmpty()) {
+                continue;
+            }
+            String url = imageDTO.getImageUrl().trim();
 
-            for (ProductSpecificationDto specDTO : productDTO.getSpecifications()) {
-                if (specDTO.getSpecName() != null && !specDTO.getSpecName().trim().isEmpty() &&
-                        specDTO.getSpecValue() != null && !specDTO.getSpecValue().trim().isEmpty()) {
-                    ProductSpecification spec = new ProductSpecification(existingProduct,
-                            specDTO.getSpecName().trim(), specDTO.getSpecValue().trim());
-                    existingProduct.getSpecifications().add(spec);
+            // A changed URL is a different file (and blob reference), so it becomes a new row
+            ProductImage match = imageDTO.getId() != null ? byId.get(imageDTO.getId()) : null;
+            if (match == null || !url.equals(match.getImageUrl())) {
+                match = byUrl.get(url);
+            }
+
+            if (match != null && kept.add(match)) {
+                if (match.isMain() != imageDTO.isMain()) {
+                    match.setMain(imageDTO.isMain());
+                    changed = true;
                 }
+            } else if (match == null) {
+                ProductImage image = new ProductImage(product, url, imageDTO.isMain());
+                byUrl.put(url, image);
+                kept.add(image);
+                added.add(image);
             }
         }
 
-         productRepo.save(existingProduct);
-        return orderMapper.toDto(existingProduct);
+        changed |= product.getImages().removeIf(image -> !kept.contains(image));
+        if (!added.isEmpty()) {
+            product.getImages().addAll(added);
+            changed = true;
+        }
+        return changed;
     }
 
+    /**
+     * Match incoming specifications to existing rows by name
+     */
+    private boolean mergeSpecifications(Product product, List<ProductSpecificationDto> incoming) {
+        Map<String, ProductSpecification> byName = new HashMap<>();
+        for (ProductSpecification spec : product.getSpecifications()) {
+            byName.putIfAbsent(spec.getSpecName(), spec);
+        }
+
+        Set<ProductSpecification> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<ProductSpecification> added = new ArrayList<>();
+        boolean changed = false;
+        for (ProductSpecificationDto specDTO : incoming) {
+            if (specDTO.getSpecName() == null || specDTO.getSpecName().trim().isEmpty() ||
+                    specDTO.getSpecValue() == null || specDTO.getSpecValue().trim().isEmpty()) {
+                continue;
+            }
+            String name = specDTO.getSpecName().trim();
+            String value = specDTO.getSpecValue().trim();
+
+            ProductSpecification match = byName.get(name);
+            if (match == null) {
+                ProductSpecification spec = new ProductSpecification(product, name, value);
+                byName.put(name, spec);
+                kept.add(spec);
+                added.add(spec);
+            } else if (kept.add(match) && !value.equals(match.getSpecValue())) {
+                match.setSpecValue(value);
+                changed = true;
+            }
+        }
+
+        changed |= product.getSpecifications().removeIf(spec -> !kept.contains(spec));
+        if (!added.isEmpty()) {
+            product.getSpecifications().addAll(added);
+            changed = true;
+        }
+        return changed;
+    }
 
     /**
      * Delete a specification
@@ -327,15 +496,64 @@ public class ProductService {
     /**
      * Get products by price range
      */
-    public List<Product> getProductsByPriceRange(double minPrice, double maxPrice) {
-        return productRepo.findByPriceBetween(minPrice, maxPrice);
+    public Page<Product> getProductsByPriceRange(double minPrice, double maxPrice, int page, int size) {
+        return getProductsByPriceRangeAndCategory(minPrice, maxPrice, null, page, size);
     }
 
     /**
-     * Get products by price range and category
+     * Get products by price range and category, cheapest first (category optional)
      */
-    public List<Product> getProductsByPriceRangeAndCategory(double minPrice, double maxPrice, Long categoryId) {
-        return productRepo.findByPriceRangeAndCategory(minPrice, maxPrice, categoryId);
+    @Transactional(readOnly = true)
+    public Page<Product> getProductsByPriceRangeAndCategory(double minPrice, double maxPrice, Long categoryId,
+                                                            int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        PriceIndex.Slice slice = priceIndex.range(minPrice, maxPrice, categoryId, false,
+                (int) Math.min(pageRequest.getOffset(), Integer.MAX_VALUE), size);
+        if (slice != null) {
+            List<Long> ids = slice.idList();
+            return new PageImpl<>(inOrder(ids, productRepo.findAllById(ids), Product::getId), pageRequest, slice.total());
+        }
+        // Index not ready: the same page from the (category_id,) price index
+        return categoryId == null
+                ? productRepo.findByPriceBetweenOrderByPriceAscIdAsc(minPrice, maxPrice, pageRequest)
+                : productRepo.findPageByPriceRangeAndCategory(minPrice, maxPrice, categoryId, pageRequest);
+    }
+
+    // Pure price filters (no name / brand) are answered from the index when the match set is small;
+    // null means ask the database
+    private List<Long> priceIndexIds(String name, Long categoryId, String brand, Double minPrice, Double maxPrice) {
+        if (name != null || brand != null || (minPrice == null && maxPrice == null)) {
+            return null;
+        }
+        PriceIndex.Slice slice = priceIndex.range(lower(minPrice), upper(maxPrice), categoryId, true, 0, PRICE_INDEX_LOOKUP_LIMIT);
+        if (slice == null || slice.total() > PRICE_INDEX_LOOKUP_LIMIT) {
+            return null;
+        }
+        return slice.idList();
+    }
+
+    private static double lower(Double minPrice) {
+        return minPrice != null ? minPrice : Double.NEGATIVE_INFINITY;
+    }
+
+    private static double upper(Double maxPrice) {
+        return maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY;
+    }
+
+    // findAllById / IN queries come back in id order; put them back in index (price) order
+    private static <T> List<T> inOrder(List<Long> ids, Collection<T> found, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T item : found) {
+            byId.put(id.apply(item), item);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long key : ids) {
+            T item = byId.get(key);
+            if (item != null) {
+                ordered.add(item);
+            }
+        }
+        return ordered;
     }
 
     /**
@@ -0,0 +1,324 @@
+package com.example.demo.services;
+
+import com.example.demo.config.ReplicaRouting;
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.dto.SparseFields;
+import com.example.demo.entities.Product;
+import com.example.demo.events.CatalogChangedEvent;
+import com.example.demo.repositories.ProductRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-optimized copy of every active product, pre-serialized as the JSON that
+ * GET /products/{id} returns, keyed by primitive id.
+ * <p>
+ * The table is split into shards; a write copies only its shard and swaps it in,
+ * so reads never lock or allocate. After a product change commits, the entry is
+ * dropped synchronously (before the ETag moves on) and reloaded on a single
+ * background thread; until then the controller falls back to the database.
+ */
+@Service
+public class ProductSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSnapshot.class);
+
+    private static final int SHARDS = 16;
+    private static final int PAGE_SIZE = 500;
+
+    private final AtomicReferenceArray<LongBytesTable> shards = new AtomicReferenceArray<>(SHARDS);
+
+    // Bumped under the shard lock on every invalidation, so in-flight reloads can tell they're stale
+    private final long[] shardVersions = new long[SHARDS];
+    private final Object[] shardLocks = new Object[SHARDS];
+
+    // Bumped by bulk invalidations; a rebuild that overlaps one is thrown away
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    // Ids invalidated while a full rebuild is running; guarded by the shard locks
+    private Set<Long> dirtyDuringRebuild;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    @Qualifier("catalogSnapshotExecutor")
+    private TaskExecutor executor;
+
+    private final ObjectWriter writer;
+    // Always run on the primary (ReplicaRouting.onPrimary): a lagging replica would cache stale products until their next change
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ProductSnapshot(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.writer = objectMapper.writer(SparseFields.productFilters(FieldSet.ALL));
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < SHARDS; i++) {
+            shards.set(i, LongBytesTable.EMPTY);
+            shardLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Serialized product, or null when it is inactive, unknown or not loaded yet
+     */
+    public byte[] get(long id) {
+        return id > 0 ? shards.get(shard(id)).get(id) : null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            size += shards.get(i).size();
+        }
+        return size;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        scheduleRebuild();
+    }
+
+    // Runs before CatalogVersions so a request can never pair the new ETag with the old bytes
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // Product JSON only carries the category id, so category edits don't affect it
+        if (event.getType() != CatalogChangedEvent.Type.PRODUCT) {
+            return;
+        }
+        Set<Long> ids = event.ids();
+        if (ids == null) {
+            invalidateAll();
+            scheduleRebuild();
+            return;
+        }
+        invalidate(ids);
+        if (!event.isRemoved()) {
+            pending.addAll(ids);
+            scheduleDrain();
+        }
+    }
+
+    // One copy per touched shard, however many of its ids a bulk chunk changed
+    private void invalidate(Set<Long> ids) {
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        for (Long id : ids) {
+            byShard.computeIfAbsent(shard(id), s -> new ArrayList<>()).add(id);
+        }
+        byShard.forEach((shard, shardIds) -> {
+            synchronized (shardLocks[shard]) {
+                shardVersions[shard]++;
+                LongBytesTable table = shards.get(shard);
+                LongBytesTable updated = table.withoutAll(shardIds);
+                if (updated != table) {
+                    shards.set(shard, updated);
+                }
+                if (dirtyDuringRebuild != null) {
+                    dirtyDuringRebuild.addAll(shardIds);
+                }
+            }
+        });
+    }
+
+    private void invalidateAll() {
+        epoch.incrementAndGet();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            synchronized (shardLocks[shard]) {
+                shardVersions[shard]++;
+                shards.set(shard, LongBytesTable.EMPTY);
+            }
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            submit(this::drain, drainScheduled);
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            submit(this::rebuild, rebuildScheduled);
+        }
+    }
+
+    private void submit(Runnable task, AtomicBoolean scheduled) {
+        try {
+            executor.execute(task);
+        } catch (TaskRejectedException e) {
+            // Entries stay missing and are served from the database; the next change retries
+            scheduled.set(false);
+            log.warn("Product snapshot refresh rejected: {}", e.getMessage());
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        while (!pending.isEmpty()) {
+            List<Long> ids = new ArrayList<>(PAGE_SIZE);
+            Iterator<Long> iterator = pending.iterator();
+            while (iterator.hasNext() && ids.size() < PAGE_SIZE) {
+                ids.add(iterator.next());
+                iterator.remove();
+            }
+            try {
+                reload(ids);
+            } catch (RuntimeException e) {
+                log.warn("Product snapshot reload of {} products failed", ids.size(), e);
+            }
+        }
+    }
+
+    private void reload(List<Long> ids) {
+        long[] versions = versions();
+        Map<Long, byte[]> loaded = new HashMap<>();
+        ReplicaRouting.runOnPrimary(() -> readOnlyTransaction.executeWithoutResult(status -> {
+            for (Product product : productRepo.findAllById(ids)) {
+                if (product.isActive()) {
+                    loaded.put(product.getId(), serialize(product));
+                }
+            }
+        }));
+
+        for (Long id : ids) {
+            int shard = shard(id);
+            synchronized (shardLocks[shard]) {
+                if (shardVersions[shard] != versions[shard]) {
+                    // Something in this shard changed while loading; read it again
+                    pending.add(id);
+                    scheduleDrain();
+                    continue;
+                }
+                byte[] json = loaded.get(id);
+                LongBytesTable table = shards.get(shard);
+                shards.set(shard, json != null ? table.with(id, json) : table.without(id));
+            }
+        }
+    }
+
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        long started = System.nanoTime();
+        long startEpoch = epoch.get();
+        Set<Long> dirty = ConcurrentHashMap.newKeySet();
+        setDirtyTracking(dirty);
+        try {
+            LongBytesTable.Builder[] builders = new LongBytesTable.Builder[SHARDS];
+            for (int i = 0; i < SHARDS; i++) {
+                builders[i] = new LongBytesTable.Builder(PAGE_SIZE);
+            }
+
+            long afterId = 0;
+            List<Product> page;
+            do {
+                long from = afterId;
+                List<Map.Entry<Long, byte[]>> rows = new ArrayList<>(PAGE_SIZE);
+                page = ReplicaRouting.onPrimary(() -> readOnlyTransaction.execute(status -> {
+                    List<Product> products = productRepo.findTop500ByActiveTrueAndIdGreaterThanOrderByIdAsc(from);
+                    for (Product product : products) {
+                        rows.add(Map.entry(product.getId(), serialize(product)));
+                    }
+                    return products;
+                }));
+                for (Map.Entry<Long, byte[]> row : rows) {
+                    builders[shard(row.getKey())].put(row.getKey(), row.getValue());
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+
+            int size = 0;
+            for (int shard = 0; shard < SHARDS; shard++) {
+                synchronized (shardLocks[shard]) {
+                    if (epoch.get() != startEpoch) {
+                        // A bulk change landed meanwhile and queued another rebuild
+                        log.debug("Product snapshot rebuild superseded");
+                        return;
+                    }
+                    LongBytesTable table = builders[shard].build();
+                    // Changed since we read them: drop, the pending reload brings them back
+                    for (Long id : dirty) {
+                        if (shard(id) == shard) {
+                            table = table.without(id);
+                        }
+                    }
+                    shards.set(shard, table);
+                    size += table.size();
+                }
+            }
+            log.info("Product snapshot rebuilt: {} products in {} ms", size, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Product snapshot rebuild failed; serving products from the database", e);
+        } finally {
+            setDirtyTracking(null);
+        }
+    }
+
+    private void setDirtyTracking(Set<Long> dirty) {
+        for (Object lock : shardLocks) {
+            synchronized (lock) {
+                dirtyDuringRebuild = dirty;
+            }
+        }
+    }
+
+    private long[] versions() {
+        long[] versions = new long[SHARDS];
+        for (int shard = 0; shard < SHARDS; shard++) {
+            synchronized (shardLocks[shard]) {
+                versions[shard] = shardVersions[shard];
+            }
+        }
+        return versions;
+    }
+
+    private byte[] serialize(Product product) {
+        try {
+            return writer.writeValueAsBytes(orderMapper.toDto(product));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + product.getId(), e);
+        }
+    }
+
+    private static int shard(long id) {
+        return (int) (id & (SHARDS - 1));
+    }
+}
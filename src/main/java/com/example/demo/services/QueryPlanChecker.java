@@ -0,0 +1,252 @@
+package com.example.demo.services;
+
+import com.example.demo.config.SqlCapture;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Startup check of the queries declared in our repositories: each method is invoked
+ * with placeholder arguments while {@link SqlCapture} grabs the SQL (nothing is
+ * executed), then MySQL EXPLAINs it. A table read with type ALL or index and no
+ * usable key is logged as a full scan.
+ */
+@Service
+@ConditionalOnProperty(name = "app.query-plan-check.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryPlanChecker {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanChecker.class);
+
+    private static final Pattern LIMIT_OFFSET = Pattern.compile("(?i)\\blimit\\s+\\?\\s*,\\s*\\?");
+    private static final Pattern LIMIT = Pattern.compile("(?i)\\blimit\\s+\\?");
+    private static final Pattern OFFSET = Pattern.compile("(?i)\\boffset\\s+\\?");
+
+    private static final Set<String> FULL_SCAN_TYPES = Set.of("ALL", "index");
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public QueryPlanChecker(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * A table that a repository query would read in full
+     */
+    public record Finding(String query, String table, String accessType, Long rows, String sql) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkOnStartup() {
+        try {
+            if (!isMySql()) {
+                log.debug("Query plan check skipped: not a MySQL database");
+                return;
+            }
+            List<Finding> findings = check();
+            for (Finding finding : findings) {
+                log.warn("Full scan of {} ({}, ~{} rows) in {}: {}",
+                        finding.table(), finding.accessType(), finding.rows(), finding.query(), finding.sql());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Query plan check failed", e);
+        }
+    }
+
+    public List<Finding> check() {
+        Repositories repositories = new Repositories(applicationContext);
+        List<Finding> findings = new ArrayList<>();
+        int checked = 0;
+
+        for (Class<?> domainType : repositories) {
+            Object repository = repositories.getRepositoryFor(domainType).orElse(null);
+            Class<?> repositoryInterface = repositories.getRepositoryInformationFor(domainType)
+                    .map(info -> info.getRepositoryInterface())
+                    .orElse(null);
+            if (repository == null || repositoryInterface == null) {
+                continue;
+            }
+
+            Method[] methods = repositoryInterface.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (method.isDefault() || method.isBridge() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String query = repositoryInterface.getSimpleName() + "." + method.getName();
+                String sql = captureSql(repository, method);
+                if (sql == null) {
+                    log.debug("Query plan check: no SQL captured for {}", query);
+                    continue;
+                }
+                checked++;
+                findings.addAll(explain(query, sql));
+            }
+        }
+        log.info("Query plan check: {} repository queries explained, {} full table scans", checked, findings.size());
+        return findings;
+    }
+
+    private String captureSql(Object repository, Method method) {
+        Object[] args = new Object[method.getParameterCount()];
+        Class<?>[] types = method.getParameterTypes();
+        Type[] genericTypes = method.getGenericParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            args[i] = placeholder(types[i], genericTypes[i]);
+            if (args[i] == null) {
+                return null;
+            }
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                status.setRollbackOnly();
+                return SqlCapture.capture(() -> {
+                    try {
+                        method.invoke(repository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            });
+        } catch (RuntimeException e) {
+            log.debug("Query plan check: could not capture {}: {}", method, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Finding> explain(String query, String sql) {
+        String statement = sql.strip();
+        String verb = statement.split("\\s+", 2)[0].toLowerCase(Locale.ROOT);
+        if (!verb.equals("select") && !verb.equals("update") && !verb.equals("delete") && !verb.equals("with")) {
+            return List.of();
+        }
+
+        // Row limits must be numbers; every other parameter gets '1', which MySQL
+        // converts on the constant side so indexes on numeric and string columns stay usable
+        statement = LIMIT_OFFSET.matcher(statement).replaceAll("limit 0, 10");
+        statement = LIMIT.matcher(statement).replaceAll("limit 10");
+        statement = OFFSET.matcher(statement).replaceAll("offset 0");
+        int parameters = (int) statement.chars().filter(c -> c == '?').count();
+
+        List<Map<String, Object>> plan;
+        try {
+            plan = jdbcTemplate.queryForList("EXPLAIN " + statement, (Object[]) placeholders(parameters));
+        } catch (RuntimeException e) {
+            log.debug("Query plan check: EXPLAIN failed for {}: {}", query, e.getMessage());
+            return List.of();
+        }
+
+        List<Finding> findings = new ArrayList<>();
+        for (Map<String, Object> row : plan) {
+            Object type = row.get("type");
+            Object table = row.get("table");
+            if (type != null && FULL_SCAN_TYPES.contains(type.toString())
+                    && row.get("possible_keys") == null && table != null
+                    && !table.toString().startsWith("<")) {
+                Object rows = row.get("rows");
+                findings.add(new Finding(query, table.toString(), type.toString(),
+                        rows instanceof Number number ? number.longValue() : null, sql));
+            }
+        }
+        return findings;
+    }
+
+    private Object placeholder(Class<?> type, Type genericType) {
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == Double.class || type == double.class) {
+            return 1.0;
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return true;
+        }
+        if (type == String.class) {
+            return "x";
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        if (Pageable.class.isAssignableFrom(type)) {
+            return PageRequest.of(0, 10);
+        }
+        if (type == Sort.class) {
+            return Sort.unsorted();
+        }
+        if (Collection.class.isAssignableFrom(type) && genericType instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] instanceof Class<?> elementType) {
+            Object element = placeholder(elementType, elementType);
+            return element != null ? List.of(element) : null;
+        }
+        if (type.isAnnotationPresent(Entity.class)) {
+            return entityManager.getReference(type, 1L);
+        }
+        return null;
+    }
+
+    private static String[] placeholders(int count) {
+        String[] values = new String[count];
+        Arrays.fill(values, "1");
+        return values;
+    }
+
+    private boolean isMySql() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+    }
+}
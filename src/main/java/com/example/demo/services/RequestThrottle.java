@@ -0,0 +1,253 @@
+package com.example.demo.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-client rate limits and load shedding for the request filter.
+ *
+ * Rate limits are token buckets per (endpoint class, user or IP), stored as one
+ * AtomicLong each in striped ConcurrentHashMaps. A bucket is kept as its "theoretical
+ * arrival time" (GCRA): admitting a request is a single CAS, and a bucket that has
+ * refilled completely carries no state, so the sweeper can drop it.
+ *
+ * Shedding looks at requests in flight and each endpoint class's p99 latency over
+ * the last window. Past the soft limits the expensive classes (reports, search,
+ * everything unclassified) get 503; past the hard in-flight limit checkout and auth do too.
+ * Catalog reads are never shed, only rate limited.
+ */
+@Service
+public class RequestThrottle {
+
+    public enum EndpointClass {
+        CATALOG(200, 100, Shed.NEVER),
+        SEARCH(30, 10, Shed.SOFT),
+        AUTH(10, 0.2, Shed.HARD),
+        CHECKOUT(20, 2, Shed.HARD),
+        WRITE(30, 5, Shed.SOFT),
+        REPORT(5, 0.2, Shed.SOFT),
+        DEFAULT(60, 20, Shed.SOFT);
+
+        final int defaultCapacity;
+        final double defaultPerSecond;
+        final Shed shed;
+
+        EndpointClass(int defaultCapacity, double defaultPerSecond, Shed shed) {
+            this.defaultCapacity = defaultCapacity;
+            this.defaultPerSecond = defaultPerSecond;
+            this.shed = shed;
+        }
+
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    enum Shed {
+        NEVER, HARD, SOFT
+    }
+
+    public enum Decision {
+        ALLOW, RATE_LIMITED, SHED
+    }
+
+    private record Limit(long intervalNanos, long burstNanos) {
+    }
+
+    private static final int STRIPES = 16;
+
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes = new ConcurrentHashMap[STRIPES];
+    private final int maxBucketsPerStripe;
+
+    private final int softInFlight;
+    private final int hardInFlight;
+    private final long p99ThresholdMicros;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<EndpointClass, LatencyWindow> latency = new EnumMap<>(EndpointClass.class);
+    // Indexed by EndpointClass ordinal
+    private final AtomicLongArray p99Micros = new AtomicLongArray(EndpointClass.values().length);
+
+    private final Map<EndpointClass, Counter> rateLimited = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> shed = new EnumMap<>(EndpointClass.class);
+
+    public RequestThrottle(Environment environment, MeterRegistry registry,
+                           @Value("${app.rate-limit.max-buckets:200000}") int maxBuckets,
+                           @Value("${app.load-shedding.soft-in-flight:100}") int softInFlight,
+                           @Value("${app.load-shedding.hard-in-flight:180}") int hardInFlight,
+                           @Value("${app.load-shedding.p99-threshold:PT2S}") Duration p99Threshold) {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "app.rate-limit." + endpointClass.key();
+            int capacity = environment.getProperty(prefix + ".capacity", Integer.class, endpointClass.defaultCapacity);
+            double perSecond = environment.getProperty(prefix + ".per-second", Double.class, endpointClass.defaultPerSecond);
+            long interval = (long) (1_000_000_000L / perSecond);
+            limits.put(endpointClass, new Limit(interval, interval * capacity));
+
+            rateLimited.put(endpointClass, Counter.builder("http.server.requests.rejected")
+                    .description("Requests rejected by the rate limiter or load shedding")
+                    .tag("reason", "rate_limit").tag("class", endpointClass.key())
+                    .register(registry));
+            shed.put(endpointClass, Counter.builder("http.server.requests.rejected")
+                    .description("Requests rejected by the rate limiter or load shedding")
+                    .tag("reason", "shed").tag("class", endpointClass.key())
+                    .register(registry));
+
+            latency.put(endpointClass, new LatencyWindow());
+            Gauge.builder("http.server.requests.p99", p99Micros, values -> values.get(endpointClass.ordinal()) / 1_000_000.0)
+                    .description("p99 request latency over the last window, seconds (lower bound of a power-of-two bucket)")
+                    .tag("class", endpointClass.key())
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.maxBucketsPerStripe = Math.max(1, maxBuckets / STRIPES);
+        this.softInFlight = softInFlight;
+        this.hardInFlight = hardInFlight;
+        this.p99ThresholdMicros = p99Threshold.toNanos() / 1000;
+
+        Gauge.builder("http.server.requests.in.flight", inFlight, AtomicInteger::get)
+                .description("Requests currently being processed")
+                .register(registry);
+    }
+
+    /**
+     * Decides on a request; on ALLOW the caller must call {@link #finished} when done
+     */
+    public Decision admit(EndpointClass endpointClass, String client) {
+        if (shouldShed(endpointClass)) {
+            shed.get(endpointClass).increment();
+            return Decision.SHED;
+        }
+        if (!tryAcquire(endpointClass, client, System.nanoTime())) {
+            rateLimited.get(endpointClass).increment();
+            return Decision.RATE_LIMITED;
+        }
+        inFlight.incrementAndGet();
+        return Decision.ALLOW;
+    }
+
+    public void finished(EndpointClass endpointClass, long startNanos) {
+        inFlight.decrementAndGet();
+        latency.get(endpointClass).record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    boolean shouldShed(EndpointClass endpointClass) {
+        int current = inFlight.get();
+        return switch (endpointClass.shed) {
+            case NEVER -> false;
+            case HARD -> current >= hardInFlight;
+            case SOFT -> current >= softInFlight || p99Micros.get(endpointClass.ordinal()) >= p99ThresholdMicros;
+        };
+    }
+
+    boolean tryAcquire(EndpointClass endpointClass, String client, long now) {
+        Limit limit = limits.get(endpointClass);
+        String key = endpointClass.key() + ':' + client;
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null) {
+            if (stripe.size() >= maxBucketsPerStripe) {
+                sweep(stripe, now);
+                if (stripe.size() >= maxBucketsPerStripe) {
+                    // Flooded with distinct clients: refuse new ones rather than grow without bound
+                    return false;
+                }
+            }
+            bucket = stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + limit.intervalNanos();
+            if (next - now > limit.burstNanos()) {
+                return false;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Roll the latency window and drop buckets that have refilled completely
+    @Scheduled(fixedDelayString = "${app.load-shedding.window:PT10S}")
+    public void tick() {
+        latency.forEach((endpointClass, window) ->
+                p99Micros.set(endpointClass.ordinal(), window.rollAndPercentile(0.99)));
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            sweep(stripe, now);
+        }
+    }
+
+    private static void sweep(ConcurrentHashMap<String, AtomicLong> stripe, long now) {
+        stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    void setP99Micros(EndpointClass endpointClass, long micros) {
+        p99Micros.set(endpointClass.ordinal(), micros);
+    }
+
+    /**
+     * Latency counts in power-of-two microsecond buckets, reset each window.
+     * Bucket i holds [2^(i-1), 2^i) microseconds; bucket 0 holds zero.
+     */
+    static final class LatencyWindow {
+        private static final int BUCKETS = 40;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        void record(long micros) {
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, micros)));
+            counts.incrementAndGet(bucket);
+        }
+
+        /**
+         * Lower bound of the bucket holding the percentile since the last call; 0 if no requests.
+         * Never overstates the latency, so a shedding threshold is not crossed early.
+         */
+        long rollAndPercentile(double percentile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.getAndSet(i, 0);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return lowerBound(i);
+                }
+            }
+            return lowerBound(BUCKETS - 1);
+        }
+
+        private static long lowerBound(int bucket) {
+            return bucket == 0 ? 0 : 1L << (bucket - 1);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.SparseFields;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * Streams large query results as a JSON array without materializing a List.
+ * Rows are read through a forward-only Hibernate scroll, written one by one,
+ * and the persistence context is cleared every batch so heap use stays flat.
+ * A failed write (client went away) closes the scroll, which releases the
+ * server-side cursor and stops the query.
+ */
+@Service
+public class ResultStreamingService {
+
+    // Rows per JDBC round trip, and per flush + session clear
+    private static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public <T> StreamingResponseBody stream(String hql, Class<T> type, Function<T, ?> mapper) {
+        return stream(hql, type, mapper, SparseFields.defaultProvider());
+    }
+
+    public <T> StreamingResponseBody stream(String hql, Class<T> type, Function<T, ?> mapper, FilterProvider filters) {
+        ObjectWriter writer = objectMapper.writer(filters)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        return outputStream -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            try {
+                transaction.executeWithoutResult(status -> {
+                    try {
+                        write(hql, type, mapper, writer, outputStream);
+                    } catch (IOException e) {
+                        status.setRollbackOnly();
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private <T> void write(String hql, Class<T> type, Function<T, ?> mapper,
+                           ObjectWriter writer, OutputStream outputStream) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+
+        try (ScrollableResults<T> rows = session.createSelectionQuery(hql, type)
+                .setReadOnly(true)
+                .setFetchSize(BATCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            int count = 0;
+            while (rows.next()) {
+                writer.writeValue(generator, mapper.apply(rows.get()));
+                count++;
+
+                // Flush the first row right away for a low time-to-first-byte
+                if (count == 1 || count % BATCH_SIZE == 0) {
+                    generator.flush();
+                    session.clear();
+                }
+            }
+
+            generator.writeEndArray();
+            generator.flush();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.SparseFields;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.Review;
 import com.example.demo.entities.User;
@@ -13,11 +15,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Service for managing product reviews in the e-commerce system.
@@ -28,6 +32,9 @@ public class ReviewService {
     @Autowired
     private ReviewRepo reviewRepo;
 
+    @Autowired
+    private ResultStreamingService resultStreamingService;
+
     @Autowired
     private UserRepo userRepo;
 
@@ -41,6 +48,14 @@ public class ReviewService {
         return reviewRepo.findAll();
     }
 
+    /**
+     * Stream all reviews as a JSON array, one row at a time
+     */
+    public StreamingResponseBody streamAll(FieldSet fields) {
+        return resultStreamingService.stream("SELECT r FROM Review r ORDER BY r.id", Review.class,
+                Function.identity(), SparseFields.reviewFilters(fields));
+    }
+
     /**
      * Get paginated reviews (admin function)
      */
@@ -282,6 +297,7 @@ public class ReviewService {
     /**
      * Get rating distribution for a product
      */
+    @Transactional(readOnly = true)
     public List<Object[]> getRatingDistribution(Long productId) {
         return reviewRepo.countRatingsByProduct(productId);
     }
@@ -289,6 +305,7 @@ public class ReviewService {
     /**
      * Get top rated products
      */
+    @Transactional(readOnly = true)
     public List<Object[]> getTopRatedProducts(int limit) {
         return reviewRepo.findTopRatedProducts(limit);
     }
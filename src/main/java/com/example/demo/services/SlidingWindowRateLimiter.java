@@ -0,0 +1,118 @@
+package com.example.demo.services;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-key sliding-window counter: the previous fixed window's count, weighted by how
+ * much of it still overlaps the sliding window, plus the current window's count.
+ * Two ints per key instead of a timestamp per request. Idle keys are dropped by
+ * {@link #evictIdle()}; past maxKeys the least recently started windows make room.
+ */
+public class SlidingWindowRateLimiter {
+
+    private static final class Window {
+        long start;
+        int previous;
+        int current;
+
+        Window(long start) {
+            this.start = start;
+        }
+    }
+
+    private final int limit;
+    private final long windowNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public SlidingWindowRateLimiter(int limit, Duration window, int maxKeys) {
+        this.limit = limit;
+        this.windowNanos = window.toNanos();
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Counts one event for the key; false if that would exceed the limit
+     */
+    public boolean tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    boolean tryAcquire(String key, long now) {
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxKeys) {
+                evictIdle(now);
+                if (windows.size() >= maxKeys) {
+                    evictOldest();
+                }
+            }
+            window = windows.computeIfAbsent(key, k -> new Window(now));
+        }
+
+        synchronized (window) {
+            long elapsed = now - window.start;
+            if (elapsed >= 2 * windowNanos) {
+                window.start = now;
+                window.previous = 0;
+                window.current = 0;
+                elapsed = 0;
+            } else if (elapsed >= windowNanos) {
+                window.start += windowNanos;
+                window.previous = window.current;
+                window.current = 0;
+                elapsed -= windowNanos;
+            }
+            double overlap = 1.0 - (double) elapsed / windowNanos;
+            if (window.previous * overlap + window.current + 1 > limit) {
+                return false;
+            }
+            window.current++;
+            return true;
+        }
+    }
+
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    // A key idle for two windows has no weight left
+    void evictIdle(long now) {
+        windows.values().removeIf(window -> {
+            synchronized (window) {
+                return now - window.start >= 2 * windowNanos;
+            }
+        });
+    }
+
+    // Flooded with distinct keys: refusing newcomers would lock out every new client, so drop
+    // the tenth of the windows that started longest ago; the map stays bounded either way
+    private synchronized void evictOldest() {
+        int excess = windows.size() - maxKeys + Math.max(1, maxKeys / 10);
+        if (excess <= 0) {
+            return;
+        }
+        long[] starts = windows.values().stream()
+                .mapToLong(window -> {
+                    synchronized (window) {
+                        return window.start;
+                    }
+                })
+                .sorted()
+                .toArray();
+        if (starts.length == 0) {
+            return;
+        }
+        long cutoff = starts[Math.min(excess, starts.length) - 1];
+        windows.values().removeIf(window -> {
+            synchronized (window) {
+                return window.start <= cutoff;
+            }
+        });
+    }
+
+    public int size() {
+        return windows.size();
+    }
+}
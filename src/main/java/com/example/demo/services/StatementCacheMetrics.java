@@ -0,0 +1,94 @@
+package com.example.demo.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepared statement cache metrics. Connector/J keeps no hit counters, but with
+ * useServerPrepStmts every cache miss is a COM_STMT_PREPARE on the server, so the
+ * hit ratio over an interval is 1 - prepares / executes. The counters are sampled on
+ * a schedule rather than at scrape time, so a scrape never waits for a pooled connection.
+ * They are server-wide: other clients of the same MySQL instance are included.
+ */
+@Service
+public class StatementCacheMetrics implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementCacheMetrics.class);
+
+    private static final String STATUS_QUERY = "SHOW GLOBAL STATUS WHERE Variable_name IN " +
+            "('Com_stmt_prepare', 'Com_stmt_execute', 'Com_stmt_reprepare', 'Prepared_stmt_count')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong prepares = new AtomicLong();
+    private final AtomicLong executes = new AtomicLong();
+    private final AtomicLong reprepares = new AtomicLong();
+    private final AtomicLong openStatements = new AtomicLong();
+    private volatile double hitRatio = Double.NaN;
+    private volatile boolean supported = true;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("db.statements.prepared", prepares, AtomicLong::get)
+                .description("Server-side statement prepares (prepared statement cache misses)")
+                .register(registry);
+        FunctionCounter.builder("db.statements.executed", executes, AtomicLong::get)
+                .description("Server-side prepared statement executions")
+                .register(registry);
+        FunctionCounter.builder("db.statements.reprepared", reprepares, AtomicLong::get)
+                .description("Statements re-prepared by the server after a metadata change")
+                .register(registry);
+        Gauge.builder("db.statements.open", openStatements, AtomicLong::get)
+                .description("Prepared statements currently open on the server")
+                .register(registry);
+        Gauge.builder("db.statement.cache.hit.ratio", this, metrics -> metrics.hitRatio)
+                .description("Prepared statement cache hits per execution over the last sampling interval")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "PT10S", fixedDelayString = "${app.db.statement-metrics-interval:PT30S}")
+    public void sample() {
+        if (!supported) {
+            return;
+        }
+        Map<String, Long> status = new HashMap<>();
+        try {
+            jdbcTemplate.query(STATUS_QUERY, rs -> {
+                status.put(rs.getString(1), rs.getLong(2));
+            });
+        } catch (RuntimeException e) {
+            // Not MySQL (tests run on H2) or no permission for global status
+            supported = false;
+            log.debug("Statement cache metrics disabled: {}", e.getMessage());
+            return;
+        }
+
+        long prepared = status.getOrDefault("Com_stmt_prepare", 0L);
+        long executed = status.getOrDefault("Com_stmt_execute", 0L);
+        long previousPrepared = prepares.getAndSet(prepared);
+        long previousExecuted = executes.getAndSet(executed);
+        reprepares.set(status.getOrDefault("Com_stmt_reprepare", 0L));
+        openStatements.set(status.getOrDefault("Prepared_stmt_count", 0L));
+
+        long executedDelta = executed - previousExecuted;
+        long preparedDelta = prepared - previousPrepared;
+        // First sample, server restart or an idle interval: nothing meaningful to report
+        if (previousExecuted == 0 || executedDelta <= 0 || preparedDelta < 0) {
+            return;
+        }
+        hitRatio = Math.max(0.0, 1.0 - (double) preparedDelta / executedDelta);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.User;
+import com.example.demo.entities.UserRole;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU of the fields login needs, keyed by email, so repeated logins do not
+ * hit the users table. Unknown emails are not cached. Entries expire after a TTL,
+ * which bounds staleness from changes made by other instances; changes made here
+ * invalidate immediately and again after commit.
+ */
+@Service
+public class UserPrincipalCache {
+
+    public record Principal(Long id, String email, String username, UserRole role, boolean active,
+                            String passwordHash, int tokenVersion) {
+
+        static Principal of(User user) {
+            return new Principal(user.getId(), user.getEmail(), user.getUsername(), user.getRole(),
+                    user.isActive(), user.getPassword(), user.getTokenVersion());
+        }
+    }
+
+    private record Entry(Principal principal, long expiresAt) {
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    // Bumped by every invalidation; a load that overlapped one is not cached
+    private long generation;
+
+    public UserPrincipalCache(@Value("${app.auth.principal-cache-size:10000}") int maxEntries,
+                              @Value("${app.auth.principal-cache-ttl:PT10M}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Cached principal for the email, loading it on a miss; null if there is no such user
+     */
+    public Principal get(String email, Function<String, User> loader) {
+        String key = key(email);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) {
+                    return entry.principal;
+                }
+                entries.remove(key);
+            }
+            loadGeneration = generation;
+        }
+
+        User user = loader.apply(email);
+        if (user == null) {
+            return null;
+        }
+        Principal principal = Principal.of(user);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(principal, System.nanoTime() + ttlNanos));
+                var eldest = entries.entrySet().iterator();
+                while (entries.size() > maxEntries && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Drops the entry now and, inside a transaction, once more after it commits so a
+     * login that read the old row in between does not keep it cached
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        evict(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(email);
+                }
+            });
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict(String email) {
+        generation++;
+        entries.remove(key(email));
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
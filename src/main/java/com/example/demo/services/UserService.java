@@ -3,22 +3,41 @@ package com.example.demo.services;
 import com.example.demo.entities.User;
 import com.example.demo.entities.UserRole;
 import com.example.demo.exceptions.ResourceNotFoundException;
+import com.example.demo.exceptions.TooManyRequestsException;
 import com.example.demo.repositories.UserRepo;
+import com.example.demo.services.UserPrincipalCache.Principal;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 public class UserService {
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private ResultStreamingService resultStreamingService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private PasswordResetTokens passwordResetTokens;
+
     /**
      * Get all users (admin function)
      */
@@ -26,6 +45,14 @@ public class UserService {
         return userRepo.findAll();
     }
 
+    /**
+     * Stream all users as a JSON array, one row at a time
+     */
+    public StreamingResponseBody streamAll() {
+        return resultStreamingService.stream("SELECT u FROM User u ORDER BY u.id", User.class,
+                Function.identity());
+    }
+
     /**
      * Get user by ID
      */
@@ -68,7 +95,7 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         // Encrypt password before saving
-        user.setPassword(user.getPassword());
+        user.setPassword(passwordHasher.encode(user.getPassword()));
 
         return userRepo.save(user);
     }
@@ -96,10 +123,12 @@ public class UserService {
 
         // Only encode password if it's provided and different
         if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
-            existingUser.setPassword(updatedUser.getPassword());
+            existingUser.setPassword(passwordHasher.encode(updatedUser.getPassword()));
+            revokeTokens(existingUser);
         }
 
         existingUser.setUpdatedAt(LocalDateTime.now());
+        principalCache.invalidate(existingUser.getEmail());
         return userRepo.save(existingUser);
     }
 
@@ -113,6 +142,8 @@ public class UserService {
 
         user.setRole(newRole);
         user.setUpdatedAt(LocalDateTime.now());
+        revokeTokens(user);
+        principalCache.invalidate(user.getEmail());
         return userRepo.save(user);
     }
 
@@ -126,6 +157,8 @@ public class UserService {
 
         user.setActive(false);
         user.setUpdatedAt(LocalDateTime.now());
+        revokeTokens(user);
+        principalCache.invalidate(user.getEmail());
         return userRepo.save(user);
     }
 
@@ -139,6 +172,7 @@ public class UserService {
 
         user.setActive(true);
         user.setUpdatedAt(LocalDateTime.now());
+        principalCache.invalidate(user.getEmail());
         return userRepo.save(user);
     }
 
@@ -147,34 +181,107 @@ public class UserService {
      */
     @Transactional
     public void delete(Long id) {
+        userRepo.findById(id).ifPresent(user -> {
+            principalCache.invalidate(user.getEmail());
+            Long userId = user.getId();
+            afterCommit(() -> accessTokenService.revoke(userId, Integer.MAX_VALUE));
+        });
         userRepo.deleteById(id);
     }
 
+    // Tokens carry the version they were issued with; older ones stop verifying once the new version commits
+    private void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        Long userId = user.getId();
+        int version = user.getTokenVersion();
+        afterCommit(() -> accessTokenService.revoke(userId, version));
+    }
+
+    // A rolled-back change must not lock the user out of their tokens
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     /**
      * Authenticate user
      */
     public boolean authenticate(String email, String rawPassword) {
-        User user = userRepo.findByEmail(email);
-        if (user != null && user.isActive()) {
-            return rawPassword.compareTo(user.getPassword())==0 ;
+        return verifyCredentials(email, rawPassword).isPresent();
+    }
+
+    /**
+     * Check credentials against the cached principal. Unknown emails cost a full hash
+     * too, and legacy plain-text passwords are re-hashed on a successful login.
+     */
+    public Optional<Principal> verifyCredentials(String email, String rawPassword) {
+        if (email == null || rawPassword == null) {
+            return Optional.empty();
         }
-        return false;
+        Principal principal = principalCache.get(email, userRepo::findByEmail);
+        boolean matches = passwordHasher.matches(rawPassword, principal != null ? principal.passwordHash() : null);
+        if (!matches || !principal.active()) {
+            return Optional.empty();
+        }
+        if (passwordHasher.upgradeEncoding(principal.passwordHash())) {
+            try {
+                userRepo.upgradePassword(principal.id(), principal.passwordHash(), passwordHasher.encode(rawPassword));
+                principalCache.invalidate(principal.email());
+            } catch (TooManyRequestsException e) {
+                // Hashing is saturated; the login still succeeds and the next one upgrades
+            }
+        }
+        return Optional.of(principal);
     }
 
     /**
-     * Generate password reset token (would typically email this to user)
+     * Signed access token for a verified principal
+     */
+    public String issueAccessToken(Principal principal) {
+        return accessTokenService.issue(principal.id(), principal.email(), principal.username(),
+                principal.role(), principal.tokenVersion());
+    }
+
+    /**
+     * Generate password reset token (would typically email this to user).
+     * Rate limited per email whether or not the account exists.
      */
     @Transactional
     public String generatePasswordResetToken(String email) {
+        passwordResetTokens.checkRateLimit(email);
         User user = userRepo.findByEmail(email);
         if (user != null) {
-            // In a real application, save this token to a separate table with expiration
-            String resetToken = UUID.randomUUID().toString();
-            // Here you would typically save the token and send an email
-            return resetToken;
+            return passwordResetTokens.issue(user.getId());
         }
         return null;
     }
 
-
-}
\ No newline at end of file
+    /**
+     * Set a new password with a reset token; false if the token is unknown, used or expired
+     */
+    @Transactional
+    public boolean resetPassword(String token, String newPassword) {
+        Optional<Long> userId = passwordResetTokens.consume(token);
+        if (userId.isEmpty()) {
+            return false;
+        }
+        User user = userRepo.findById(userId.get()).orElse(null);
+        if (user == null) {
+            return false;
+        }
+        user.setPassword(passwordHasher.encode(newPassword));
+        user.setUpdatedAt(LocalDateTime.now());
+        revokeTokens(user);
+        principalCache.invalidate(user.getEmail());
+        userRepo.save(user);
+        return true;
+    }
+}
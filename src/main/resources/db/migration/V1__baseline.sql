@@ -0,0 +1,145 @@
+-- Baseline: the schema as Hibernate (ddl-auto=update) created it before migrations.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE users (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    email      VARCHAR(255) NOT NULL,
+    username   VARCHAR(50)  NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    phone      VARCHAR(20),
+    address    VARCHAR(255),
+    role       ENUM ('USER','MANAGER','ADMIN'),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    active     BIT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE categories (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    image_url   VARCHAR(2000),
+    active      BIT          NOT NULL,
+    created_at  DATETIME(6),
+    updated_at  DATETIME(6),
+    parent_id   BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_categories_parent FOREIGN KEY (parent_id) REFERENCES categories (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    price       DOUBLE       NOT NULL,
+    category_id BIGINT,
+    quantity    INTEGER      NOT NULL,
+    brand       VARCHAR(255),
+    model       VARCHAR(255),
+    created_at  DATETIME(6),
+    updated_at  DATETIME(6),
+    active      BIT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_category FOREIGN KEY (category_id) REFERENCES categories (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product_image (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    product_id BIGINT,
+    image_url  VARCHAR(2000),
+    is_main    BIT    NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_image_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product_specification (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    product_id BIGINT,
+    spec_name  VARCHAR(255),
+    spec_value VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_specification_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE carts (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    active     BIT    NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_carts_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cart_items (
+    id         BIGINT  NOT NULL AUTO_INCREMENT,
+    cart_id    BIGINT,
+    product_id BIGINT,
+    quantity   INTEGER NOT NULL,
+    unit_price DOUBLE  NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_cart_items_cart FOREIGN KEY (cart_id) REFERENCES carts (id),
+    CONSTRAINT fk_cart_items_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE orders (
+    id                BIGINT NOT NULL AUTO_INCREMENT,
+    user_id           BIGINT,
+    order_date        DATE,
+    created_at        DATETIME(6),
+    updated_at        DATETIME(6),
+    total_amount      DOUBLE NOT NULL,
+    shipping_address  VARCHAR(255),
+    shipping_city     VARCHAR(255),
+    shipping_zip_code VARCHAR(255),
+    shipping_country  VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE order_items (
+    id         BIGINT  NOT NULL AUTO_INCREMENT,
+    order_id   BIGINT,
+    product_id BIGINT,
+    quantity   INTEGER NOT NULL,
+    unit_price DOUBLE  NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE payments (
+    id             BIGINT NOT NULL AUTO_INCREMENT,
+    order_id       BIGINT,
+    payment_method ENUM ('CREDIT_CARD','PAYPAL','BANK_TRANSFER','CASH_ON_DELIVERY'),
+    payment_status ENUM ('PENDING','COMPLETED','FAILED','REFUNDED'),
+    transaction_id VARCHAR(255),
+    amount         DOUBLE NOT NULL,
+    payment_date   DATETIME(6),
+    created_at     DATETIME(6),
+    updated_at     DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payments_order UNIQUE (order_id),
+    CONSTRAINT fk_payments_order FOREIGN KEY (order_id) REFERENCES orders (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE reviews (
+    id                BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id           BIGINT,
+    product_id        BIGINT,
+    rating            INTEGER      NOT NULL,
+    comment           VARCHAR(255) NOT NULL,
+    created_at        DATETIME(6),
+    updated_at        DATETIME(6),
+    verified_purchase BIT          NOT NULL,
+    approved          BIT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reviews_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_reviews_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
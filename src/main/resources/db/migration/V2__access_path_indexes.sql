@@ -0,0 +1,111 @@
+-- Image store tables, indexes for the repository access paths, and the uniqueness the services already assume.
+
+-- The image store came after the baseline: content hashes on product images, their
+-- resized variants and the content-addressed blobs.
+ALTER TABLE product_image
+    ADD COLUMN content_hash VARCHAR(64);
+
+CREATE TABLE product_image_variants (
+    product_image_id BIGINT  NOT NULL,
+    width            INTEGER NOT NULL,
+    height           INTEGER NOT NULL,
+    format           VARCHAR(10),
+    url              VARCHAR(2000),
+    size_bytes       BIGINT  NOT NULL,
+    CONSTRAINT fk_product_image_variants_image FOREIGN KEY (product_image_id) REFERENCES product_image (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE image_blobs (
+    hash               VARCHAR(64) NOT NULL,
+    path               VARCHAR(255),
+    format             VARCHAR(10),
+    size_bytes         BIGINT      NOT NULL,
+    ref_count          INTEGER     NOT NULL,
+    created_at         DATETIME(6),
+    unreferenced_since DATETIME(6),
+    PRIMARY KEY (hash),
+    INDEX idx_image_blobs_unreferenced (ref_count, unreferenced_since)
+) ENGINE = InnoDB;
+
+-- A cart holds one line per product (CartService merges quantities); fold any duplicates first.
+-- Every line of a duplicated (cart, product) pair is copied to cart_items_v2_duplicates as it was.
+CREATE TABLE cart_items_v2_duplicates LIKE cart_items;
+
+INSERT INTO cart_items_v2_duplicates
+SELECT line.*
+FROM cart_items line
+         JOIN (SELECT cart_id, product_id
+               FROM cart_items
+               GROUP BY cart_id, product_id
+               HAVING COUNT(*) > 1) dup ON dup.cart_id = line.cart_id AND dup.product_id = line.product_id;
+
+UPDATE cart_items keep_line
+    JOIN (SELECT MIN(id) AS keep_id, SUM(quantity) AS total
+          FROM cart_items
+          GROUP BY cart_id, product_id
+          HAVING COUNT(*) > 1) dup ON keep_line.id = dup.keep_id
+SET keep_line.quantity = dup.total;
+
+DELETE newer
+FROM cart_items newer
+         JOIN cart_items older
+              ON older.cart_id = newer.cart_id AND older.product_id = newer.product_id AND older.id < newer.id;
+
+ALTER TABLE cart_items
+    ADD CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id);
+
+-- One review per user and product (ReviewService rejects a second one); keep the first.
+-- The removed reviews are copied to reviews_v2_duplicates.
+CREATE TABLE reviews_v2_duplicates LIKE reviews;
+
+INSERT INTO reviews_v2_duplicates
+SELECT newer.*
+FROM reviews newer
+WHERE EXISTS (SELECT 1
+              FROM reviews older
+              WHERE older.user_id = newer.user_id AND older.product_id = newer.product_id AND older.id < newer.id);
+
+DELETE newer
+FROM reviews newer
+         JOIN reviews older
+              ON older.user_id = newer.user_id AND older.product_id = newer.product_id AND older.id < newer.id;
+
+ALTER TABLE reviews
+    ADD CONSTRAINT uk_reviews_user_product UNIQUE (user_id, product_id),
+    -- Approved-only rating average and histogram per product, read from the index alone
+    ADD INDEX idx_reviews_product_approved_rating (product_id, approved, rating),
+    ADD INDEX idx_reviews_created_at (created_at);
+
+ALTER TABLE orders
+    ADD INDEX idx_orders_user_order_date (user_id, order_date),
+    ADD INDEX idx_orders_order_date (order_date),
+    ADD INDEX idx_orders_created_at (created_at);
+
+-- Sales totals per product are answered from the index without touching rows
+ALTER TABLE order_items
+    ADD INDEX idx_order_items_product_quantity (product_id, quantity);
+
+ALTER TABLE payments
+    ADD INDEX idx_payments_status_created (payment_status, created_at),
+    ADD INDEX idx_payments_status_updated (payment_status, updated_at),
+    ADD INDEX idx_payments_payment_date (payment_date);
+
+ALTER TABLE carts
+    ADD INDEX idx_carts_active_updated (active, updated_at),
+    ADD INDEX idx_carts_user_active (user_id, active);
+
+ALTER TABLE product
+    ADD INDEX idx_product_category_price (category_id, price),
+    ADD INDEX idx_product_price (price),
+    ADD INDEX idx_product_active_id (active, id),
+    ADD INDEX idx_product_brand (brand);
+
+ALTER TABLE product_image
+    ADD INDEX idx_product_image_content_hash (content_hash),
+    ADD INDEX idx_product_image_product_main (product_id, is_main);
+
+ALTER TABLE categories
+    ADD INDEX idx_categories_name (name);
+
+ALTER TABLE users
+    ADD INDEX idx_users_username (username);
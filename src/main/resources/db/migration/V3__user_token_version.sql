@@ -0,0 +1,2 @@
+-- Bumped whenever a user's access tokens must stop working (deactivation, role or password change)
+ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,14 @@
+-- Only the SHA-256 of each reset token is stored; validation is one lookup on the unique hash
+CREATE TABLE password_reset_tokens (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    token_hash VARCHAR(64) NOT NULL,
+    user_id    BIGINT      NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_password_reset_tokens_hash UNIQUE (token_hash),
+    KEY idx_password_reset_tokens_user (user_id),
+    -- Drives the background purge of expired tokens
+    KEY idx_password_reset_tokens_expires (expires_at),
+    CONSTRAINT fk_password_reset_tokens_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
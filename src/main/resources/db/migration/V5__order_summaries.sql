@@ -0,0 +1,33 @@
+-- Order history read model: one narrow row per order, written with the order, so a
+-- user's history is an index range scan instead of loading orders, items and products
+CREATE TABLE order_summaries (
+    order_id     BIGINT      NOT NULL,
+    user_id      BIGINT      NOT NULL,
+    created_at   DATETIME(6) NOT NULL,
+    order_date   DATE,
+    total_amount DOUBLE      NOT NULL,
+    item_count   INTEGER     NOT NULL,
+    thumbnail    VARCHAR(2000),
+    PRIMARY KEY (order_id),
+    -- Keyset pages: WHERE user_id = ? AND (created_at, order_id) < cursor ORDER BY created_at DESC, order_id DESC
+    -- No foreign key to orders: summaries outlive orders moved to the archive,
+    -- and OrderService.delete removes the summary itself
+    KEY idx_order_summaries_user_created (user_id, created_at DESC, order_id DESC)
+) ENGINE = InnoDB;
+
+-- Backfill; the thumbnail is the main image of the first line's product
+INSERT INTO order_summaries (order_id, user_id, created_at, order_date, total_amount, item_count, thumbnail)
+SELECT o.id,
+       o.user_id,
+       COALESCE(o.created_at, o.order_date, CURRENT_TIMESTAMP(6)),
+       o.order_date,
+       o.total_amount,
+       (SELECT COALESCE(SUM(oi.quantity), 0) FROM order_items oi WHERE oi.order_id = o.id),
+       (SELECT pi.image_url
+        FROM order_items first_item
+                 JOIN product_image pi ON pi.product_id = first_item.product_id AND pi.is_main = TRUE
+        WHERE first_item.order_id = o.id
+        ORDER BY first_item.id, pi.id
+        LIMIT 1)
+FROM orders o
+WHERE o.user_id IS NOT NULL;
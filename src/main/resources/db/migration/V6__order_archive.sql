@@ -0,0 +1,45 @@
+-- Cold storage for closed orders moved out of the hot tables by OrderArchive.
+-- Same columns as the live tables, no foreign keys (rows arrive already consistent and
+-- are never updated), compressed pages, and only the indexes the history reports use.
+CREATE TABLE orders_archive (
+    id                BIGINT      NOT NULL,
+    user_id           BIGINT,
+    order_date        DATE,
+    created_at        DATETIME(6),
+    updated_at        DATETIME(6),
+    total_amount      DOUBLE      NOT NULL,
+    shipping_address  VARCHAR(255),
+    shipping_city     VARCHAR(255),
+    shipping_zip_code VARCHAR(255),
+    shipping_country  VARCHAR(255),
+    archived_at       DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    KEY idx_orders_archive_order_date (order_date)
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED;
+
+CREATE TABLE order_items_archive (
+    id         BIGINT  NOT NULL,
+    order_id   BIGINT  NOT NULL,
+    product_id BIGINT,
+    quantity   INTEGER NOT NULL,
+    unit_price DOUBLE  NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    KEY idx_order_items_archive_order (order_id),
+    KEY idx_order_items_archive_product_quantity (product_id, quantity)
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED;
+
+CREATE TABLE payments_archive (
+    id             BIGINT NOT NULL,
+    order_id       BIGINT NOT NULL,
+    payment_method ENUM ('CREDIT_CARD','PAYPAL','BANK_TRANSFER','CASH_ON_DELIVERY'),
+    payment_status ENUM ('PENDING','COMPLETED','FAILED','REFUNDED'),
+    transaction_id VARCHAR(255),
+    amount         DOUBLE NOT NULL,
+    payment_date   DATETIME(6),
+    created_at     DATETIME(6),
+    updated_at     DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payments_archive_order UNIQUE (order_id),
+    KEY idx_payments_archive_status_date (payment_status, payment_date)
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED;
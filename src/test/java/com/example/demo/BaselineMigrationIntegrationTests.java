@@ -0,0 +1,87 @@
+package com.example.demo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A database created by ddl-auto=update before the migrations: it holds the V1 schema
+ * and no history, gets baselined at V1 on startup and must then pass ddl-auto=validate.
+ * Needs a scratch database, which is wiped:
+ * <pre>
+ * mvn test -Dtest=BaselineMigrationIntegrationTests -Dtest.mysql.url=jdbc:mysql://localhost:3306/migration_test \
+ *     -Dtest.mysql.user=root -Dtest.mysql.password=...
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "test.mysql.url", matches = ".+")
+@SpringBootTest(properties = "app.archive.enabled=false")
+class BaselineMigrationIntegrationTests {
+
+    // The tables production had when migrations were introduced; V1 must never move away from them
+    private static final Map<String, String> RELEASED_SCHEMA = new TreeMap<>(Map.ofEntries(
+            Map.entry("carts", "active,created_at,id,updated_at,user_id"),
+            Map.entry("cart_items", "cart_id,created_at,id,product_id,quantity,unit_price,updated_at"),
+            Map.entry("categories", "active,created_at,description,id,image_url,name,parent_id,updated_at"),
+            Map.entry("orders", "created_at,id,order_date,shipping_address,shipping_city,shipping_country,shipping_zip_code,total_amount,updated_at,user_id"),
+            Map.entry("order_items", "created_at,id,order_id,product_id,quantity,unit_price"),
+            Map.entry("payments", "amount,created_at,id,order_id,payment_date,payment_method,payment_status,transaction_id,updated_at"),
+            Map.entry("product", "active,brand,category_id,created_at,description,id,model,name,price,quantity,updated_at"),
+            Map.entry("product_image", "created_at,id,image_url,is_main,product_id"),
+            Map.entry("product_specification", "id,product_id,spec_name,spec_value"),
+            Map.entry("reviews", "approved,comment,created_at,id,product_id,rating,updated_at,user_id,verified_purchase"),
+            Map.entry("users", "active,address,created_at,email,id,password,phone,role,updated_at,username")));
+
+    private static final Map<String, String> v1Schema = new TreeMap<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = System.getProperty("test.mysql.url");
+        String user = System.getProperty("test.mysql.user", "root");
+        String password = System.getProperty("test.mysql.password", "");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> user);
+        registry.add("spring.datasource.password", () -> password);
+
+        // Runs before the context starts: leave only the V1 tables, as production has them
+        Flyway flyway = Flyway.configure().dataSource(url, user, password).cleanDisabled(false).target("1").load();
+        flyway.clean();
+        flyway.migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+        jdbcTemplate.execute("DROP TABLE flyway_schema_history");
+        jdbcTemplate.query("SELECT table_name, GROUP_CONCAT(column_name ORDER BY column_name) FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() GROUP BY table_name",
+                rs -> { v1Schema.put(rs.getString(1), rs.getString(2)); });
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void baselineMatchesTheReleasedSchema() {
+        // Anything added since belongs in a later migration, or baselined databases never get it
+        assertEquals(RELEASED_SCHEMA, v1Schema);
+    }
+
+    @Test
+    void baselinedDatabaseIsMigratedToTheEntities() {
+        // The context only starts if validate found every table and column
+        assertEquals("BASELINE", jdbcTemplate.queryForObject(
+                "SELECT type FROM flyway_schema_history WHERE version = '1'", String.class));
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = 'product_image' AND column_name = 'content_hash'", Integer.class));
+    }
+}
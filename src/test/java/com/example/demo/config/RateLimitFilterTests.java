@@ -0,0 +1,45 @@
+package com.example.demo.config;
+
+import com.example.demo.services.RequestThrottle;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestThrottle throttle = new RequestThrottle(new MockEnvironment(), registry,
+            1000, 100, 180, Duration.ofSeconds(2));
+    private final RateLimitFilter filter = new RateLimitFilter(throttle);
+
+    @Test
+    void streamingRequestStaysInFlightUntilAsyncCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/export/stream");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        assertEquals(1.0, inFlight(), "the export is still being written");
+        request.getAsyncContext().complete();
+        assertEquals(0.0, inFlight());
+    }
+
+    @Test
+    void synchronousRequestFinishesWithTheFilter() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/products/1"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        assertEquals(0.0, inFlight());
+    }
+
+    private double inFlight() {
+        return registry.get("http.server.requests.in.flight").gauge().value();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.controllers;
+
+import com.example.demo.events.CatalogChangedEvent;
+import com.example.demo.events.CatalogChangedEvent.Type;
+import com.example.demo.services.CatalogVersions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCachingTests {
+
+    private final CatalogVersions catalogVersions = new CatalogVersions();
+
+    @Test
+    void matchingEtagAnswersNotModified() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        CatalogCaching.conditional(request(new MockHttpServletRequest(), first), catalogVersions.products(), () -> "body");
+
+        MockHttpServletRequest revalidation = new MockHttpServletRequest();
+        revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        ResponseEntity<String> response = CatalogCaching.conditional(request(revalidation, second),
+                catalogVersions.products(), () -> fail("body loaded for a 304"));
+
+        assertNull(response);
+        assertEquals(304, second.getStatus());
+    }
+
+    @Test
+    void changeWithinTheSameSecondIsNotHiddenByIfModifiedSince() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        CatalogCaching.conditional(request(new MockHttpServletRequest(), first), catalogVersions.products(), () -> "old");
+        assertNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        catalogVersions.onCatalogChanged(new CatalogChangedEvent(Type.PRODUCT, 1L, false, LocalDateTime.now()));
+
+        // A client that only knows dates sends the second it got the old body in
+        MockHttpServletRequest revalidation = new MockHttpServletRequest();
+        revalidation.addHeader(HttpHeaders.IF_MODIFIED_SINCE, System.currentTimeMillis() / 1000 * 1000);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        ResponseEntity<String> response = CatalogCaching.conditional(request(revalidation, second),
+                catalogVersions.products(), () -> "new");
+
+        assertEquals("new", response.getBody());
+        assertEquals(200, second.getStatus());
+    }
+
+    private static ServletWebRequest request(MockHttpServletRequest request, MockHttpServletResponse response) {
+        request.setMethod("GET");
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo.dto;
+
+import com.example.demo.entities.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartMapperTests {
+
+    private static final Logger log = LoggerFactory.getLogger(CartMapperTests.class);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final CartMapper cartMapper = new CartMapper();
+
+    @Test
+    void cartViewMatchesEntityTotals() {
+        Cart cart = sampleCart(5);
+
+        CartDto dto = cartMapper.toDto(toLines(cart)).orElseThrow();
+
+        assertEquals(cart.getId(), dto.getId());
+        assertEquals(cart.getUser().getId(), dto.getUserId());
+        assertEquals(5, dto.getItems().size());
+        assertEquals(cart.getTotalItems(), dto.getTotalItems());
+        assertEquals(cart.getTotalPrice(), dto.getTotalPrice(), 0.0001);
+        assertEquals("https://cdn.example.com/p1-0.jpg", dto.getItems().get(0).getMainImageUrl());
+    }
+
+    @Test
+    void emptyCartProducesHeaderOnly() {
+        CartLineView header = new CartLineView(7L, 3L, true, null, null,
+                null, null, null, null, null, null, null);
+
+        CartDto dto = cartMapper.toDto(List.of(header)).orElseThrow();
+
+        assertEquals(7L, dto.getId());
+        assertTrue(dto.getItems().isEmpty());
+        assertEquals(0, dto.getTotalItems());
+    }
+
+    @Test
+    void cartViewPayloadIsLessThanHalfTheEntityGraph() throws Exception {
+        Cart cart = sampleCart(20);
+        CartDto dto = cartMapper.toDto(toLines(cart)).orElseThrow();
+
+        int entityBytes = objectMapper.writeValueAsBytes(cart).length;
+        int dtoBytes = objectMapper.writeValueAsBytes(dto).length;
+
+        assertTrue(dtoBytes < entityBytes / 2,
+                "expected the cart view (" + dtoBytes + " bytes) to be less than half the entity payload ("
+                        + entityBytes + " bytes)");
+    }
+
+    /**
+     * Serialization time of a 20-line cart response, view vs entity graph. Opt-in:
+     * mvn test -Dtest=CartMapperTests -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void cartResponseLatency() throws Exception {
+        Cart cart = sampleCart(20);
+        CartDto dto = cartMapper.toDto(toLines(cart)).orElseThrow();
+
+        long entityNanos = averageNanos(() -> objectMapper.writeValueAsBytes(cart));
+        long dtoNanos = averageNanos(() -> objectMapper.writeValueAsBytes(cartMapper.toDto(toLines(cart)).orElseThrow()));
+
+        log.info("cart response: entity graph {} us, cart view (mapping included) {} us", entityNanos / 1000, dtoNanos / 1000);
+        assertTrue(dtoNanos < entityNanos, "expected the cart view to serialize faster than the entity graph");
+    }
+
+    private long averageNanos(Callable<?> task) throws Exception {
+        int warmup = 200;
+        int runs = 1000;
+        for (int i = 0; i < warmup; i++) {
+            task.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            task.call();
+        }
+        return (System.nanoTime() - start) / runs;
+    }
+
+    // Mirrors the rows CartRepo.CART_VIEW_SELECT returns for this cart
+    private List<CartLineView> toLines(Cart cart) {
+        return cart.getCartItems().stream()
+                .map(item -> new CartLineView(
+                        cart.getId(), cart.getUser().getId(), cart.isActive(),
+                        cart.getCreatedAt(), cart.getUpdatedAt(),
+                        item.getId(), item.getProduct().getId(), item.getProduct().getName(),
+                        item.getProduct().getBrand(),
+                        item.getProduct().getImages().stream()
+                                .filter(ProductImage::isMain)
+                                .map(ProductImage::getImageUrl)
+                                .findFirst().orElse(null),
+                        item.getQuantity(), item.getUnitPrice()))
+                .collect(Collectors.toList());
+    }
+
+    private Cart sampleCart(int lines) {
+        Category category = new Category("Phones", "Smartphones and accessories");
+        category.setId(1L);
+
+        User user = new User("dana", "secret", "dana@example.com", "0500000000", "Herzl 1", UserRole.USER);
+        user.setId(1L);
+
+        Cart cart = new Cart(user);
+        cart.setId(1L);
+
+        for (int i = 1; i <= lines; i++) {
+            Product product = new Product("Phone " + i, "A long marketing description for phone " + i,
+                    1000 + i, category, 50, "Brand", "Model-" + i);
+            product.setId((long) i);
+            for (int img = 0; img < 5; img++) {
+                ProductImage image = new ProductImage(product, "https://cdn.example.com/p" + i + "-" + img + ".jpg", img == 0);
+                image.setId(i * 100L + img);
+                product.getImages().add(image);
+            }
+            for (int spec = 0; spec < 10; spec++) {
+                ProductSpecification specification = new ProductSpecification(product, "spec-" + spec, "value-" + spec);
+                specification.setId(i * 1000L + spec);
+                product.getSpecifications().add(specification);
+            }
+            category.getProducts().add(product);
+
+            CartItem item = new CartItem(cart, product, i);
+            item.setId((long) i);
+            cart.getCartItems().add(item);
+
+            Order pastOrder = new Order(user, LocalDate.now().minusDays(i));
+            pastOrder.setId((long) i);
+            OrderItem orderItem = new OrderItem(pastOrder, product, 1, product.getPrice());
+            orderItem.setId((long) i);
+            pastOrder.getOrderItems().add(orderItem);
+            pastOrder.calculateTotalAmount();
+            user.getOrders().add(pastOrder);
+        }
+        return cart;
+    }
+}
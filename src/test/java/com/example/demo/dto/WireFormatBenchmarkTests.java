@@ -0,0 +1,152 @@
+package com.example.demo.dto;
+
+import com.example.demo.entities.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Payload size of JSON vs Smile vs CBOR for a typical catalog page and order page.
+ * Every format has to round-trip the page, and both binary formats have to be smaller.
+ * Encode/decode throughput is measured only on request:
+ * mvn test -Dtest=WireFormatBenchmarkTests -Dbenchmark=true
+ */
+class WireFormatBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(WireFormatBenchmarkTests.class);
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    private final ObjectMapper json = JsonMapper.builder().findAndAddModules()
+            .filterProvider(SparseFields.defaultProvider()).build();
+    private final ObjectMapper smile = SmileMapper.builder().findAndAddModules()
+            .filterProvider(SparseFields.defaultProvider()).build();
+    private final ObjectMapper cbor = CBORMapper.builder().findAndAddModules()
+            .filterProvider(SparseFields.defaultProvider()).build();
+
+    @Test
+    void catalogPage() throws Exception {
+        List<ProductDto> page = new ArrayList<>();
+        for (Product product : sampleProducts(50)) {
+            page.add(orderMapper.toDto(product, FieldSet.ALL));
+        }
+        compare("catalog page (50 products)", page, ProductDto[].class);
+    }
+
+    @Test
+    void orderPage() throws Exception {
+        List<Product> products = sampleProducts(10);
+        List<OrderDto> page = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            page.add(orderMapper.toDto(sampleOrder(i, products)));
+        }
+        compare("order page (20 orders x 5 items)", page, OrderDto[].class);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void serializationThroughput() throws Exception {
+        List<ProductDto> page = new ArrayList<>();
+        for (Product product : sampleProducts(50)) {
+            page.add(orderMapper.toDto(product, FieldSet.ALL));
+        }
+        for (String format : List.of("json", "smile", "cbor")) {
+            ObjectMapper mapper = switch (format) {
+                case "json" -> json;
+                case "smile" -> smile;
+                default -> cbor;
+            };
+            byte[] bytes = mapper.writeValueAsBytes(page);
+            long writeNanos = averageNanos(() -> mapper.writeValueAsBytes(page));
+            long readNanos = averageNanos(() -> mapper.readValue(bytes, ProductDto[].class));
+            log.info("catalog page (50 products) {}: {} bytes, write {} us ({} pages/s), read {} us ({} pages/s)",
+                    format, bytes.length, writeNanos / 1000, 1_000_000_000L / writeNanos,
+                    readNanos / 1000, 1_000_000_000L / readNanos);
+        }
+    }
+
+    private long averageNanos(Callable<?> task) throws Exception {
+        int warmup = 200;
+        int runs = 1000;
+        for (int i = 0; i < warmup; i++) {
+            task.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            task.call();
+        }
+        return (System.nanoTime() - start) / runs;
+    }
+
+    private void compare(String label, List<?> page, Class<?> arrayType) throws Exception {
+        int jsonBytes = encodedSize(json, page, arrayType);
+        int smileBytes = encodedSize(smile, page, arrayType);
+        int cborBytes = encodedSize(cbor, page, arrayType);
+
+        assertTrue(smileBytes < jsonBytes, label + ": expected Smile (" + smileBytes + " bytes) to be smaller than JSON (" + jsonBytes + " bytes)");
+        assertTrue(cborBytes < jsonBytes, label + ": expected CBOR (" + cborBytes + " bytes) to be smaller than JSON (" + jsonBytes + " bytes)");
+    }
+
+    private int encodedSize(ObjectMapper mapper, List<?> page, Class<?> arrayType) throws Exception {
+        byte[] bytes = mapper.writeValueAsBytes(page);
+        assertEquals(page.size(), ((Object[]) mapper.readValue(bytes, arrayType)).length);
+        return bytes.length;
+    }
+
+    private List<Product> sampleProducts(int count) {
+        Category category = new Category("Laptops", "Portable computers");
+        category.setId(1L);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Product product = new Product("Laptop " + i, "A long marketing description for laptop " + i,
+                    3000 + i * 10.5, category, 20 + i, "Brand", "Model-" + i);
+            product.setId((long) i);
+            for (int img = 0; img < 4; img++) {
+                ProductImage image = new ProductImage(product, "/uploads/laptop-" + i + "-" + img + ".jpg", img == 0);
+                image.setId(i * 100L + img);
+                product.getImages().add(image);
+            }
+            for (int spec = 0; spec < 8; spec++) {
+                ProductSpecification specification = new ProductSpecification(product, "spec-" + spec, "value-" + spec);
+                specification.setId(i * 1000L + spec);
+                product.getSpecifications().add(specification);
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
+    private Order sampleOrder(int id, List<Product> products) {
+        User user = new User("user" + id, "secret", "user" + id + "@example.com", "0500000000", "Herzl 1", UserRole.USER);
+        user.setId((long) id);
+
+        Order order = new Order(user, LocalDate.now().minusDays(id));
+        order.setId((long) id);
+        order.setShippingAddress("Herzl " + id);
+        order.setShippingCity("Tel Aviv");
+        order.setShippingZipCode("61000");
+        order.setShippingCountry("Israel");
+        for (int i = 0; i < 5; i++) {
+            Product product = products.get((id + i) % products.size());
+            OrderItem item = new OrderItem(order, product, i + 1, product.getPrice());
+            item.setId(id * 10L + i);
+            order.getOrderItems().add(item);
+        }
+        order.calculateTotalAmount();
+        return order;
+    }
+}
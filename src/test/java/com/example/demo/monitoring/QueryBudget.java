@@ -0,0 +1,29 @@
+package com.example.demo.monitoring;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test whose body issues more SQL than allowed, or runs the same SELECT more
+ * often than allowed (N+1). Statements are counted by the inspector in HibernateConfig,
+ * so slice tests have to import it. @BeforeEach work is not counted.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    /**
+     * Most statements the test body may issue; -1 for no limit
+     */
+    int statements() default -1;
+
+    /**
+     * Most times any one SELECT may run
+     */
+    int repeats() default 1;
+}
@@ -0,0 +1,46 @@
+package com.example.demo.monitoring;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Measures the test body with RequestStats, call sites included, and checks it against @QueryBudget
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), RequestStats.begin(true));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        RequestStats stats = context.getStore(NAMESPACE).remove(context.getUniqueId(), RequestStats.class);
+        RequestStats.end();
+        QueryBudget budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), QueryBudget.class))
+                .orElseThrow();
+
+        StringBuilder problems = new StringBuilder();
+        if (budget.statements() >= 0 && stats.statements() > budget.statements()) {
+            problems.append("\n").append(stats.statements()).append(" statements, budget is ").append(budget.statements());
+            stats.sql().forEach(sql -> problems.append("\n  ").append(sql));
+        }
+        List<RequestStats.RepeatedSelect> repeated = stats.repeatedSelects(budget.repeats() + 1);
+        for (RequestStats.RepeatedSelect select : repeated) {
+            problems.append("\nSELECT ran ").append(select.count()).append(" times (budget ").append(budget.repeats())
+                    .append(") at ").append(select.callSite()).append(":\n  ").append(select.sql());
+        }
+        if (!problems.isEmpty()) {
+            fail("Query budget exceeded in " + context.getDisplayName() + problems);
+        }
+    }
+}
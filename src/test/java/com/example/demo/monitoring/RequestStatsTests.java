@@ -0,0 +1,56 @@
+package com.example.demo.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestStatsTests {
+
+    private static final String LOAD_ITEMS = "select oi.id,oi.quantity from order_items oi where oi.order_id=?";
+
+    @AfterEach
+    void tearDown() {
+        RequestStats.end();
+    }
+
+    @Test
+    void repeatedSelectIsReportedWithCallSite() {
+        RequestStats stats = RequestStats.begin(true);
+        RequestStats.statement("select o.id from orders o where o.user_id=?");
+        for (int i = 0; i < 5; i++) {
+            RequestStats.statement(LOAD_ITEMS);
+        }
+
+        List<RequestStats.RepeatedSelect> repeated = stats.repeatedSelects(5);
+        assertEquals(1, repeated.size());
+        assertEquals(LOAD_ITEMS, repeated.get(0).sql());
+        assertEquals(5, repeated.get(0).count());
+        assertTrue(repeated.get(0).callSite().startsWith("RequestStatsTests.repeatedSelectIsReportedWithCallSite"),
+                repeated.get(0).callSite());
+        assertEquals(6, stats.statements());
+    }
+
+    @Test
+    void writesAndUntracedRequestsHaveNoCallSite() {
+        RequestStats stats = RequestStats.begin(false);
+        for (int i = 0; i < 5; i++) {
+            RequestStats.statement("insert into order_items (order_id,quantity) values (?,?)");
+            RequestStats.statement(LOAD_ITEMS);
+        }
+
+        List<RequestStats.RepeatedSelect> repeated = stats.repeatedSelects(2);
+        assertEquals(1, repeated.size());
+        assertNull(repeated.get(0).callSite());
+    }
+
+    @Test
+    void outsideARequestNothingIsCounted() {
+        assertEquals(LOAD_ITEMS, RequestStats.statement(LOAD_ITEMS));
+        assertNull(RequestStats.current());
+    }
+}
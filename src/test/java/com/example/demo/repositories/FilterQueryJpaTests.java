@@ -0,0 +1,102 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.OrderFilter;
+import com.example.demo.dto.ProductDto;
+import com.example.demo.dto.ProductFilter;
+import com.example.demo.entities.Category;
+import com.example.demo.entities.Order;
+import com.example.demo.entities.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FilterQuery-built repository queries on H2: keyset paging through NULL sort
+ * values, and projections sharing the entity query's predicates.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+class FilterQueryJpaTests {
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void keysetOnNullableColumnKeepsRowsWithoutAValue() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Every third order has no order date
+            Order order = new Order(null, i % 3 == 0 ? null : LocalDate.of(2026, 1, 1 + i % 2));
+            entityManager.persist(order);
+            ids.add(order.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        for (boolean descending : new boolean[]{false, true}) {
+            List<Order> seen = new ArrayList<>();
+            List<Order> page;
+            do {
+                OrderFilter filter = new OrderFilter();
+                filter.setSort("orderDate");
+                filter.setDescending(descending);
+                filter.setLimit(2);
+                if (!seen.isEmpty()) {
+                    Order last = seen.get(seen.size() - 1);
+                    filter.setAfter(last.getOrderDate() != null ? last.getOrderDate().toString() : null);
+                    filter.setAfterId(last.getId());
+                }
+                page = orderRepo.findByFilter(filter);
+                seen.addAll(page);
+            } while (page.size() == 2);
+
+            assertEquals(ids.size(), seen.size(), "descending=" + descending);
+            assertTrue(seen.stream().map(Order::getId).toList().containsAll(ids));
+            // NULLs last in either direction
+            assertNull(seen.get(seen.size() - 1).getOrderDate());
+            assertNotNull(seen.get(0).getOrderDate());
+        }
+    }
+
+    @Test
+    void projectionUsesTheSamePredicatesAsTheEntityQuery() {
+        Category category = new Category("Phones", "Smartphones");
+        entityManager.persist(category);
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product("Phone " + i, "A phone", 100 * (i + 1), category, 10, i % 2 == 0 ? "A" : "B", "X" + i);
+            product.setActive(i != 4);
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ProductFilter filter = new ProductFilter();
+        filter.setBrand("A");
+        filter.setMinPrice(150.0);
+        filter.setActiveOnly(true);
+
+        List<Long> entities = productRepo.findByFilter(filter).stream().map(Product::getId).toList();
+        List<ProductDto> projected = productRepo.findProjected(filter, FieldSet.parse("name,price"));
+
+        assertEquals(1, entities.size());
+        assertEquals(entities, projected.stream().map(ProductDto::getId).toList());
+        assertEquals("Phone 2", projected.get(0).getName());
+        assertEquals(300, projected.get(0).getPrice());
+        assertNull(projected.get(0).getBrand(), "only requested fields are read");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilterQueryTests {
+
+    private static FilterQuery orders(Long userId, LocalDate startDate, Double minAmount) {
+        return new FilterQuery("SELECT o FROM Order o", "o")
+                .where("o.user.id = :userId", "userId", userId)
+                .where("o.orderDate >= :startDate", "startDate", startDate)
+                .where("o.totalAmount >= :minAmount", "minAmount", minAmount);
+    }
+
+    @Test
+    void onlyPresentPredicatesAreEmitted() {
+        assertEquals("SELECT o FROM Order o ORDER BY o.id ASC",
+                orders(null, null, null).jpql());
+        assertEquals("SELECT o FROM Order o WHERE o.user.id = :userId AND o.totalAmount >= :minAmount ORDER BY o.id ASC",
+                orders(7L, null, 10.0).jpql());
+    }
+
+    @Test
+    void sameCombinationReusesTheCachedQuery() {
+        String first = orders(7L, LocalDate.of(2026, 1, 1), null).jpql();
+        String second = orders(8L, LocalDate.of(2025, 6, 1), null).jpql();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void keysetOnSortColumnBreaksTiesById() {
+        String jpql = orders(7L, null, null)
+                .orderBy("totalAmount", false, true, 99.5, 1200L)
+                .jpql();
+
+        assertEquals("SELECT o FROM Order o WHERE o.user.id = :userId AND o.totalAmount <= :afterValue AND "
+                + "(o.totalAmount < :afterValue OR o.id < :afterId) ORDER BY o.totalAmount DESC, o.id DESC", jpql);
+    }
+
+    @Test
+    void keysetOnIdNeedsNoSortValue() {
+        assertEquals("SELECT o FROM Order o WHERE o.id > :afterId ORDER BY o.id ASC",
+                orders(null, null, null).orderBy("id", false, false, null, 50L).jpql());
+        assertThrows(IllegalArgumentException.class,
+                () -> orders(null, null, null).orderBy("totalAmount", false, false, null, 50L));
+    }
+
+    @Test
+    void nullableSortColumnPagesThroughNullsLast() {
+        assertEquals("SELECT o FROM Order o WHERE (o.createdAt <= :afterValue AND "
+                        + "(o.createdAt < :afterValue OR o.id < :afterId) OR o.createdAt IS NULL) "
+                        + "ORDER BY o.createdAt DESC NULLS LAST, o.id DESC",
+                orders(null, null, null).orderBy("createdAt", true, true, LocalDate.of(2026, 1, 1), 50L).jpql());
+        // The previous page ended among the NULLs
+        assertEquals("SELECT o FROM Order o WHERE o.createdAt IS NULL AND o.id < :afterId "
+                        + "ORDER BY o.createdAt DESC NULLS LAST, o.id DESC",
+                orders(null, null, null).orderBy("createdAt", true, true, null, 50L).jpql());
+    }
+}
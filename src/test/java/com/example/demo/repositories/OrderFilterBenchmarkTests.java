@@ -0,0 +1,178 @@
+package com.example.demo.repositories;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The old catch-all (? IS NULL OR col = ?) order search against one statement per
+ * predicate combination, on a MySQL table shaped like orders (V1 columns, V2 indexes).
+ * Needs a scratch database:
+ * <pre>
+ * mvn test -Dtest=OrderFilterBenchmarkTests -Dbenchmark.mysql.url=jdbc:mysql://localhost:3306/bench \
+ *     -Dbenchmark.mysql.user=root -Dbenchmark.mysql.password=... [-Dbenchmark.orders=10000000]
+ * </pre>
+ * The table is created and filled once (10M rows takes a few minutes) and reused.
+ * Both forms must return the same rows and each per-combination statement must use an
+ * index; timings and the chosen plans are logged.
+ */
+@EnabledIfSystemProperty(named = "benchmark.mysql.url", matches = ".+")
+class OrderFilterBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderFilterBenchmarkTests.class);
+
+    private static final int RUNS = 7;
+    private static final int USERS = 100_000;
+
+    private static final String CATCH_ALL = "SELECT id FROM bench_orders WHERE " +
+            "(? IS NULL OR user_id = ?) AND (? IS NULL OR order_date >= ?) AND " +
+            "(? IS NULL OR order_date <= ?) AND (? IS NULL OR total_amount >= ?) ORDER BY id LIMIT 50";
+
+    private record Case(String label, String sql, Object userId, Object startDate, Object endDate, Object minAmount) {
+    }
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = DriverManager.getConnection(System.getProperty("benchmark.mysql.url"),
+                System.getProperty("benchmark.mysql.user", "root"), System.getProperty("benchmark.mysql.password", ""));
+        seed(Long.getLong("benchmark.orders", 10_000_000L));
+    }
+
+    @Test
+    void catchAllVersusOneStatementPerCombination() throws SQLException {
+        List<Case> cases = List.of(
+                new Case("user", "SELECT id FROM bench_orders WHERE user_id = ? ORDER BY id LIMIT 50",
+                        4242L, null, null, null),
+                new Case("date range", "SELECT id FROM bench_orders WHERE order_date >= ? AND order_date <= ? " +
+                        "ORDER BY id LIMIT 50", null, "2025-03-01", "2025-03-02", null),
+                new Case("user + min amount", "SELECT id FROM bench_orders WHERE user_id = ? AND total_amount >= ? " +
+                        "ORDER BY id LIMIT 50", 4242L, null, null, 500.0),
+                new Case("user + date range", "SELECT id FROM bench_orders WHERE user_id = ? AND order_date >= ? " +
+                        "AND order_date <= ? ORDER BY id LIMIT 50", 4242L, "2024-01-01", "2025-12-31", null));
+
+        for (Case c : cases) {
+            List<Long> catchAll = new ArrayList<>();
+            long catchAllMicros = median(() -> catchAll(c, catchAll));
+            List<Long> specific = new ArrayList<>();
+            long specificMicros = median(() -> specific(c, specific));
+
+            String specificPlan = explainKey(c.sql(), specificArgs(c));
+            log.info("{}: catch-all {} us [{}], per-combination {} us [{}]", c.label(),
+                    catchAllMicros, explainKey(CATCH_ALL, catchAllArgs(c)), specificMicros, specificPlan);
+            assertEquals(catchAll, specific, c.label());
+            assertFalse(specificPlan.endsWith("/null"), c.label() + " scans without an index: " + specificPlan);
+        }
+    }
+
+    private interface Run {
+        void run() throws SQLException;
+    }
+
+    private static long median(Run run) throws SQLException {
+        long[] micros = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros[RUNS / 2];
+    }
+
+    private static void catchAll(Case c, List<Long> ids) throws SQLException {
+        ids.clear();
+        query(CATCH_ALL, catchAllArgs(c), ids);
+    }
+
+    private static void specific(Case c, List<Long> ids) throws SQLException {
+        ids.clear();
+        query(c.sql(), specificArgs(c), ids);
+    }
+
+    private static Object[] catchAllArgs(Case c) {
+        return new Object[]{c.userId(), c.userId(), c.startDate(), c.startDate(),
+                c.endDate(), c.endDate(), c.minAmount(), c.minAmount()};
+    }
+
+    private static Object[] specificArgs(Case c) {
+        return Arrays.stream(new Object[]{c.userId(), c.startDate(), c.endDate(), c.minAmount()})
+                .filter(value -> value != null)
+                .toArray();
+    }
+
+    private static void query(String sql, Object[] args, List<Long> ids) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+    }
+
+    private static String explainKey(String sql, Object[] args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getString("type") + "/" + rs.getString("key") : "?";
+            }
+        }
+    }
+
+    private static void seed(long rows) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS bench_orders (" +
+                    "id BIGINT NOT NULL AUTO_INCREMENT, user_id BIGINT, order_date DATE, created_at DATETIME(6), " +
+                    "total_amount DOUBLE NOT NULL, PRIMARY KEY (id), " +
+                    "INDEX idx_bench_orders_user_order_date (user_id, order_date), " +
+                    "INDEX idx_bench_orders_order_date (order_date), " +
+                    "INDEX idx_bench_orders_created_at (created_at)) ENGINE = InnoDB");
+            long count = count(statement);
+            if (count == 0) {
+                statement.execute("SET SESSION cte_max_recursion_depth = 10000");
+                statement.execute("INSERT INTO bench_orders (user_id, order_date, created_at, total_amount) " +
+                        "WITH RECURSIVE n (i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 10000) " +
+                        "SELECT 1 + FLOOR(RAND() * " + USERS + "), DATE '2026-01-01' - INTERVAL FLOOR(RAND() * 1800) DAY, " +
+                        "NOW(6), ROUND(RAND() * 2000, 2) FROM n");
+                count = count(statement);
+            }
+            // Double until there are enough rows, with fresh random values each time
+            while (count < rows) {
+                statement.execute("INSERT INTO bench_orders (user_id, order_date, created_at, total_amount) " +
+                        "SELECT 1 + FLOOR(RAND() * " + USERS + "), DATE '2026-01-01' - INTERVAL FLOOR(RAND() * 1800) DAY, " +
+                        "NOW(6), ROUND(RAND() * 2000, 2) FROM bench_orders LIMIT " + Math.min(count, rows - count));
+                count = count(statement);
+            }
+            statement.execute("ANALYZE TABLE bench_orders");
+        }
+    }
+
+    private static long count(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM bench_orders")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
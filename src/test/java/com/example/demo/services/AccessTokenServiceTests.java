@@ -0,0 +1,118 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.UserRole;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokenServiceTests {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenServiceTests.class);
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    private final AccessTokenService tokens = new AccessTokenService(SECRET, Duration.ofHours(1));
+
+    @Test
+    void roundTrip() {
+        String token = tokens.issue(42L, "dana@example.com", "dana.k", UserRole.ADMIN, 3);
+
+        AccessTokenService.Claims claims = tokens.verify(token);
+
+        assertNotNull(claims);
+        assertEquals(42L, claims.id());
+        assertEquals("dana@example.com", claims.email());
+        assertEquals("dana.k", claims.username());
+        assertEquals(UserRole.ADMIN, claims.role());
+        assertEquals(3, claims.tokenVersion());
+    }
+
+    @Test
+    void rejectsTamperedAndForeignTokens() {
+        String token = tokens.issue(42L, "dana@example.com", "dana", UserRole.USER, 0);
+
+        assertNull(tokens.verify(token.replace(".USER.", ".ADMIN.")));
+        assertNull(tokens.verify(token.substring(0, token.length() - 2)));
+        assertNull(tokens.verify("garbage"));
+        assertNull(tokens.verify(""));
+
+        AccessTokenService other = new AccessTokenService(
+                Base64.getEncoder().encodeToString("another-key-another-key-another!!".getBytes()), Duration.ofHours(1));
+        assertNull(other.verify(token));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        AccessTokenService expired = new AccessTokenService(SECRET, Duration.ofSeconds(-1));
+
+        assertNull(expired.verify(expired.issue(1L, "a@example.com", "a", UserRole.USER, 0)));
+    }
+
+    @Test
+    void revocationRejectsOlderVersionsOnly() {
+        String old = tokens.issue(7L, "a@example.com", "a", UserRole.USER, 0);
+        tokens.revoke(7L, 1);
+
+        assertNull(tokens.verify(old));
+        assertNotNull(tokens.verify(tokens.issue(7L, "a@example.com", "a", UserRole.USER, 1)));
+        assertNotNull(tokens.verify(tokens.issue(8L, "b@example.com", "b", UserRole.USER, 0)));
+
+        tokens.revoke(7L, 0);
+        assertNull(tokens.verify(old), "a lower revocation must not lift a higher one");
+    }
+
+    /**
+     * Verification is a signature check plus one map lookup, so it stays correct with many
+     * revocations on record, and the token is small enough to send on every request
+     */
+    @Test
+    void compactTokenVerifiesAlongsideManyRevocations() {
+        String token = tokens.issue(42L, "dana@example.com", "dana", UserRole.USER, 0);
+        for (int i = 0; i < 200; i++) {
+            tokens.revoke(1_000L + i, 1);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            AccessTokenService.Claims claims = tokens.verify(token);
+            assertNotNull(claims);
+            assertEquals(42L, claims.id());
+        }
+        assertEquals(200, tokens.revokedUsers());
+        assertTrue(token.length() < 256, "token is " + token.length() + " bytes");
+    }
+
+    /**
+     * Per-request cost of authenticating a token. Opt-in:
+     * mvn test -Dtest=AccessTokenServiceTests -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void verificationOverhead() {
+        String token = tokens.issue(42L, "dana@example.com", "dana", UserRole.USER, 0);
+        for (int i = 0; i < 200; i++) {
+            tokens.revoke(1_000L + i, 1);
+        }
+
+        int warmup = 20_000;
+        int runs = 200_000;
+        for (int i = 0; i < warmup; i++) {
+            assertNotNull(tokens.verify(token));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            if (tokens.verify(token) == null) {
+                fail("token stopped verifying");
+            }
+        }
+        long nanos = (System.nanoTime() - start) / runs;
+
+        log.info("access token verify: {} ns/request ({} bytes token)", nanos, token.length());
+        assertTrue(nanos < 1_000_000, "verification should be far below a database round trip");
+    }
+}
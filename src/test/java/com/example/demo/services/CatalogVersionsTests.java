@@ -0,0 +1,62 @@
+package com.example.demo.services;
+
+import com.example.demo.events.CatalogChangedEvent;
+import com.example.demo.events.CatalogChangedEvent.Type;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogVersionsTests {
+
+    private final CatalogVersions catalogVersions = new CatalogVersions();
+
+    @Test
+    void productChangeMovesProductAndCategoryValidators() {
+        CatalogVersions.Stamp products = catalogVersions.products();
+        CatalogVersions.Stamp categories = catalogVersions.categories();
+
+        catalogVersions.onCatalogChanged(new CatalogChangedEvent(Type.PRODUCT, 1L, false, LocalDateTime.now()));
+
+        assertNotEquals(products.etag(null), catalogVersions.products().etag(null));
+        assertNotEquals(categories.etag(null), catalogVersions.categories().etag(null));
+    }
+
+    @Test
+    void categoryChangeLeavesProductValidatorAlone() {
+        CatalogVersions.Stamp products = catalogVersions.products();
+
+        catalogVersions.onCatalogChanged(new CatalogChangedEvent(Type.CATEGORY, 1L, false, LocalDateTime.now()));
+
+        assertEquals(products.etag(null), catalogVersions.products().etag(null));
+    }
+
+    @Test
+    void eventsOfOneTransactionBumpTheVersionOnce() {
+        CatalogVersions.Stamp before = catalogVersions.products();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (long id = 1; id <= 500; id++) {
+                catalogVersions.onCatalogChanged(new CatalogChangedEvent(Type.PRODUCT, id, false, LocalDateTime.now()));
+            }
+            assertEquals(before, catalogVersions.products(), "nothing moves before commit");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(before.version() + 1, catalogVersions.products().version());
+    }
+
+    @Test
+    void etagDependsOnRepresentation() {
+        CatalogVersions.Stamp stamp = catalogVersions.products();
+
+        assertNotEquals(stamp.etag("application/json"), stamp.etag("application/x-jackson-smile"));
+        assertTrue(stamp.etag(null).startsWith("\"") && stamp.etag(null).endsWith("\""));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTests {
+
+    @Test
+    void readsQuotedFieldsAcrossLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "name,description\r\n\"Phone, 5G\",\"says \"\"hi\"\"\nand more\"\nplain,\n"));
+
+        assertEquals(List.of("name", "description"), reader.next());
+        assertEquals(List.of("Phone, 5G", "says \"hi\"\nand more"), reader.next());
+        assertEquals(2, reader.recordLine());
+        assertEquals(List.of("plain", ""), reader.next());
+        assertEquals(4, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void quoteRoundTrips() throws IOException {
+        String value = "a \"b\", c";
+        CsvReader reader = new CsvReader(new StringReader(CsvReader.quote(value) + ",x"));
+
+        assertEquals(List.of(value, "x"), reader.next());
+        assertEquals("plain", CsvReader.quote("plain"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageServingServiceTests {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageServingServiceTests.class);
+
+    @TempDir
+    Path uploads;
+
+    @Test
+    void servesSingleByteRange() throws Exception {
+        byte[] content = randomBytes(200_000);
+        Files.write(uploads.resolve("photo.jpg"), content);
+        ImageServingService service = new ImageServingService(uploads.toString());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/photo.jpg");
+        request.addHeader("Range", "bytes=100-199");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve("/photo.jpg", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100-199/200000", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), response.getContentAsByteArray());
+    }
+
+    @Test
+    void rangeParsing() {
+        assertArrayEquals(new long[]{0, 9}, ImageServingService.parseRange("bytes=0-9", 100));
+        assertArrayEquals(new long[]{90, 99}, ImageServingService.parseRange("bytes=-10", 100));
+        assertArrayEquals(new long[]{50, 99}, ImageServingService.parseRange("bytes=50-", 100));
+        assertArrayEquals(new long[]{50, 99}, ImageServingService.parseRange("bytes=50-500", 100));
+        assertSame(ImageServingService.UNSATISFIABLE, ImageServingService.parseRange("bytes=100-", 100));
+        assertNull(ImageServingService.parseRange("bytes=0-1,5-6", 100));
+        assertNull(ImageServingService.parseRange("items=0-1", 100));
+    }
+
+    @Test
+    void prefersPrecompressedVariantAndMarksHashedNamesImmutable() throws Exception {
+        Files.writeString(uploads.resolve("0123456789abcdef0123.svg"), "<svg/>".repeat(100));
+        Files.write(uploads.resolve("0123456789abcdef0123.svg.gz"), new byte[]{1, 2, 3});
+        ImageServingService service = new ImageServingService(uploads.toString());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/0123456789abcdef0123.svg");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve("/0123456789abcdef0123.svg", request, response);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("image/svg+xml", response.getContentType());
+        assertEquals(3, response.getContentAsByteArray().length);
+        assertTrue(response.getHeader("Cache-Control").contains("immutable"));
+    }
+
+    @Test
+    void rejectsPathsOutsideUploads() {
+        ImageServingService service = new ImageServingService(uploads.toString());
+
+        assertNull(service.resolve("/../secret.txt"));
+        assertNull(service.resolve("/.hidden/file.jpg"));
+        assertNotNull(service.resolve("/products/1/photo.jpg"));
+    }
+
+    @Test
+    void servesSameBytesAsResourceHandler() throws Exception {
+        Files.write(uploads.resolve("small.jpg"), randomBytes(20_000));
+        Files.write(uploads.resolve("large.jpg"), randomBytes(2_000_000));
+
+        ImageServingService service = new ImageServingService(uploads.toString());
+        ResourceHttpRequestHandler handler = new ResourceHttpRequestHandler();
+        handler.setLocations(List.of(new FileSystemResource(uploads.toString() + "/")));
+        handler.setServletContext(new MockServletContext());
+        handler.afterPropertiesSet();
+
+        for (String name : List.of("small.jpg", "large.jpg")) {
+            MockHttpServletRequest handlerRequest = new MockHttpServletRequest("GET", "/uploads/" + name);
+            handlerRequest.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, name);
+            MockHttpServletResponse expected = new MockHttpServletResponse();
+            handler.handleRequest(handlerRequest, expected);
+
+            // Served twice so the small file also comes from the in-memory cache
+            for (int i = 0; i < 2; i++) {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                service.serve("/" + name, new MockHttpServletRequest("GET", "/uploads/" + name), response);
+                assertEquals(expected.getContentLengthLong(), response.getContentLengthLong(), name);
+                assertArrayEquals(expected.getContentAsByteArray(), response.getContentAsByteArray(), name);
+            }
+        }
+    }
+
+    /**
+     * Requests per second against Spring's ResourceHttpRequestHandler. Opt-in:
+     * mvn test -Dtest=ImageServingServiceTests -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void throughputAgainstResourceHandler() throws Exception {
+        Files.write(uploads.resolve("small.jpg"), randomBytes(20_000));
+        Files.write(uploads.resolve("large.jpg"), randomBytes(2_000_000));
+
+        ImageServingService service = new ImageServingService(uploads.toString());
+        ResourceHttpRequestHandler handler = new ResourceHttpRequestHandler();
+        handler.setLocations(List.of(new FileSystemResource(uploads.toString() + "/")));
+        handler.setServletContext(new MockServletContext());
+        handler.afterPropertiesSet();
+
+        for (String name : List.of("small.jpg", "large.jpg")) {
+            long current = averageNanos(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + name);
+                request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, name);
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                handler.handleRequest(request, response);
+                return response.getContentAsByteArray().length;
+            });
+            long dedicated = averageNanos(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + name);
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                service.serve("/" + name, request, response);
+                return response.getContentAsByteArray().length;
+            });
+            // In-process only: mock responses have no sendfile, so large files go through transferTo
+            log.info("{}: resource handler {} req/s, image service {} req/s",
+                    name, 1_000_000_000L / current, 1_000_000_000L / dedicated);
+            if (name.equals("small.jpg")) {
+                assertTrue(dedicated < current, "expected cached small files to beat the resource handler");
+            }
+        }
+    }
+
+    @Test
+    void versionTokenFollowsFileContent() throws Exception {
+        Path file = uploads.resolve("logo.png");
+        Files.write(file, randomBytes(1_000));
+        ImageServingService service = new ImageServingService(uploads.toString());
+
+        String first = service.versionedUrl("logo.png");
+        assertEquals(first, service.versionedUrl("logo.png"));
+
+        Files.write(file, new byte[500]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+
+        assertNotEquals(first, service.versionedUrl("logo.png"));
+        assertEquals(1, service.contentHashCount());
+    }
+
+    private long averageNanos(Callable<?> task) throws Exception {
+        int warmup = 20;
+        int runs = 100;
+        for (int i = 0; i < warmup; i++) {
+            task.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            task.call();
+        }
+        return (System.nanoTime() - start) / runs;
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
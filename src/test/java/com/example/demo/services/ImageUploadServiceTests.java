@@ -0,0 +1,115 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.entities.Category;
+import com.example.demo.entities.ImageBlob;
+import com.example.demo.entities.ImageVariant;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.ProductImage;
+import com.example.demo.repositories.CategoryRepo;
+import com.example.demo.repositories.ProductImageRepo;
+import com.example.demo.repositories.ProductRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Uploads commit for real here, since variants are only scheduled after commit. The blob
+ * store's upsert is MySQL-only, so it is mocked to hand back the same blob every time.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({ImageUploadService.class, ImageServingService.class, OrderMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImageUploadServiceTests {
+
+    @TempDir
+    static Path uploads;
+
+    @DynamicPropertySource
+    static void uploadsDir(DynamicPropertyRegistry registry) {
+        registry.add("app.uploads.dir", uploads::toString);
+    }
+
+    @MockitoBean
+    private ImageVariantGenerator imageVariantGenerator;
+
+    @MockitoBean
+    private BlobStore blobStore;
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private CategoryRepo categoryRepo;
+
+    @Autowired
+    private ProductImageRepo productImageRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reuploadRetriesVariantsOnlyWhileTheImageHasNone() throws IOException {
+        Category category = categoryRepo.save(new Category("Phones", "Phones"));
+        Long productId = productRepo.save(new Product("Phone", "", 100, category, 5, "B", "P1")).getId();
+        MockMultipartFile file = new MockMultipartFile("file", "phone.png", "image/png", png());
+        String hash = "ab".repeat(32);
+        ImageBlob blob = new ImageBlob();
+        blob.setHash(hash);
+        blob.setPath("originals/ab/" + hash + ".png");
+        when(blobStore.receive(any())).thenAnswer(invocation -> {
+            Path received = Files.createTempFile(uploads, "upload-", ".part");
+            Files.write(received, png());
+            return new BlobStore.Received(received, hash);
+        });
+        when(blobStore.commit(any(), eq("png"))).thenReturn(blob);
+        when(blobStore.path(blob)).thenReturn(uploads.resolve(blob.getPath()));
+
+        Long imageId = imageUploadService.upload(productId, file, true).getId();
+        verify(imageVariantGenerator).submit(eq(imageId), any(), any(), eq("png"));
+
+        // The first task was dropped: the same upload schedules it again
+        assertEquals(imageId, imageUploadService.upload(productId, file, true).getId());
+        verify(imageVariantGenerator, times(2)).submit(eq(imageId), any(), any(), eq("png"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ProductImage image = productImageRepo.findById(imageId).orElseThrow();
+            image.getVariants().add(new ImageVariant(160, 120, ImageVariant.PNG, "/uploads/variants/x.png", 10));
+        });
+        imageUploadService.upload(productId, file, true);
+        verify(imageVariantGenerator, times(2)).submit(any(), any(), any(), any());
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
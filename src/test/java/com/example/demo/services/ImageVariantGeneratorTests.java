@@ -0,0 +1,45 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.ImageVariant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantGeneratorTests {
+
+    @TempDir
+    Path uploads;
+
+    @Test
+    void writesJpegAndWebpForEachWidth() throws Exception {
+        ImageServingService imageServingService = new ImageServingService(uploads.toString());
+        BlobStore blobStore = new BlobStore();
+        ReflectionTestUtils.setField(blobStore, "imageServingService", imageServingService);
+        ImageVariantGenerator generator = new ImageVariantGenerator();
+        ReflectionTestUtils.setField(generator, "imageServingService", imageServingService);
+        ReflectionTestUtils.setField(generator, "blobStore", blobStore);
+
+        Path original = uploads.resolve("photo.jpg");
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "jpeg", original.toFile());
+        String hash = "ab".repeat(32);
+
+        List<ImageVariant> variants = generator.resize(original, hash, "jpeg");
+
+        // 160, 320 and 640 are below the original width; 1280 would be an upscale
+        assertEquals(List.of("jpeg", "webp", "jpeg", "webp", "jpeg", "webp"),
+                variants.stream().map(ImageVariant::getFormat).toList());
+        Path webp = blobStore.variantPath(hash, 320, "webp");
+        assertTrue(Files.size(webp) > 0);
+        BufferedImage decoded = ImageIO.read(webp.toFile());
+        assertEquals(320, decoded.getWidth());
+        assertEquals(240, decoded.getHeight());
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Correctness against a HashMap, plus the footprint of a 100k-product catalog
+ * compared with HashMap<Long, byte[]>. Lookup and update throughput only on request:
+ * mvn test -Dtest=LongBytesTableTests -Dbenchmark=true
+ */
+class LongBytesTableTests {
+
+    private static final Logger log = LoggerFactory.getLogger(LongBytesTableTests.class);
+
+    private static final int PRODUCTS = 100_000;
+
+    @Test
+    void copyOnWriteMatchesHashMap() {
+        Random random = new Random(42);
+        Map<Long, byte[]> expected = new HashMap<>();
+        LongBytesTable table = LongBytesTable.EMPTY;
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                table = table.without(key);
+                expected.remove(key);
+                assertNull(table.get(key));
+                assertSame(table, table.without(key), "removing an absent key should not copy");
+            } else {
+                byte[] value = ("v" + i).getBytes(StandardCharsets.UTF_8);
+                LongBytesTable before = table;
+                byte[] previous = before.get(key);
+                table = table.with(key, value);
+                expected.put(key, value);
+                // Readers holding the previous version still see the old value
+                assertSame(previous, before.get(key));
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Long, byte[]> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), table.get(entry.getKey()));
+        }
+        for (long key = 1; key <= 2_000; key++) {
+            assertEquals(expected.get(key), table.get(key));
+        }
+    }
+
+    @Test
+    void withoutAllMatchesRemovingOneByOne() {
+        Random random = new Random(7);
+        LongBytesTable table = LongBytesTable.EMPTY;
+        for (long key = 1; key <= 3_000; key++) {
+            table = table.with(key, new byte[]{(byte) key});
+        }
+
+        List<Long> removed = new ArrayList<>();
+        LongBytesTable oneByOne = table;
+        for (int i = 0; i < 800; i++) {
+            long key = 1 + random.nextInt(4_000);
+            removed.add(key);
+            oneByOne = oneByOne.without(key);
+        }
+        LongBytesTable batch = table.withoutAll(removed);
+
+        assertEquals(oneByOne.size(), batch.size());
+        for (long key = 1; key <= 4_000; key++) {
+            assertSame(oneByOne.get(key), batch.get(key));
+        }
+        assertEquals(3_000, table.size());
+        assertSame(batch, batch.withoutAll(removed), "removing absent keys should not copy");
+    }
+
+    @Test
+    void rejectsReservedKey() {
+        assertThrows(IllegalArgumentException.class, () -> LongBytesTable.EMPTY.with(0, new byte[1]));
+        assertNull(LongBytesTable.EMPTY.get(0));
+    }
+
+    @Test
+    void hundredThousandProducts() {
+        byte[][] json = new byte[PRODUCTS + 1][];
+        LongBytesTable.Builder builder = new LongBytesTable.Builder(PRODUCTS);
+        Map<Long, byte[]> boxed = new HashMap<>();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            json[id] = sampleJson(id);
+            builder.put(id, json[id]);
+            boxed.put((long) id, json[id]);
+        }
+        LongBytesTable table = builder.build();
+        assertEquals(PRODUCTS, table.size());
+
+        // HashMap<Long, byte[]>: 32-byte node + 16-byte Long per entry, plus a 4-byte table slot at 0.75 load
+        long boxedOverhead = PRODUCTS * (32L + 16L) + Integer.highestOneBit(PRODUCTS * 4 / 3) * 2L * 4L;
+        assertTrue(table.overheadBytes() < boxedOverhead,
+                "table overhead " + table.overheadBytes() + " bytes, HashMap<Long, byte[]> ~" + boxedOverhead + " bytes");
+        assertTrue(table.overheadBytes() < table.valueBytes() / 10,
+                "table overhead " + table.overheadBytes() + " bytes for " + table.valueBytes() + " bytes of values");
+
+        for (int id = 1; id <= PRODUCTS; id++) {
+            assertSame(json[id], table.get(id));
+        }
+
+        // An update copies the table; readers of the old version are unaffected
+        LongBytesTable updated = table.with(PRODUCTS / 2, json[1]);
+        assertSame(json[1], updated.get(PRODUCTS / 2));
+        assertSame(json[PRODUCTS / 2], table.get(PRODUCTS / 2));
+        assertEquals(PRODUCTS, updated.size());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void hundredThousandProductsThroughput() {
+        byte[][] json = new byte[PRODUCTS + 1][];
+        LongBytesTable.Builder builder = new LongBytesTable.Builder(PRODUCTS);
+        Map<Long, byte[]> boxed = new HashMap<>();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            json[id] = sampleJson(id);
+            builder.put(id, json[id]);
+            boxed.put((long) id, json[id]);
+        }
+        LongBytesTable table = builder.build();
+
+        Random random = new Random(7);
+        long[] keys = new long[1 << 20];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1 + random.nextInt(PRODUCTS);
+        }
+        long tableNanos = lookups(keys, table::get);
+        long boxedNanos = lookups(keys, key -> boxed.get(key));
+        log.info("100k products, random lookups: table {} ns/op, HashMap<Long, byte[]> {} ns/op",
+                String.format("%.1f", (double) tableNanos / keys.length), String.format("%.1f", (double) boxedNanos / keys.length));
+
+        // One product update copies a single 1/16 shard
+        LongBytesTable.Builder shardBuilder = new LongBytesTable.Builder(PRODUCTS / 16);
+        for (int id = 16; id <= PRODUCTS; id += 16) {
+            shardBuilder.put(id, json[id]);
+        }
+        LongBytesTable shard = shardBuilder.build();
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            shard = shard.with(16L * (1 + random.nextInt(PRODUCTS / 16)), json[1]);
+        }
+        long updateMicros = (System.nanoTime() - start) / 1_000 / 1_000;
+        log.info("copy-on-write update of a {}-entry shard: {} us/op", shard.size(), updateMicros);
+
+        // An update has to stay far below the time between catalog changes
+        assertTrue(updateMicros < 10_000, "shard update took " + updateMicros + " us");
+    }
+
+    private long lookups(long[] keys, LongFunction<byte[]> get) {
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {
+            for (long key : keys) {
+                sink += get.apply(key).length;
+            }
+        }
+        long start = System.nanoTime();
+        for (long key : keys) {
+            sink += get.apply(key).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return elapsed;
+    }
+
+    private byte[] sampleJson(int id) {
+        return ("{\"id\":" + id + ",\"name\":\"Laptop " + id + "\",\"description\":\"A long marketing description for laptop "
+                + id + "\",\"price\":" + (3000 + id * 0.5) + ",\"brand\":\"Brand\",\"model\":\"Model-" + id
+                + "\",\"images\":[{\"id\":" + id * 10 + ",\"imageUrl\":\"/uploads/laptop-" + id
+                + ".jpg\",\"isMain\":true,\"variants\":[]}],\"mainImage\":\"/uploads/laptop-" + id
+                + ".jpg\",\"thumbnail\":\"/uploads/laptop-" + id + ".jpg\",\"quantity\":20,\"active\":true,"
+                + "\"categoryId\":1,\"specifications\":[{\"specName\":\"RAM\",\"specValue\":\"16GB\"}]}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
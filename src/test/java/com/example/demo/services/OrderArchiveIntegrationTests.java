@@ -0,0 +1,219 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.OrderDto;
+import com.example.demo.entities.PaymentStatus;
+import com.example.demo.entities.Product;
+import com.example.demo.repositories.OrderItemRepo;
+import com.example.demo.repositories.OrderRepo;
+import com.example.demo.repositories.PaymentRepo;
+import com.example.demo.repositories.ProductRepo;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OrderArchive against a MySQL schema built by the Flyway migrations. Needs a scratch
+ * database, which is wiped before each test:
+ * <pre>
+ * mvn test -Dtest=OrderArchiveIntegrationTests -Dtest.mysql.url=jdbc:mysql://localhost:3306/archive_test \
+ *     -Dtest.mysql.user=root -Dtest.mysql.password=...
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "test.mysql.url", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.flyway.clean-disabled=false",
+        "app.archive.enabled=false",
+        "app.archive.batch-size=3",
+        "app.archive.pause=PT0S"
+})
+class OrderArchiveIntegrationTests {
+
+    private static final LocalDateTime OLD = LocalDateTime.of(2023, 3, 1, 12, 0);
+    private static final LocalDateTime RECENT = LocalDateTime.now().minusDays(1);
+    private static final LocalDateTime CUTOFF = LocalDateTime.now().minusDays(365);
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("test.mysql.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("test.mysql.user", "root"));
+        registry.add("spring.datasource.password", () -> System.getProperty("test.mysql.password", ""));
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private OrderItemRepo orderItemRepo;
+
+    @Autowired
+    private PaymentRepo paymentRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    private long userId;
+    private long phoneId;
+    private long cableId;
+
+    @BeforeEach
+    void schema() {
+        flyway.clean();
+        flyway.migrate();
+
+        jdbcTemplate.update("INSERT INTO users (email, username, password, active) VALUES ('a@example.com', 'a', 'x', TRUE)");
+        userId = lastId();
+        jdbcTemplate.update("INSERT INTO categories (name, active) VALUES ('Phones', TRUE)");
+        long categoryId = lastId();
+        jdbcTemplate.update("INSERT INTO product (name, price, quantity, active, category_id) VALUES ('Phone', 1000, 5, TRUE, ?)", categoryId);
+        phoneId = lastId();
+        jdbcTemplate.update("INSERT INTO product (name, price, quantity, active, category_id) VALUES ('Cable', 20, 50, TRUE, ?)", categoryId);
+        cableId = lastId();
+    }
+
+    @Test
+    void archivesClosedOrdersOnlyAndReportsKeepTheirTotals() {
+        List<Long> closed = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            closed.add(order(OLD.plusDays(i), i % 3 == 0 ? "REFUNDED" : "COMPLETED", 1 + i % 2, i + 1));
+        }
+        // Old order without any payment is closed too
+        closed.add(order(OLD.plusDays(10), null, 1, 1));
+        long pendingOld = order(OLD.plusDays(20), "PENDING", 1, 2);
+        long recent = order(RECENT, "COMPLETED", 2, 3);
+
+        Reports before = reports();
+        int[] rowsBefore = {count("orders") + count("orders_archive"), count("order_items") + count("order_items_archive"),
+                count("payments") + count("payments_archive")};
+
+        assertEquals(closed.size(), archive());
+
+        // Copy and delete covered the same orders, with their items and payments
+        assertEquals(new HashSet<>(closed), ids("SELECT id FROM orders_archive"));
+        assertEquals(Set.of(pendingOld, recent), ids("SELECT id FROM orders"));
+        assertEquals(new HashSet<>(closed), ids("SELECT DISTINCT order_id FROM order_items_archive"));
+        assertEquals(Set.of(pendingOld, recent), ids("SELECT DISTINCT order_id FROM order_items"));
+        assertEquals(Set.of(pendingOld, recent), ids("SELECT order_id FROM payments"));
+        assertTrue(new HashSet<>(closed).containsAll(ids("SELECT order_id FROM payments_archive")));
+        assertArrayEquals(rowsBefore, new int[]{count("orders") + count("orders_archive"),
+                count("order_items") + count("order_items_archive"), count("payments") + count("payments_archive")});
+
+        // Reports union both stores, so archiving does not change them
+        assertEquals(before, reports());
+
+        // Nothing left to move; a second run is a no-op
+        assertEquals(0, archive());
+    }
+
+    @Test
+    void archivedOrderIsMappedLikeALiveOne() {
+        long id = order(OLD, "COMPLETED", 2, 1);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity, unit_price) VALUES (?, ?, 3, 20)",
+                id, cableId);
+        jdbcTemplate.update("UPDATE orders SET total_amount = 2060, shipping_city = 'Haifa' WHERE id = ?", id);
+
+        assertEquals(1, archive());
+
+        OrderDto order = orderArchive.findOrder(id, FieldSet.ALL).orElseThrow();
+        assertEquals(id, order.getId());
+        assertEquals(2060, order.getTotalAmount(), 0.001);
+        assertEquals("Haifa", order.getShippingCity());
+        assertEquals(OLD, order.getCreatedAt());
+        assertEquals(userId, order.getUser().getId());
+        assertEquals(2, order.getOrderItems().size());
+        assertEquals("Phone", order.getOrderItems().get(0).getProduct().getName());
+        assertEquals(2, order.getOrderItems().get(0).getQuantity());
+        assertEquals(60, order.getOrderItems().get(1).getTotalAmount(), 0.001);
+        assertTrue(orderArchive.findOrder(id + 1000, FieldSet.ALL).isEmpty());
+    }
+
+    private int archive() {
+        try {
+            return orderArchive.archive(CUTOFF);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // One order with phones and a payment (null status: no payment row)
+    private long order(LocalDateTime createdAt, String paymentStatus, int phones, int day) {
+        double total = phones * 1000;
+        jdbcTemplate.update("INSERT INTO orders (user_id, order_date, created_at, updated_at, total_amount) VALUES (?, ?, ?, ?, ?)",
+                userId, LocalDate.of(createdAt.getYear(), createdAt.getMonth(), Math.min(day, 28)),
+                Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt), total);
+        long id = lastId();
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity, unit_price) VALUES (?, ?, ?, 1000)",
+                id, phoneId, phones);
+        if (paymentStatus != null) {
+            jdbcTemplate.update("INSERT INTO payments (order_id, payment_method, payment_status, amount, payment_date) " +
+                    "VALUES (?, 'CREDIT_CARD', ?, ?, ?)", id, paymentStatus, total, Timestamp.valueOf(createdAt));
+        }
+        return id;
+    }
+
+    private record Reports(List<String> revenueByDate, List<String> salesByProduct, List<String> topSelling,
+                           Double completedPayments, List<String> paymentsByMethod, List<Long> popular,
+                           List<String> itemsSold) {
+    }
+
+    private Reports reports() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.now().plusDays(1);
+        return new Reports(
+                rows(orderRepo.sumOrderAmountsByDate(from, to)),
+                rows(orderItemRepo.calculateTotalSalesByProduct()),
+                rows(orderItemRepo.findTopSellingProducts(10)),
+                paymentRepo.sumCompletedPaymentsBetweenDates(from.atStartOfDay(), to.atStartOfDay()),
+                rows(paymentRepo.countAndSumPaymentsByMethod(PaymentStatus.COMPLETED)),
+                productRepo.findPopularProducts(10).stream().map(Product::getId).toList(),
+                orderItemService.getItemsSoldInDateRange(from, to).stream()
+                        .map(item -> item.getId() + ":" + item.getOrder().getId() + ":" + item.getProduct().getId() + ":" + item.getQuantity())
+                        .sorted().toList());
+    }
+
+    // Native rows as comparable strings; product order for equal totals is not defined
+    private static List<String> rows(List<Object[]> rows) {
+        return rows.stream().map(Arrays::toString).sorted().toList();
+    }
+
+    private Set<Long> ids(String sql) {
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private long lastId() {
+        return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.entities.*;
+import com.example.demo.repositories.OrderItemRepo;
+import com.example.demo.repositories.OrderRepo;
+import com.example.demo.repositories.PaymentRepo;
+import com.example.demo.repositories.ProductRepo;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The archive chunks and the unioned reports on H2, so they run in the default build;
+ * OrderArchiveIntegrationTests repeats this against the MySQL migrations.
+ */
+@DataJpaTest(properties = {
+        "spring.sql.init.schema-locations=classpath:order-archive-h2.sql",
+        "app.archive.batch-size=3",
+        "app.archive.pause=PT0S"
+})
+@ActiveProfiles("h2")
+@Import({OrderArchive.class, OrderMapper.class})
+class OrderArchiveTests {
+
+    private static final LocalDateTime OLD = LocalDateTime.of(2023, 3, 1, 12, 0);
+    private static final LocalDateTime CUTOFF = LocalDateTime.now().minusDays(365);
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private OrderItemRepo orderItemRepo;
+
+    @Autowired
+    private PaymentRepo paymentRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    private User user;
+    private Product phone;
+    private Product cable;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("buyer", "secret", "buyer@example.com", "050", "Street 1", UserRole.USER);
+        entityManager.persist(user);
+        Category category = new Category("Phones", "Phones");
+        entityManager.persist(category);
+        phone = new Product("Phone", "", 1000, category, 5, "B", "P1");
+        entityManager.persist(phone);
+        cable = new Product("Cable", "", 20, category, 50, "B", "C1");
+        entityManager.persist(cable);
+    }
+
+    @Test
+    void closedOrdersMoveInChunksWithTheirItemsAndPayments() throws InterruptedException {
+        List<Long> closed = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            closed.add(order(OLD.plusDays(i), i % 3 == 0 ? PaymentStatus.REFUNDED : PaymentStatus.COMPLETED, 1 + i % 2));
+        }
+        // Old order without any payment is closed too
+        closed.add(order(OLD.plusDays(10), null, 1));
+        long pendingOld = order(OLD.plusDays(20), PaymentStatus.PENDING, 1);
+        long recent = order(LocalDateTime.now().minusDays(1), PaymentStatus.COMPLETED, 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        Reports before = reports();
+
+        // Three full chunks of three, the last one short
+        assertEquals(closed.size(), orderArchive.archive(CUTOFF));
+        assertEquals(new HashSet<>(closed), ids("SELECT id FROM orders_archive"));
+        assertEquals(Set.of(pendingOld, recent), ids("SELECT id FROM orders"));
+        assertEquals(new HashSet<>(closed), ids("SELECT DISTINCT order_id FROM order_items_archive"));
+        assertEquals(Set.of(pendingOld, recent), ids("SELECT DISTINCT order_id FROM order_items"));
+        assertEquals(7, count("payments_archive"));
+        assertEquals(Set.of(pendingOld, recent), ids("SELECT order_id FROM payments"));
+
+        assertEquals(before, reports());
+        assertEquals(0, orderArchive.archive(CUTOFF));
+    }
+
+    @Test
+    void archivedItemsComeBackWithTheirOrderAndProduct() throws InterruptedException {
+        long id = order(OLD, PaymentStatus.COMPLETED, 2);
+        Order order = entityManager.find(Order.class, id);
+        entityManager.persist(new OrderItem(order, cable, 3, 20));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, orderArchive.archive(CUTOFF));
+
+        List<OrderItem> items = orderArchive.findItemsByOrderDate(OLD.toLocalDate(), OLD.toLocalDate());
+        assertEquals(2, items.size());
+        assertSame(items.get(0).getOrder(), items.get(1).getOrder());
+        assertEquals(id, items.get(0).getOrder().getId());
+        assertEquals(user.getId(), items.get(0).getOrder().getUser().getId());
+        assertEquals(2, items.get(0).getOrder().getOrderItems().size());
+        assertEquals("Phone", items.get(0).getProduct().getName());
+        assertEquals(60, items.get(1).getTotalPrice(), 0.001);
+        assertTrue(orderArchive.findItemsByOrderDate(OLD.toLocalDate().plusDays(1), LocalDate.now()).isEmpty());
+    }
+
+    // One order with phones and a payment (null status: no payment)
+    private long order(LocalDateTime createdAt, PaymentStatus paymentStatus, int phones) {
+        Order order = new Order(user, createdAt.toLocalDate());
+        order.setCreatedAt(createdAt);
+        order.setTotalAmount(phones * 1000);
+        entityManager.persist(order);
+        entityManager.persist(new OrderItem(order, phone, phones, 1000));
+        if (paymentStatus != null) {
+            Payment payment = new Payment(order, PaymentMethod.CREDIT_CARD, phones * 1000);
+            payment.setPaymentStatus(paymentStatus);
+            payment.setPaymentDate(createdAt);
+            entityManager.persist(payment);
+        }
+        return order.getId();
+    }
+
+    private record Reports(List<String> revenueByDate, List<String> salesByProduct, List<String> topSelling,
+                           Double completedPayments, List<String> paymentsByMethod, List<Long> popular,
+                           Set<Long> itemsSold) {
+    }
+
+    private Reports reports() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.now().plusDays(1);
+        Set<Long> itemsSold = new HashSet<>();
+        orderItemRepo.findByOrderOrderDateBetween(from, to).forEach(item -> itemsSold.add(item.getId()));
+        orderArchive.findItemsByOrderDate(from, to).forEach(item -> itemsSold.add(item.getId()));
+        return new Reports(
+                rows(orderRepo.sumOrderAmountsByDate(from, to)),
+                rows(orderItemRepo.calculateTotalSalesByProduct()),
+                rows(orderItemRepo.findTopSellingProducts(10)),
+                paymentRepo.sumCompletedPaymentsBetweenDates(from.atStartOfDay(), to.atStartOfDay()),
+                rows(paymentRepo.countAndSumPaymentsByMethod(PaymentStatus.COMPLETED)),
+                productRepo.findPopularProducts(10).stream().map(Product::getId).toList(),
+                itemsSold);
+    }
+
+    // Native rows as comparable strings, with numbers normalized across the two stores
+    private static List<String> rows(List<Object[]> rows) {
+        return rows.stream().map(row -> Arrays.stream(row)
+                        .map(value -> value instanceof Number number ? String.valueOf(number.doubleValue()) : String.valueOf(value))
+                        .toList().toString())
+                .sorted().toList();
+    }
+
+    private Set<Long> ids(String sql) {
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.dto.OrderSummaryDto;
+import com.example.demo.dto.OrderSummaryPage;
+import com.example.demo.entities.Category;
+import com.example.demo.entities.Order;
+import com.example.demo.entities.OrderItem;
+import com.example.demo.entities.OrderSummary;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.User;
+import com.example.demo.entities.UserRole;
+import com.example.demo.repositories.OrderSummaryRepo;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset paging over order_summaries and keeping a summary in step with its
+ * order's lines, on H2.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({OrderSummaries.class, OrderItemService.class, OrderMapper.class})
+class OrderSummariesJpaTests {
+
+    @Autowired
+    private OrderSummaries orderSummaries;
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    @Autowired
+    private OrderSummaryRepo summaryRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    // Not exercised here
+    @MockitoBean
+    private ResultStreamingService resultStreamingService;
+
+    @MockitoBean
+    private OrderArchive orderArchive;
+
+    @Test
+    void pagesThroughEqualTimestampsWithoutGapsOrDuplicates() {
+        LocalDateTime tie = LocalDateTime.of(2026, 5, 1, 10, 0, 0, 123_456_000);
+        List<Long> expected = new ArrayList<>();
+        // Newest first: one later order, seven sharing a timestamp, one earlier
+        for (long id : new long[]{100, 17, 16, 15, 14, 13, 12, 11, 5}) {
+            LocalDateTime createdAt = id == 100 ? tie.plusSeconds(1) : id == 5 ? tie.minusSeconds(1) : tie;
+            summaryRepo.save(summary(id, 1L, createdAt));
+            expected.add(id);
+        }
+        summaryRepo.save(summary(50L, 2L, tie));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderSummaryPage page = orderSummaries.page(1L, cursor, 3);
+            page.getItems().stream().map(OrderSummaryDto::getOrderId).forEach(seen::add);
+            cursor = page.getNextCursor();
+            assertTrue(++pages <= expected.size(), "paging does not terminate");
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    void summaryFollowsItemEdits() {
+        User user = new User("buyer", "secret", "buyer@example.com", "050", "Street 1", UserRole.USER);
+        entityManager.persist(user);
+        Category category = new Category("Phones", "Smartphones");
+        entityManager.persist(category);
+        Product phone = new Product("Phone", "A phone", 1000, category, 10, "Brand", "X1");
+        Product cable = new Product("Cable", "A cable", 20, category, 100, "Brand", "C1");
+        entityManager.persist(phone);
+        entityManager.persist(cable);
+        Order order = new Order(user, LocalDate.now());
+        entityManager.persist(order);
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderItem phoneLine = orderItemService.add(new OrderItem(order, phone, 1, 1000));
+        assertSummary(order.getId(), 1, 1000);
+
+        OrderItem cableLine = orderItemService.add(new OrderItem(order, cable, 3, 20));
+        assertSummary(order.getId(), 4, 1060);
+
+        orderItemService.updateQuantity(cableLine.getId(), 5);
+        assertSummary(order.getId(), 6, 1100);
+
+        OrderItem twoPhones = new OrderItem();
+        twoPhones.setQuantity(2);
+        orderItemService.update(phoneLine.getId(), twoPhones);
+        assertSummary(order.getId(), 7, 2100);
+
+        orderItemService.delete(cableLine.getId());
+        assertSummary(order.getId(), 2, 2000);
+    }
+
+    private void assertSummary(Long orderId, int itemCount, double totalAmount) {
+        entityManager.flush();
+        entityManager.clear();
+        OrderSummary summary = summaryRepo.findById(orderId).orElseThrow();
+        assertEquals(itemCount, summary.getItemCount(), "itemCount");
+        assertEquals(totalAmount, summary.getTotalAmount(), 0.001, "totalAmount");
+    }
+
+    private static OrderSummary summary(Long orderId, Long userId, LocalDateTime createdAt) {
+        OrderSummary summary = new OrderSummary();
+        summary.setOrderId(orderId);
+        summary.setUserId(userId);
+        summary.setCreatedAt(createdAt);
+        return summary;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderSummariesTests {
+
+    @Test
+    void cursorRoundTripsAtMicrosecondPrecision() {
+        OrderSummaries.Cursor cursor = new OrderSummaries.Cursor(LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_000), 42L);
+
+        assertEquals(cursor, OrderSummaries.Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OrderSummaries.Cursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> OrderSummaries.Cursor.decode("!!"));
+    }
+}
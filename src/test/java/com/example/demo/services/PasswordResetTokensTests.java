@@ -0,0 +1,84 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.PasswordResetToken;
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.repositories.PasswordResetTokenRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {"app.auth.reset-limit=2", "app.auth.reset-limit-window=PT15M"})
+@ActiveProfiles("h2")
+@Import(PasswordResetTokens.class)
+class PasswordResetTokensTests {
+
+    @Autowired
+    private PasswordResetTokens passwordResetTokens;
+
+    @Autowired
+    private PasswordResetTokenRepo tokenRepo;
+
+    @Test
+    void tokenIsStoredHashedAndWorksOnce() {
+        String token = passwordResetTokens.issue(7L);
+
+        assertTrue(tokenRepo.findAll().stream().noneMatch(row -> row.getTokenHash().equals(token)));
+        assertEquals(7L, passwordResetTokens.consume(token).orElseThrow());
+        assertTrue(passwordResetTokens.consume(token).isEmpty());
+        assertEquals(0, tokenRepo.count());
+    }
+
+    @Test
+    void expiredTokenIsRejectedAndRemoved() {
+        tokenRepo.save(new PasswordResetToken(PasswordResetTokens.hash("old"), 7L, LocalDateTime.now().minusSeconds(1)));
+
+        assertTrue(passwordResetTokens.consume("old").isEmpty());
+        assertEquals(0, tokenRepo.count());
+    }
+
+    @Test
+    void reissuingReplacesTheEarlierToken() {
+        String first = passwordResetTokens.issue(7L);
+        String second = passwordResetTokens.issue(7L);
+        String otherUser = passwordResetTokens.issue(8L);
+
+        assertTrue(passwordResetTokens.consume(first).isEmpty());
+        assertEquals(7L, passwordResetTokens.consume(second).orElseThrow());
+        assertEquals(8L, passwordResetTokens.consume(otherUser).orElseThrow());
+    }
+
+    @Test
+    void requestsAreLimitedPerEmailWhateverItsCase() {
+        passwordResetTokens.checkRateLimit("dana@example.com");
+        passwordResetTokens.checkRateLimit(" Dana@Example.com");
+
+        assertThrows(TooManyRequestsException.class, () -> passwordResetTokens.checkRateLimit("DANA@example.com"));
+        passwordResetTokens.checkRateLimit("other@example.com");
+    }
+
+    // deleteExpired is MySQL's DELETE ... ORDER BY ... LIMIT, which H2 cannot run, so the repository is mocked
+    @Test
+    void purgeDeletesInChunksUntilAShortOne() {
+        PasswordResetTokenRepo repo = mock(PasswordResetTokenRepo.class);
+        when(repo.deleteExpired(any(), eq(1000))).thenReturn(1000, 1000, 7);
+        PasswordResetTokens tokens = new PasswordResetTokens(3, Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(tokens, "tokenRepo", repo);
+        ReflectionTestUtils.setField(tokens, "transactionManager", mock(PlatformTransactionManager.class));
+
+        tokens.purgeExpired();
+
+        verify(repo, times(3)).deleteExpired(any(), eq(1000));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.services;
+
+import com.example.demo.events.CatalogChangedEvent;
+import com.example.demo.services.PriceIndex.Index;
+import com.example.demo.services.PriceIndex.Row;
+import com.example.demo.services.PriceIndex.Segment;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceIndexTests {
+
+    @Test
+    void incrementalUpdatesMatchFullBuild() {
+        Random random = new Random(3);
+        Map<Long, Row> rows = new HashMap<>();
+        for (long id = 1; id <= 2_000; id++) {
+            rows.put(id, randomRow(random));
+        }
+        Index index = Index.build(rows);
+
+        for (int i = 0; i < 3_000; i++) {
+            long id = 1 + random.nextInt(2_500);
+            Row row = random.nextInt(5) == 0 ? null : randomRow(random);
+            Row old = row != null ? rows.put(id, row) : rows.remove(id);
+            index = index.replace(id, old, row);
+        }
+
+        Index rebuilt = Index.build(rows);
+        assertSameSegment(rebuilt.all(), index.all());
+        assertSameSegment(rebuilt.active(), index.active());
+        for (long categoryId = 1; categoryId <= 5; categoryId++) {
+            assertSameSegment(rebuilt.segment(categoryId, false), index.segment(categoryId, false));
+            assertSameSegment(rebuilt.segment(categoryId, true), index.segment(categoryId, true));
+        }
+    }
+
+    @Test
+    void batchMergesMatchFullBuild() {
+        Random random = new Random(5);
+        Map<Long, Row> rows = new HashMap<>();
+        for (long id = 1; id <= 2_000; id++) {
+            rows.put(id, randomRow(random));
+        }
+        Index index = Index.build(rows);
+
+        for (int batch = 0; batch < 20; batch++) {
+            Map<Long, Row> old = new HashMap<>();
+            Map<Long, Row> updated = new HashMap<>();
+            for (int i = 0; i < 300; i++) {
+                long id = 1 + random.nextInt(2_500);
+                if (old.containsKey(id) || updated.containsKey(id)) {
+                    continue;
+                }
+                Row row = random.nextInt(5) == 0 ? null : randomRow(random);
+                Row previous = row != null ? rows.put(id, row) : rows.remove(id);
+                if (previous != null) {
+                    old.put(id, previous);
+                }
+                if (row != null) {
+                    updated.put(id, row);
+                }
+            }
+            index = index.replaceAll(old, updated);
+        }
+
+        Index rebuilt = Index.build(rows);
+        assertSameSegment(rebuilt.all(), index.all());
+        assertSameSegment(rebuilt.active(), index.active());
+        for (long categoryId = 1; categoryId <= 5; categoryId++) {
+            assertSameSegment(rebuilt.segment(categoryId, false), index.segment(categoryId, false));
+            assertSameSegment(rebuilt.segment(categoryId, true), index.segment(categoryId, true));
+        }
+    }
+
+    @Test
+    void boundsAreInclusiveAndOrderedByPriceThenId() {
+        Map<Long, Row> rows = new HashMap<>();
+        rows.put(5L, new Row(10, 1L, true));
+        rows.put(2L, new Row(10, 1L, true));
+        rows.put(3L, new Row(20, 1L, false));
+        rows.put(4L, new Row(5, 2L, true));
+        Segment all = Index.build(rows).all();
+
+        assertArrayEquals(new long[]{4, 2, 5, 3}, all.ids);
+        assertEquals(1, all.lowerBound(10));
+        assertEquals(3, all.upperBound(10));
+        assertEquals(4, all.upperBound(20));
+        assertEquals(0, all.lowerBound(Double.NEGATIVE_INFINITY));
+        assertArrayEquals(new long[]{2, 5}, Index.build(rows).segment(1L, true).ids);
+    }
+
+    @Test
+    void failedRebuildIsRetriedWithoutCollectingChanges() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            PriceIndex priceIndex = new PriceIndex();
+            ReflectionTestUtils.setField(priceIndex, "jdbcTemplate", jdbcTemplate);
+            ReflectionTestUtils.setField(priceIndex, "namedJdbcTemplate", new NamedParameterJdbcTemplate(jdbcTemplate));
+            ReflectionTestUtils.setField(priceIndex, "executor", new SyncTaskExecutor());
+
+            // No product table yet, so the first build fails
+            priceIndex.warmUp();
+            assertNull(priceIndex.range(0, 100, null, false, 0, 10));
+            for (long id = 1; id <= PriceIndex.DIRTY_LIMIT + 10; id++) {
+                priceIndex.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT, id, false, LocalDateTime.now()));
+            }
+            assertNull(ReflectionTestUtils.getField(priceIndex, "dirty"));
+
+            jdbcTemplate.execute("CREATE TABLE product (id BIGINT PRIMARY KEY, price DOUBLE, category_id BIGINT, active BOOLEAN)");
+            jdbcTemplate.update("INSERT INTO product VALUES (1, 10, NULL, TRUE), (2, 5, 1, TRUE)");
+            priceIndex.retryRebuild();
+            assertNull(priceIndex.range(0, 100, null, false, 0, 10), "retry waits out its delay");
+
+            ReflectionTestUtils.setField(priceIndex, "retryAt", Instant.now());
+            priceIndex.retryRebuild();
+            assertArrayEquals(new long[]{2, 1}, priceIndex.range(0, 100, null, false, 0, 10).ids());
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    private void assertSameSegment(Segment expected, Segment actual) {
+        List<Long> expectedIds = ids(expected);
+        assertEquals(expectedIds, ids(actual));
+        if (expected != null && actual != null) {
+            assertArrayEquals(expected.prices, actual.prices);
+        }
+    }
+
+    // Same order expected; a category emptied by updates may linger as an empty segment
+    private List<Long> ids(Segment segment) {
+        List<Long> ids = new ArrayList<>();
+        if (segment != null) {
+            for (long id : segment.ids) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private Row randomRow(Random random) {
+        return new Row(random.nextInt(100) * 5.0, (long) (1 + random.nextInt(5)), random.nextInt(4) != 0);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ImportReport;
+import com.example.demo.dto.StockUpdateReport;
+import com.example.demo.entities.Category;
+import com.example.demo.entities.Product;
+import com.example.demo.events.CatalogChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The NDJSON price/stock sync on H2: the UPDATE's COALESCE/GREATEST rules, errors
+ * reported per line, and one catalog event per chunk.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@RecordApplicationEvents
+@Import({ProductBulkService.class, JacksonAutoConfiguration.class})
+class ProductBulkServiceTests {
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private long phone;
+    private long tablet;
+    private long laptop;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category("Devices", "Devices");
+        entityManager.persist(category);
+        phone = persist(new Product("Phone", "", 100, category, 10, "B", "P1"));
+        tablet = persist(new Product("Tablet", "", 200, category, 5, "B", "T1"));
+        laptop = persist(new Product("Laptop", "", 300, category, 2, "B", "L1"));
+        entityManager.flush();
+        entityManager.clear();
+        events.clear();
+    }
+
+    @Test
+    void omittedFieldsKeepTheirValueAndStockNeverGoesNegative() throws IOException {
+        StockUpdateReport report = apply(
+                "{\"productId\":" + phone + ",\"delta\":-3}",
+                "{\"productId\":" + phone + ",\"price\":80}",
+                "{\"productId\":" + tablet + ",\"quantity\":4,\"delta\":-9}",
+                "{\"productId\":" + laptop + ",\"price\":250,\"quantity\":7,\"delta\":1}");
+
+        assertEquals(4, report.getUpdated());
+        assertEquals(0, report.getFailed());
+        assertEquals(80.0, price(phone));
+        assertEquals(7, quantity(phone));
+        assertEquals(200.0, price(tablet));
+        assertEquals(0, quantity(tablet));
+        assertEquals(250.0, price(laptop));
+        assertEquals(8, quantity(laptop));
+    }
+
+    @Test
+    void badRecordsAreReportedByLineAndTheRestApplied() throws IOException {
+        StockUpdateReport report = apply(
+                "{\"productId\":" + phone + ",\"delta\":1}",
+                "{not json",
+                "{\"productId\":999999,\"delta\":1}",
+                "{\"productId\":" + tablet + "}",
+                "",
+                "{\"productId\":" + laptop + ",\"price\":-5}",
+                "{\"delta\":2}",
+                "{\"productId\":" + tablet + ",\"quantity\":1}");
+
+        assertEquals(7, report.getTotal());
+        assertEquals(2, report.getUpdated());
+        assertEquals(5, report.getFailed());
+        Map<Long, String> errors = new TreeMap<>();
+        for (ImportReport.RowError error : report.getErrors()) {
+            errors.put(error.getLine(), error.getMessage());
+        }
+        assertEquals(Set.of(2L, 3L, 4L, 6L, 7L), errors.keySet());
+        assertTrue(errors.get(2L).startsWith("Invalid JSON"));
+        assertEquals("Product not found with id: 999999", errors.get(3L));
+        assertEquals("Nothing to update: price, quantity or delta is required", errors.get(4L));
+        assertEquals("Price must be greater than 0", errors.get(6L));
+        assertEquals("productId is required", errors.get(7L));
+        assertEquals(11, quantity(phone));
+        assertEquals(1, quantity(tablet));
+        assertEquals(300.0, price(laptop));
+    }
+
+    @Test
+    void eachChunkPublishesOneEventForItsProducts() throws IOException {
+        int records = ProductBulkService.CHUNK_SIZE * 2 + 200;
+        long[] ids = {phone, tablet, laptop};
+        String[] lines = new String[records];
+        for (int i = 0; i < records; i++) {
+            lines[i] = "{\"productId\":" + ids[i % 3] + ",\"delta\":1}";
+        }
+
+        StockUpdateReport report = apply(lines);
+
+        assertEquals(records, report.getUpdated());
+        List<CatalogChangedEvent> published = events.stream(CatalogChangedEvent.class).toList();
+        assertEquals(3, published.size());
+        for (CatalogChangedEvent event : published) {
+            assertEquals(Set.of(phone, tablet, laptop), event.ids());
+        }
+        assertEquals(10 + records / 3, quantity(phone));
+    }
+
+    private long persist(Product product) {
+        entityManager.persist(product);
+        return product.getId();
+    }
+
+    private StockUpdateReport apply(String... lines) throws IOException {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return productBulkService.applyStockUpdates(new ByteArrayInputStream(body));
+    }
+
+    private double price(long id) {
+        return jdbcTemplate.queryForObject("SELECT price FROM product WHERE id = ?", Double.class, id);
+    }
+
+    private int quantity(long id) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM product WHERE id = ?", Integer.class, id);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.entities.Category;
+import com.example.demo.entities.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Price-range pages while the price index is not ready (the mock returns no slice):
+ * the database answers in (price, id) order, one page at a time.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({ProductService.class, OrderMapper.class})
+class ProductPriceRangeTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @MockitoBean
+    private PriceIndex priceIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long phones;
+
+    @BeforeEach
+    void setUp() {
+        Category phoneCategory = new Category("Phones", "Phones");
+        Category cableCategory = new Category("Cables", "Cables");
+        entityManager.persist(phoneCategory);
+        entityManager.persist(cableCategory);
+        phones = phoneCategory.getId();
+        double[] prices = {300, 100, 200, 100, 500, 100};
+        for (int i = 0; i < prices.length; i++) {
+            entityManager.persist(new Product("P" + i, "", prices[i], i % 2 == 0 ? phoneCategory : cableCategory, 1, "B", "M" + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesAreCheapestFirstWithTiesById() {
+        Page<Product> first = productService.getProductsByPriceRange(100, 300, 0, 3);
+        Page<Product> second = productService.getProductsByPriceRange(100, 300, 1, 3);
+
+        assertEquals(5, first.getTotalElements());
+        assertEquals(List.of("P1", "P3", "P5"), names(first));
+        assertEquals(List.of("P2", "P0"), names(second));
+    }
+
+    @Test
+    void categoryPagesUseTheSameOrder() {
+        Page<Product> page = productService.getProductsByPriceRangeAndCategory(0, 1000, phones, 0, 2);
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of("P2", "P0"), names(page));
+    }
+
+    private List<String> names(Page<Product> page) {
+        return page.getContent().stream().map(Product::getName).toList();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.services;
+
+import com.example.demo.config.HibernateConfig;
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.dto.ProductDto;
+import com.example.demo.dto.ProductImageDto;
+import com.example.demo.dto.ProductSpecificationDto;
+import com.example.demo.entities.Category;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.ProductImage;
+import com.example.demo.entities.ProductSpecification;
+import com.example.demo.monitoring.QueryBudget;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the DML Hibernate issues for updateFromDTO, using Hibernate statistics on H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+// HibernateConfig wires the statement counter used by @QueryBudget
+@Import({ProductService.class, OrderMapper.class, HibernateConfig.class})
+class ProductServiceMergeTests {
+
+    @Autowired
+    private ProductService productService;
+
+    // Not exercised here; the real one needs the snapshot executor
+    @MockitoBean
+    private PriceIndex priceIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category("Phones", "Smartphones");
+        entityManager.persist(category);
+
+        Product product = new Product("Phone", "A phone", 1000, category, 10, "Brand", "X1");
+        for (int i = 0; i < 3; i++) {
+            product.getImages().add(new ProductImage(product, "https://cdn.example.com/p-" + i + ".jpg", i == 0));
+            product.getSpecifications().add(new ProductSpecification(product, "spec-" + i, "value-" + i));
+        }
+        entityManager.persist(product);
+        entityManager.flush();
+        entityManager.clear();
+        productId = product.getId();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // product, images, specifications, then every image's variants in one batch
+    @Test
+    @QueryBudget(statements = 6)
+    void unchangedSaveIssuesNoWrites() {
+        update(currentState());
+
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(0, statistics.getCollectionRemoveCount());
+    }
+
+    @Test
+    @QueryBudget(statements = 6)
+    void priceChangeOnlyUpdatesProductRow() {
+        ProductDto dto = currentState();
+        dto.setPrice(899);
+
+        update(dto);
+
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+    }
+
+    @Test
+    void childChangesTouchOnlyAffectedRows() {
+        ProductDto dto = currentState();
+        // drop one image, add one image, change one spec value, add one spec
+        dto.getImages().remove(2);
+        ProductImageDto newImage = new ProductImageDto();
+        newImage.setImageUrl("https://cdn.example.com/p-new.jpg");
+        dto.getImages().add(newImage);
+        dto.getSpecifications().get(1).setSpecValue("changed");
+        ProductSpecificationDto newSpec = new ProductSpecificationDto();
+        newSpec.setSpecName("spec-new");
+        newSpec.setSpecValue("value-new");
+        dto.getSpecifications().add(newSpec);
+
+        update(dto);
+
+        assertEquals(2, statistics.getEntityInsertCount());
+        // the spec value, plus the product's updatedAt
+        assertEquals(2, statistics.getEntityUpdateCount());
+        assertEquals(1, statistics.getEntityDeleteCount());
+
+        entityManager.clear();
+        Product reloaded = entityManager.find(Product.class, productId);
+        assertEquals(3, reloaded.getImages().size());
+        assertEquals(4, reloaded.getSpecifications().size());
+    }
+
+    private void update(ProductDto dto) {
+        productService.updateFromDTO(productId, dto);
+        entityManager.flush();
+    }
+
+    // What an admin form would send back after loading the product
+    private ProductDto currentState() {
+        Product product = entityManager.find(Product.class, productId);
+        ProductDto dto = new ProductDto();
+        dto.setName(product.getName());
+        dto.setDescription(product.getDescription());
+        dto.setPrice(product.getPrice());
+        dto.setQuantity(product.getQuantity());
+        dto.setBrand(product.getBrand());
+        dto.setModel(product.getModel());
+        dto.setActive(product.isActive());
+        dto.setCategoryId(product.getCategory().getId());
+
+        List<ProductImageDto> images = new ArrayList<>();
+        for (ProductImage image : product.getImages()) {
+            ProductImageDto imageDto = new ProductImageDto();
+            imageDto.setId(image.getId());
+            imageDto.setImageUrl(image.getImageUrl());
+            imageDto.setMain(image.isMain());
+            images.add(imageDto);
+        }
+        dto.setImages(images);
+
+        List<ProductSpecificationDto> specs = new ArrayList<>();
+        for (ProductSpecification spec : product.getSpecifications()) {
+            ProductSpecificationDto specDto = new ProductSpecificationDto();
+            specDto.setSpecName(spec.getSpecName());
+            specDto.setSpecValue(spec.getSpecValue());
+            specs.add(specDto);
+        }
+        dto.setSpecifications(specs);
+
+        statistics.clear();
+        return dto;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.services;
+
+import com.example.demo.config.HibernateConfig;
+import com.example.demo.dto.FieldSet;
+import com.example.demo.dto.OrderMapper;
+import com.example.demo.dto.ProductDto;
+import com.example.demo.entities.Category;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.ProductImage;
+import com.example.demo.entities.ProductSpecification;
+import com.example.demo.monitoring.QueryBudget;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ?fields=id,name,price,mainImage on the product list: one projection for the columns
+ * and one for the main image URLs, with no entities, images or specifications loaded.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+// HibernateConfig wires the statement counter used by @QueryBudget
+@Import({ProductService.class, OrderMapper.class, HibernateConfig.class})
+class ProductSparseFieldsTests {
+
+    @Autowired
+    private ProductService productService;
+
+    // Not exercised here; the real one needs the snapshot executor
+    @MockitoBean
+    private PriceIndex priceIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category("Phones", "Smartphones");
+        entityManager.persist(category);
+        for (int p = 0; p < 5; p++) {
+            Product product = new Product("Phone " + p, "A phone", 100 + p, category, 10, "Brand", "X" + p);
+            for (int i = 0; i < 3; i++) {
+                product.getImages().add(new ProductImage(product, "https://cdn.example.com/p" + p + "-" + i + ".jpg", i == 1));
+                product.getSpecifications().add(new ProductSpecification(product, "spec-" + i, "value-" + i));
+            }
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @QueryBudget(statements = 2)
+    void listingWithSparseFieldsFetchesNoImagesOrSpecifications() {
+        List<ProductDto> products = productService.getAll(FieldSet.parse("id,name,price,mainImage"));
+
+        assertEquals(5, products.size());
+        ProductDto first = products.get(0);
+        assertEquals("Phone 0", first.getName());
+        assertEquals(100, first.getPrice());
+        assertEquals("https://cdn.example.com/p0-1.jpg", first.getMainImage());
+        assertNull(first.getImages());
+        assertNull(first.getSpecifications());
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.services;
+
+import com.example.demo.services.RequestThrottle.Decision;
+import com.example.demo.services.RequestThrottle.EndpointClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestThrottleTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private RequestThrottle throttle(int softInFlight, int hardInFlight) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.rate-limit.checkout.capacity", "3")
+                .withProperty("app.rate-limit.checkout.per-second", "1");
+        return new RequestThrottle(environment, registry, 1000, softInFlight, hardInFlight, Duration.ofSeconds(2));
+    }
+
+    @Test
+    void bucketAllowsBurstThenRefills() {
+        RequestThrottle throttle = throttle(100, 200);
+        long now = 1_000_000_000L;
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(throttle.tryAcquire(EndpointClass.CHECKOUT, "ip:1", now));
+        }
+        assertFalse(throttle.tryAcquire(EndpointClass.CHECKOUT, "ip:1", now));
+        assertTrue(throttle.tryAcquire(EndpointClass.CHECKOUT, "ip:2", now), "buckets are per client");
+        assertTrue(throttle.tryAcquire(EndpointClass.CATALOG, "ip:1", now), "and per endpoint class");
+
+        assertTrue(throttle.tryAcquire(EndpointClass.CHECKOUT, "ip:1", now + 1_000_000_000L));
+        assertFalse(throttle.tryAcquire(EndpointClass.CHECKOUT, "ip:1", now + 1_000_000_000L));
+    }
+
+    @Test
+    void rejectionsAreCounted() {
+        RequestThrottle throttle = throttle(100, 200);
+        Decision last = null;
+        for (int i = 0; i < 5; i++) {
+            last = throttle.admit(EndpointClass.CHECKOUT, "ip:1");
+        }
+
+        assertEquals(Decision.RATE_LIMITED, last);
+        assertEquals(2.0, registry.get("http.server.requests.rejected")
+                .tag("reason", "rate_limit").tag("class", "checkout").counter().count());
+        assertEquals(3, throttle.inFlight());
+    }
+
+    @Test
+    void shedsExpensiveClassesFirstAndNeverCatalog() {
+        RequestThrottle throttle = throttle(2, 3);
+        throttle.admit(EndpointClass.CATALOG, "ip:1");
+        throttle.admit(EndpointClass.CATALOG, "ip:2");
+
+        assertTrue(throttle.shouldShed(EndpointClass.REPORT));
+        assertTrue(throttle.shouldShed(EndpointClass.SEARCH));
+        assertFalse(throttle.shouldShed(EndpointClass.CHECKOUT));
+        assertFalse(throttle.shouldShed(EndpointClass.CATALOG));
+
+        throttle.admit(EndpointClass.CATALOG, "ip:3");
+        assertTrue(throttle.shouldShed(EndpointClass.CHECKOUT));
+        assertFalse(throttle.shouldShed(EndpointClass.CATALOG));
+    }
+
+    @Test
+    void highP99ShedsOnlyThatSoftClass() {
+        RequestThrottle throttle = throttle(100, 200);
+        throttle.setP99Micros(EndpointClass.REPORT, 4_000_000);
+
+        assertTrue(throttle.shouldShed(EndpointClass.REPORT));
+        assertFalse(throttle.shouldShed(EndpointClass.SEARCH), "slow reports do not shed search");
+        assertEquals(Decision.SHED, throttle.admit(EndpointClass.REPORT, "ip:1"));
+
+        throttle.setP99Micros(EndpointClass.CHECKOUT, 4_000_000);
+        assertFalse(throttle.shouldShed(EndpointClass.CHECKOUT));
+    }
+
+    @Test
+    void latencyIsTrackedPerClass() {
+        RequestThrottle throttle = throttle(100, 200);
+        long slowStart = System.nanoTime() - 3_000_000_000L;
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Decision.ALLOW, throttle.admit(EndpointClass.REPORT, "ip:" + i));
+            throttle.finished(EndpointClass.REPORT, slowStart);
+            assertEquals(Decision.ALLOW, throttle.admit(EndpointClass.SEARCH, "ip:" + i));
+            throttle.finished(EndpointClass.SEARCH, System.nanoTime());
+        }
+
+        throttle.tick();
+
+        assertTrue(throttle.shouldShed(EndpointClass.REPORT));
+        assertFalse(throttle.shouldShed(EndpointClass.SEARCH));
+        assertEquals(0, throttle.inFlight());
+    }
+
+    @Test
+    void latencyPercentile() {
+        RequestThrottle.LatencyWindow window = new RequestThrottle.LatencyWindow();
+        for (int i = 0; i < 990; i++) {
+            window.record(1_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            window.record(3_000_000);
+        }
+
+        // Lower bounds of the power-of-two buckets, never above the recorded values
+        assertEquals(512, window.rollAndPercentile(0.99));
+        assertEquals(0, window.rollAndPercentile(0.99), "window resets");
+        window.record(3_000_000);
+        assertEquals(2_097_152, window.rollAndPercentile(0.99));
+    }
+}
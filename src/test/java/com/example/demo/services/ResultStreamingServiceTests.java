@@ -0,0 +1,147 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Category;
+import com.example.demo.repositories.CategoryRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs outside the test transaction: the service opens and ends its own.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({ResultStreamingService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ResultStreamingServiceTests {
+
+    private static final int ROWS = 1201;
+
+    @Autowired
+    private ResultStreamingService resultStreamingService;
+
+    @Autowired
+    private CategoryRepo categoryRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            categories.add(new Category("Category " + i, ""));
+        }
+        categoryRepo.saveAll(categories);
+        ReflectionTestUtils.setField(resultStreamingService, "transactionManager", new RecordingTransactionManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(resultStreamingService, "transactionManager", transactionManager);
+        categoryRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void everyRowIsWrittenAndTheSessionIsClearedEvery500Rows() throws IOException {
+        // Entities held by the session when each row is mapped
+        List<Integer> managed = new ArrayList<>();
+        StreamingResponseBody body = resultStreamingService.stream("SELECT c FROM Category c ORDER BY c.id",
+                Category.class, category -> {
+                    managed.add(entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+                    return category.getName();
+                });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        List<?> names = objectMapper.readValue(out.toByteArray(), List.class);
+        assertEquals(ROWS, names.size());
+        assertEquals("Category 1200", names.get(ROWS - 1));
+        // Cleared after the first row, then after rows 500 and 1000
+        assertEquals(1, managed.get(1));
+        assertEquals(499, managed.get(499));
+        assertEquals(1, managed.get(500));
+        assertEquals(1, managed.get(1000));
+        assertTrue(managed.stream().allMatch(count -> count <= 500));
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    void clientDisconnectStopsTheQueryAndRollsBack() {
+        AtomicInteger mapped = new AtomicInteger();
+        StreamingResponseBody body = resultStreamingService.stream("SELECT c FROM Category c ORDER BY c.id",
+                Category.class, category -> {
+                    mapped.incrementAndGet();
+                    return category.getName();
+                });
+
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class, () -> body.writeTo(disconnected));
+        assertEquals("Broken pipe", e.getMessage());
+        // The first row is flushed immediately, so the scroll ends at row one
+        assertEquals(1, mapped.get());
+        assertEquals(0, commits.get());
+        assertEquals(1, rollbacks.get());
+    }
+
+    private final class RecordingTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return transactionManager.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            // A rollback-only status is rolled back by commit()
+            (status.isRollbackOnly() ? rollbacks : commits).incrementAndGet();
+            transactionManager.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            rollbacks.incrementAndGet();
+            transactionManager.rollback(status);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowRateLimiterTests {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toNanos();
+
+    @Test
+    void limitsWithinWindowPerKey() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, Duration.ofMinutes(1), 100);
+
+        assertTrue(limiter.tryAcquire("a", 0));
+        assertTrue(limiter.tryAcquire("a", 1));
+        assertTrue(limiter.tryAcquire("a", 2));
+        assertFalse(limiter.tryAcquire("a", 3));
+        assertTrue(limiter.tryAcquire("b", 3));
+    }
+
+    @Test
+    void previousWindowCountsByOverlap() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(4, Duration.ofMinutes(1), 100);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire("a", i));
+        }
+
+        // A quarter into the next window, 3 of the previous 4 still count
+        assertTrue(limiter.tryAcquire("a", MINUTE + MINUTE / 4));
+        assertFalse(limiter.tryAcquire("a", MINUTE + MINUTE / 4));
+
+        // Three quarters in, only 1 still counts
+        assertTrue(limiter.tryAcquire("a", MINUTE + 3 * MINUTE / 4));
+        assertTrue(limiter.tryAcquire("a", MINUTE + 3 * MINUTE / 4));
+        assertFalse(limiter.tryAcquire("a", MINUTE + 3 * MINUTE / 4));
+
+        // Two full windows later the key starts fresh
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire("a", 4 * MINUTE));
+        }
+    }
+
+    @Test
+    void boundedNumberOfKeys() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, Duration.ofMinutes(1), 2);
+
+        assertTrue(limiter.tryAcquire("a", 0));
+        assertTrue(limiter.tryAcquire("b", 0));
+
+        // Idle keys are evicted to make room
+        assertTrue(limiter.tryAcquire("c", 2 * MINUTE));
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void fullTableEvictsTheOldestWindowsInsteadOfRefusingNewKeys() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, Duration.ofMinutes(1), 20);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire("key" + i, i));
+        }
+        assertFalse(limiter.tryAcquire("key19", 20));
+
+        // None idle yet; a new client still gets in, and the two oldest windows go
+        assertTrue(limiter.tryAcquire("new", 30));
+        assertEquals(19, limiter.size());
+        assertTrue(limiter.tryAcquire("key0", 31));
+        assertTrue(limiter.tryAcquire("key1", 32));
+        assertFalse(limiter.tryAcquire("key19", 33));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.User;
+import com.example.demo.entities.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPrincipalCacheTests {
+
+    @Test
+    void hitsDoNotReload() {
+        UserPrincipalCache cache = new UserPrincipalCache(10, Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("A@Example.com", email -> load(loads, email));
+        UserPrincipalCache.Principal principal = cache.get("a@example.com", email -> load(loads, email));
+
+        assertEquals(1, loads.get());
+        assertEquals("A@Example.com", principal.email());
+    }
+
+    @Test
+    void unknownEmailsAreNotCached() {
+        UserPrincipalCache cache = new UserPrincipalCache(10, Duration.ofMinutes(10));
+
+        assertNull(cache.get("nobody@example.com", email -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        UserPrincipalCache cache = new UserPrincipalCache(2, Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a@example.com", email -> load(loads, email));
+        cache.get("b@example.com", email -> load(loads, email));
+        cache.get("a@example.com", email -> load(loads, email));
+        cache.get("c@example.com", email -> load(loads, email));
+        assertEquals(3, loads.get());
+
+        cache.get("a@example.com", email -> load(loads, email));
+        assertEquals(3, loads.get());
+        cache.get("b@example.com", email -> load(loads, email));
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotOverwritten() {
+        UserPrincipalCache cache = new UserPrincipalCache(10, Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a@example.com", email -> {
+            User stale = load(loads, email);
+            cache.invalidate(email);
+            return stale;
+        });
+        assertEquals(0, cache.size());
+
+        cache.get("a@example.com", email -> load(loads, email));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        UserPrincipalCache cache = new UserPrincipalCache(10, Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a@example.com", email -> load(loads, email));
+        cache.get("a@example.com", email -> load(loads, email));
+
+        assertEquals(2, loads.get());
+    }
+
+    private static User load(AtomicInteger loads, String email) {
+        User user = new User("user" + loads.incrementAndGet(), "{noop}secret", email, null, null, UserRole.USER);
+        user.setId((long) loads.get());
+        return user;
+    }
+}
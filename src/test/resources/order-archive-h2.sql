@@ -0,0 +1,36 @@
+-- The V6 archive tables for the H2 JPA tests, in portable types: no entity maps them,
+-- so ddl-auto does not create them
+CREATE TABLE orders_archive (
+    id                BIGINT       NOT NULL PRIMARY KEY,
+    user_id           BIGINT,
+    order_date        DATE,
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6),
+    total_amount      DOUBLE       NOT NULL,
+    shipping_address  VARCHAR(255),
+    shipping_city     VARCHAR(255),
+    shipping_zip_code VARCHAR(255),
+    shipping_country  VARCHAR(255),
+    archived_at       TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE order_items_archive (
+    id         BIGINT  NOT NULL PRIMARY KEY,
+    order_id   BIGINT  NOT NULL,
+    product_id BIGINT,
+    quantity   INTEGER NOT NULL,
+    unit_price DOUBLE  NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE payments_archive (
+    id             BIGINT NOT NULL PRIMARY KEY,
+    order_id       BIGINT NOT NULL UNIQUE,
+    payment_method VARCHAR(32),
+    payment_status VARCHAR(32),
+    transaction_id VARCHAR(255),
+    amount         DOUBLE NOT NULL,
+    payment_date   TIMESTAMP(6),
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6)
+);